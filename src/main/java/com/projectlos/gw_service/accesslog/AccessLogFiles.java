@@ -0,0 +1,123 @@
+package com.projectlos.gw_service.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rotating access log segments. Each segment is a file of fixed size, mapped into memory
+ * when it is created, so appending entries is a memory copy and the page cache takes care
+ * of writing them out. Only the newest {@code maxSegments} files are kept.
+ * <p>
+ * Not thread-safe; used by the access log writer thread only.
+ */
+@Slf4j
+public final class AccessLogFiles implements Closeable {
+
+    static final String PREFIX = "access-";
+    static final String SUFFIX = ".bin";
+    static final byte[] MAGIC = "GWACCLOG".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int counter;
+
+    /**
+     * @param segmentSize bytes per file, rounded down to whole entries
+     */
+    public AccessLogFiles(Path directory, long segmentSize, int maxSegments) {
+        long slots = Math.min(segmentSize, Integer.MAX_VALUE) / AccessLogRecord.SIZE;
+        if (slots < 2) {
+            throw new IllegalArgumentException("Access log segments must hold at least one entry: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) slots * AccessLogRecord.SIZE;
+        this.maxSegments = Math.max(1, maxSegments);
+    }
+
+    /**
+     * @return the mapped segment to append to, positioned at its first free slot; a new
+     * segment is started when the current one is full
+     */
+    public MappedByteBuffer segment() throws IOException {
+        if (segment == null || !segment.hasRemaining()) {
+            rotate();
+        }
+        return segment;
+    }
+
+    /**
+     * Writes the dirty pages of the current segment to disk.
+     */
+    public void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(PREFIX + LocalDateTime.now().format(NAME_FORMAT)
+                + String.format("-%04d", counter++ % 10_000) + SUFFIX);
+        FileChannel next = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer mapped = next.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.put(MAGIC).putInt(VERSION).putInt(AccessLogRecord.SIZE).putLong(System.currentTimeMillis());
+            mapped.position(AccessLogRecord.SIZE);
+            channel = next;
+            segment = mapped;
+        } catch (IOException | RuntimeException e) {
+            next.close();
+            throw e;
+        }
+        log.debug("Started access log segment {}", file);
+        prune();
+    }
+
+    private void prune() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(AccessLogFiles::isSegment).sorted().toList();
+        }
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+}
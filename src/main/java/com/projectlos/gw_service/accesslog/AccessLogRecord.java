@@ -0,0 +1,101 @@
+package com.projectlos.gw_service.accesslog;
+
+import org.springframework.http.HttpMethod;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One access log entry. Entries are stored in a fixed little-endian layout of
+ * {@value #SIZE} bytes, shared by the ring buffer and the log files:
+ * <pre>
+ *  0  long      end of the request, epoch millis
+ *  8  long      total time, nanos
+ * 16  long      gateway filter time up to routing, nanos, -1 when the request was not routed
+ * 24  long      upstream time to first byte, nanos, -1 when there was no upstream call
+ * 32  long      request Content-Length, -1 when unknown
+ * 40  long      response Content-Length, -1 when unknown
+ * 48  long      hash of the principal name, 0 for anonymous requests
+ * 56  short     status, 0 when none was set
+ * 58  byte      method, an index into {@link #METHODS}
+ * 59  byte      length of the route id
+ * 60  byte[36]  route id, ASCII, truncated
+ * </pre>
+ * A log file starts with one header slot and ends at the first slot whose timestamp is 0.
+ */
+public record AccessLogRecord(long timestampMillis, long totalNanos, long gatewayNanos, long upstreamNanos,
+                              long requestBytes, long responseBytes, long principalHash, int status,
+                              HttpMethod method, String routeId) {
+
+    public static final int SIZE = 96;
+
+    static final HttpMethod[] METHODS = {null, HttpMethod.GET, HttpMethod.HEAD, HttpMethod.POST, HttpMethod.PUT,
+            HttpMethod.PATCH, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE};
+
+    private static final int ROUTE_ID_OFFSET = 60;
+    private static final int MAX_ROUTE_ID_LENGTH = SIZE - ROUTE_ID_OFFSET;
+
+    /**
+     * Writes an entry at an absolute offset, leaving the buffer position alone so that
+     * several threads can write disjoint slots of one buffer.
+     */
+    static void write(ByteBuffer buffer, int offset, long timestampMillis, long totalNanos, long gatewayNanos,
+                      long upstreamNanos, long requestBytes, long responseBytes, long principalHash, int status,
+                      HttpMethod method, String routeId) {
+        buffer.putLong(offset, timestampMillis);
+        buffer.putLong(offset + 8, totalNanos);
+        buffer.putLong(offset + 16, gatewayNanos);
+        buffer.putLong(offset + 24, upstreamNanos);
+        buffer.putLong(offset + 32, requestBytes);
+        buffer.putLong(offset + 40, responseBytes);
+        buffer.putLong(offset + 48, principalHash);
+        buffer.putShort(offset + 56, (short) status);
+        buffer.put(offset + 58, methodCode(method));
+        int length = Math.min(routeId.length(), MAX_ROUTE_ID_LENGTH);
+        buffer.put(offset + 59, (byte) length);
+        for (int i = 0; i < MAX_ROUTE_ID_LENGTH; i++) {
+            char c = i < length ? routeId.charAt(i) : 0;
+            buffer.put(offset + ROUTE_ID_OFFSET + i, (byte) (c < 0x80 ? c : '?'));
+        }
+    }
+
+    /**
+     * @return the entry at an absolute offset, or {@code null} at the end of the written entries
+     */
+    public static AccessLogRecord read(ByteBuffer buffer, int offset) {
+        long timestampMillis = buffer.getLong(offset);
+        if (timestampMillis == 0) {
+            return null;
+        }
+        int methodCode = buffer.get(offset + 58);
+        int length = buffer.get(offset + 59);
+        char[] routeId = new char[length];
+        for (int i = 0; i < length; i++) {
+            routeId[i] = (char) buffer.get(offset + ROUTE_ID_OFFSET + i);
+        }
+        return new AccessLogRecord(timestampMillis, buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                buffer.getLong(offset + 24), buffer.getLong(offset + 32), buffer.getLong(offset + 40),
+                buffer.getLong(offset + 48), Short.toUnsignedInt(buffer.getShort(offset + 56)),
+                methodCode > 0 && methodCode < METHODS.length ? METHODS[methodCode] : null, new String(routeId));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a principal name, so the log identifies users without naming them.
+     */
+    public static long principalHash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static byte methodCode(HttpMethod method) {
+        for (int i = 1; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return (byte) i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,111 @@
+package com.projectlos.gw_service.accesslog;
+
+import org.springframework.http.HttpMethod;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of {@link AccessLogRecord} slots, written by any number of
+ * request threads and drained by a single writer thread.
+ * <p>
+ * All slots live in one direct buffer allocated up front, so appending an entry
+ * allocates nothing. Each slot has a sequence number: a producer claims a position
+ * with one CAS, fills the slot and publishes it by advancing the slot's sequence,
+ * and the consumer hands the slot back the same way. When the ring is full the
+ * entry is refused rather than waiting for the writer.
+ */
+public final class AccessLogRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final ByteBuffer slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only advanced by the draining thread
+    private volatile long head;
+
+    /**
+     * @param capacity number of slots, a power of two
+     */
+    public AccessLogRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = ByteBuffer.allocateDirect(Math.multiplyExact(capacity, AccessLogRecord.SIZE))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} when the ring is full and the entry was dropped
+     */
+    public boolean offer(long timestampMillis, long totalNanos, long gatewayNanos, long upstreamNanos,
+                         long requestBytes, long responseBytes, long principalHash, int status,
+                         HttpMethod method, String routeId) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The slot still holds an entry from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        AccessLogRecord.write(slots, index * AccessLogRecord.SIZE, timestampMillis, totalNanos, gatewayNanos,
+                upstreamNanos, requestBytes, responseBytes, principalHash, status, method, routeId);
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Copies published entries, oldest first, to the position of {@code target}. Only one
+     * thread may drain.
+     *
+     * @return the number of entries copied
+     */
+    public int drainTo(ByteBuffer target, int maxRecords) {
+        int limit = Math.min(maxRecords, target.remaining() / AccessLogRecord.SIZE);
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.put(target.position(), slots, index * AccessLogRecord.SIZE, AccessLogRecord.SIZE);
+            target.position(target.position() + AccessLogRecord.SIZE);
+            sequences.lazySet(index, position + capacity);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * @return the number of claimed entries not yet drained
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,131 @@
+package com.projectlos.gw_service.accesslog;
+
+import com.projectlos.gw_service.config.AccessLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Takes access log entries from request threads and writes them out on a dedicated
+ * thread.
+ * <p>
+ * {@link #append} only copies the entry into the {@link AccessLogRingBuffer}; it never
+ * formats, allocates or blocks. The writer thread drains the ring in batches into the
+ * current {@link AccessLogFiles} segment. Entries that find the ring full are counted in
+ * {@code gateway.accesslog.dropped} and lost.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.access-log", name = "enabled", havingValue = "true")
+@Slf4j
+public class AccessLogWriter {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long ERROR_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AccessLogRingBuffer ringBuffer;
+    private final AccessLogFiles files;
+    private final long flushIntervalNanos;
+    private final Counter droppedCounter;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    public AccessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) {
+        this.ringBuffer = new AccessLogRingBuffer(properties.getBufferSize());
+        this.files = new AccessLogFiles(Path.of(properties.getDirectory()),
+                properties.getSegmentSize().toBytes(), properties.getMaxSegments());
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.droppedCounter = Counter.builder("gateway.accesslog.dropped")
+                .description("Access log entries lost because the ring buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("gateway.accesslog.backlog", ringBuffer, AccessLogRingBuffer::size)
+                .description("Access log entries waiting for the writer thread")
+                .register(meterRegistry);
+        this.thread = new Thread(this::run, "access-log-writer");
+        this.thread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public void append(long timestampMillis, long totalNanos, long gatewayNanos, long upstreamNanos,
+                       long requestBytes, long responseBytes, long principalHash, int status,
+                       HttpMethod method, String routeId) {
+        if (!ringBuffer.offer(timestampMillis, totalNanos, gatewayNanos, upstreamNanos, requestBytes,
+                responseBytes, principalHash, status, method, routeId)) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void run() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            int drained;
+            try {
+                drained = drain();
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write the access log, retrying", e);
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(ERROR_PARK_NANOS);
+                continue;
+            }
+            dirty |= drained > 0;
+            long now = System.nanoTime();
+            if (dirty && now - lastForce >= flushIntervalNanos) {
+                files.force();
+                dirty = false;
+                lastForce = now;
+            }
+            if (drained == 0) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        try {
+            files.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the access log", e);
+        }
+    }
+
+    private int drain() throws IOException {
+        int drained = 0;
+        while (ringBuffer.size() > 0 && drained < ringBuffer.capacity()) {
+            MappedByteBuffer segment = files.segment();
+            int batch = ringBuffer.drainTo(segment, BATCH_SIZE);
+            if (batch == 0) {
+                // The oldest entry is claimed but not yet published
+                break;
+            }
+            drained += batch;
+        }
+        return drained;
+    }
+}
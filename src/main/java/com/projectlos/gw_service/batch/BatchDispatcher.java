@@ -0,0 +1,284 @@
+package com.projectlos.gw_service.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.projectlos.gw_service.config.BatchProperties;
+import com.projectlos.gw_service.filter.RateLimitFilter;
+import com.projectlos.gw_service.model.request.BatchRequest.SubRequest;
+import com.projectlos.gw_service.model.response.BatchResponsePart;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the sub-requests of a batch concurrently and emits one response part per
+ * sub-request as soon as it completes.
+ * <p>
+ * Sub-requests go back through the gateway's own port over the shared {@link WebClient},
+ * carrying the caller's bearer token. Each one is therefore routed, authorized, rate
+ * limited, rewritten and cached exactly like the same request sent by the browser. Paths
+ * that match no active route are answered here without a call.
+ */
+@Component
+@Slf4j
+public class BatchDispatcher {
+
+    /**
+     * Address of the client behind a batch sub-request, after this process's token. Stripped
+     * from every inbound request by {@code BatchClientAddressWebFilter}.
+     */
+    public static final String CLIENT_ADDRESS_HEADER = "X-Gateway-Batch-Client";
+    /**
+     * Exchange attribute holding the client address of a sub-request whose token checked out.
+     */
+    public static final String CLIENT_ADDRESS_ATTR = BatchDispatcher.class.getName() + ".clientAddress";
+
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = caseInsensitive(
+            HttpHeaders.HOST, HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION,
+            HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT_ENCODING, CLIENT_ADDRESS_HEADER);
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = caseInsensitive(
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.SET_COOKIE);
+
+    private final WebClient webClient;
+    private final CustomRouteLocator customRouteLocator;
+    private final BatchProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Counter completed;
+    private final Counter rejected;
+    private final Counter timedOut;
+    private final Counter failed;
+
+    // Anyone can reach the gateway over loopback, a sidecar for one, so the header is only
+    // believed when it carries a secret that never leaves this process
+    private final byte[] clientAddressToken = newToken();
+
+    private volatile String baseUrl;
+
+    public BatchDispatcher(WebClient webClient, CustomRouteLocator customRouteLocator, BatchProperties properties,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.completed = subRequests(meterRegistry, "completed");
+        this.rejected = subRequests(meterRegistry, "rejected");
+        this.timedOut = subRequests(meterRegistry, "timeout");
+        this.failed = subRequests(meterRegistry, "error");
+    }
+
+    @EventListener
+    public void onWebServerInitialized(ReactiveWebServerInitializedEvent event) {
+        // The management server, when it has its own port, publishes the same event
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            baseUrl = "http://localhost:" + event.getWebServer().getPort();
+        }
+    }
+
+    /**
+     * @return one part per sub-request, in completion order
+     */
+    public Flux<BatchResponsePart> dispatch(List<SubRequest> requests, ServerWebExchange exchange) {
+        long deadline = System.nanoTime() + properties.getDeadline().toNanos();
+        HttpHeaders callerHeaders = exchange.getRequest().getHeaders();
+        String authorization = callerHeaders.getFirst(HttpHeaders.AUTHORIZATION);
+        String clientAddress = RateLimitFilter.clientIp(exchange);
+        return Flux.fromIterable(requests)
+                .flatMap(request -> Mono.defer(() -> call(request, authorization, clientAddress, deadline)),
+                        properties.getMaxConcurrency());
+    }
+
+    private Mono<BatchResponsePart> call(SubRequest request, String authorization, String clientAddress, long deadline) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod() != null
+                ? request.getMethod().trim().toUpperCase(Locale.ROOT) : "GET");
+        String path = request.getPath();
+        if (path == null || !path.startsWith("/") || path.startsWith("//")) {
+            return reject(request, HttpStatus.BAD_REQUEST, "path must be an absolute gateway path");
+        }
+        URI uri;
+        try {
+            uri = URI.create(baseUrl + path);
+        } catch (IllegalArgumentException e) {
+            return reject(request, HttpStatus.BAD_REQUEST, "Malformed path: " + e.getMessage());
+        }
+        if (customRouteLocator.getRouteTable().getTrie().match(uri.getRawPath(), method) == null) {
+            return reject(request, HttpStatus.NOT_FOUND, "No route matches " + method + " " + uri.getRawPath());
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            timedOut.increment();
+            return Mono.just(error(request, HttpStatus.GATEWAY_TIMEOUT, "Batch deadline exceeded"));
+        }
+
+        WebClient.RequestBodySpec spec = webClient.method(method).uri(uri).headers(headers -> {
+            if (request.getHeaders() != null) {
+                request.getHeaders().forEach((name, value) -> {
+                    if (!SKIPPED_REQUEST_HEADERS.contains(name)) {
+                        headers.set(name, value);
+                    }
+                });
+            }
+            if (authorization != null) {
+                headers.set(HttpHeaders.AUTHORIZATION, authorization);
+            }
+            headers.set(CLIENT_ADDRESS_HEADER, clientAddressHeader(clientAddress));
+        });
+        WebClient.RequestHeadersSpec<?> ready = request.getBody() != null && !request.getBody().isNull()
+                ? spec.contentType(MediaType.APPLICATION_JSON).bodyValue(request.getBody())
+                : spec;
+        int maxResponseSize = (int) properties.getMaxResponseSize().toBytes();
+
+        return ready.exchangeToMono(response -> DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()), maxResponseSize)
+                        .map(BatchDispatcher::drain)
+                        .defaultIfEmpty(new byte[0])
+                        .map(bytes -> part(request, response, bytes)))
+                .timeout(Duration.ofNanos(remaining))
+                .doOnNext(part -> completed.increment())
+                .onErrorResume(TimeoutException.class, e -> {
+                    timedOut.increment();
+                    return Mono.just(error(request, HttpStatus.GATEWAY_TIMEOUT, "Batch deadline exceeded"));
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> {
+                    failed.increment();
+                    return Mono.just(error(request, HttpStatus.BAD_GATEWAY,
+                            "Response exceeds " + properties.getMaxResponseSize()));
+                })
+                .onErrorResume(e -> {
+                    log.warn("Batch sub-request {} {} failed", method, uri.getRawPath(), e);
+                    failed.increment();
+                    return Mono.just(error(request, HttpStatus.BAD_GATEWAY, "Sub-request failed"));
+                });
+    }
+
+    /**
+     * @return the {@link #CLIENT_ADDRESS_HEADER} value naming {@code clientAddress}
+     */
+    public String clientAddressHeader(String clientAddress) {
+        return new String(clientAddressToken, StandardCharsets.US_ASCII) + " " + clientAddress;
+    }
+
+    /**
+     * @return the client address of a {@link #CLIENT_ADDRESS_HEADER} value sent by this
+     * dispatcher, or {@code null} for any other value
+     */
+    public String trustedClientAddress(String header) {
+        int space = header.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        byte[] token = header.substring(0, space).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(token, clientAddressToken) ? header.substring(space + 1) : null;
+    }
+
+    private BatchResponsePart part(SubRequest request, ClientResponse response, byte[] bytes) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        Map<String, String> partHeaders = new LinkedHashMap<>();
+        headers.forEach((name, values) -> {
+            if (!SKIPPED_RESPONSE_HEADERS.contains(name) && !values.isEmpty()) {
+                partHeaders.put(name, values.get(0));
+            }
+        });
+        return BatchResponsePart.builder()
+                .id(request.getId())
+                .status(response.statusCode().value())
+                .headers(partHeaders)
+                .body(body(headers.getContentType(), bytes))
+                .build();
+    }
+
+    /**
+     * JSON bodies are embedded as JSON, textual ones as a string and anything else base64 encoded.
+     */
+    private JsonNode body(MediaType contentType, byte[] bytes) {
+        if (bytes.length == 0) {
+            return null;
+        }
+        if (contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || contentType.getSubtype().endsWith("+json"))) {
+            try {
+                return objectMapper.readTree(bytes);
+            } catch (IOException e) {
+                log.debug("Batch sub-response is not valid JSON, embedding it as text");
+            }
+        }
+        if (contentType == null || "text".equals(contentType.getType()) || contentType.getSubtype().contains("json")
+                || contentType.getSubtype().contains("xml")) {
+            Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+            return TextNode.valueOf(new String(bytes, charset));
+        }
+        return BinaryNode.valueOf(bytes);
+    }
+
+    private Mono<BatchResponsePart> reject(SubRequest request, HttpStatus status, String message) {
+        rejected.increment();
+        return Mono.just(error(request, status, message));
+    }
+
+    private static BatchResponsePart error(SubRequest request, HttpStatus status, String message) {
+        return BatchResponsePart.builder().id(request.getId()).status(status.value()).error(message).build();
+    }
+
+    private static byte[] drain(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static Counter subRequests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.batch.requests")
+                .description("Batch sub-requests by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static byte[] newToken() {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return Base64.getUrlEncoder().withoutPadding().encode(random);
+    }
+
+    private static Set<String> caseInsensitive(String... names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(List.of(names));
+        return set;
+    }
+}
@@ -0,0 +1,52 @@
+package com.projectlos.gw_service.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * A complete upstream response held by the {@link GatewayResponseCache}.
+ *
+ * @param storedAtNanos {@link System#nanoTime()} when the response was stored or last revalidated
+ * @param ttlNanos      how long after {@code storedAtNanos} the response may be served without revalidation
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body,
+                             long storedAtNanos, long ttlNanos) {
+
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - storedAtNanos < ttlNanos;
+    }
+
+    public long ageSeconds(long nowNanos) {
+        return Math.max(0, (nowNanos - storedAtNanos) / 1_000_000_000L);
+    }
+
+    public String etag() {
+        return headers.getETag();
+    }
+
+    public String lastModified() {
+        return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+    }
+
+    public boolean canRevalidate() {
+        return etag() != null || lastModified() != null;
+    }
+
+    /**
+     * This response, fresh again after the upstream confirmed it with a 304.
+     */
+    public CachedResponse revalidated(long nowNanos, long ttlNanos) {
+        return new CachedResponse(status, headers, body, nowNanos, ttlNanos);
+    }
+
+    int weight() {
+        int weight = body.length + 64;
+        for (var header : headers.entrySet()) {
+            weight += header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+}
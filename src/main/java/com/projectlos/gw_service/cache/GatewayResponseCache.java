@@ -0,0 +1,57 @@
+package com.projectlos.gw_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.projectlos.gw_service.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded store of cached upstream responses. Eviction is Caffeine's W-TinyLFU over
+ * the byte weight of each entry; entries expire at the end of their TTL, or after
+ * {@code gateway.response-cache.stale-retention} more when they can still be revalidated.
+ * Hit, miss, eviction and size metrics are published as {@code cache.*{cache=gateway.response}}.
+ */
+@Component
+public class GatewayResponseCache {
+
+    private final Cache<String, CachedResponse> cache;
+
+    public GatewayResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        long staleRetentionNanos = properties.getStaleRetention().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .<String, CachedResponse>weigher((key, response) -> key.length() + response.weight())
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.canRevalidate() ? response.ttlNanos() + staleRetentionNanos : response.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+}
@@ -0,0 +1,183 @@
+package com.projectlos.gw_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.config.KeycloakProperties;
+import com.projectlos.gw_service.model.response.KeycloakTokenResponse;
+import com.projectlos.gw_service.security.TokenKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Calls Keycloak's token endpoint for password and refresh-token grants.
+ * <p>
+ * Every call goes through the {@value #CIRCUIT_BREAKER_ID} circuit breaker and its time
+ * limit, so a slow Keycloak fails fast instead of piling up work on the gateway.
+ * Concurrent refreshes of the same refresh token share one in-flight call, and its result
+ * is replayed for {@code keycloak.refresh-coalesce-ttl}; failures are never replayed.
+ * Password grants are limited to {@code keycloak.login-max-attempts} per username per
+ * {@code keycloak.login-attempt-window}.
+ */
+@Component
+@Slf4j
+public class KeycloakTokenClient {
+
+    public static final String CIRCUIT_BREAKER_ID = "keycloak";
+
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+    private static final String GRANT_TYPE = "grant_type";
+    private static final String CLIENT_ID = "client_id";
+    private static final String CLIENT_SECRET = "client_secret";
+    private static final String REFRESH_TOKEN = "refresh_token";
+
+    private final WebClient webClient;
+    private final KeycloakProperties keycloakProperties;
+    private final ObjectMapper objectMapper;
+    private final ReactiveCircuitBreaker circuitBreaker;
+
+    private final Cache<TokenKey, Mono<byte[]>> refreshesInFlight;
+    private final Cache<String, AtomicInteger> loginAttempts;
+
+    private final Counter coalescedRefreshCounter;
+    private final Counter rateLimitedLoginCounter;
+
+    public KeycloakTokenClient(WebClient webClient,
+                               KeycloakProperties keycloakProperties,
+                               ObjectMapper objectMapper,
+                               ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory,
+                               MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.keycloakProperties = keycloakProperties;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreakerFactory.create(CIRCUIT_BREAKER_ID);
+
+        this.refreshesInFlight = Caffeine.newBuilder()
+                .expireAfterWrite(keycloakProperties.getRefreshCoalesceTtl())
+                .maximumSize(100_000)
+                .build();
+        this.loginAttempts = Caffeine.newBuilder()
+                .expireAfterWrite(keycloakProperties.getLoginAttemptWindow())
+                .maximumSize(100_000)
+                .build();
+
+        this.coalescedRefreshCounter = Counter.builder("gateway.keycloak.refresh.coalesced")
+                .description("Token refreshes answered by an in-flight or recent identical refresh")
+                .register(meterRegistry);
+        this.rateLimitedLoginCounter = Counter.builder("gateway.keycloak.login.rate-limited")
+                .description("Login attempts rejected by the per-username rate limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exchanges user credentials for tokens.
+     */
+    public Mono<KeycloakTokenResponse> passwordGrant(String username, String password) {
+        return checkLoginRate(username)
+                .then(tokenRequest(passwordForm(username, password),
+                        response -> response.bodyToMono(KeycloakTokenResponse.class)));
+    }
+
+    /**
+     * Exchanges user credentials for tokens without decoding the response. Emits once the
+     * token endpoint answered successfully; the inner body streams Keycloak's buffers as received.
+     */
+    public Mono<Flux<DataBuffer>> passwordGrantBody(String username, String password) {
+        return checkLoginRate(username)
+                .then(tokenRequest(passwordForm(username, password),
+                        response -> response.toEntityFlux(DataBuffer.class).map(HttpEntity::getBody)));
+    }
+
+    /**
+     * Exchanges a refresh token for new tokens.
+     */
+    public Mono<KeycloakTokenResponse> refreshGrant(String refreshToken) {
+        return refreshGrantBody(refreshToken).map(this::decode);
+    }
+
+    /**
+     * Exchanges a refresh token for new tokens; emits the undecoded response body, shared by
+     * every caller refreshing the same token.
+     */
+    public Mono<byte[]> refreshGrantBody(String refreshToken) {
+        return Mono.defer(() -> {
+            TokenKey key = TokenKey.of(refreshToken);
+            Mono<byte[]> inFlight = refreshesInFlight.getIfPresent(key);
+            if (inFlight != null) {
+                coalescedRefreshCounter.increment();
+                return inFlight;
+            }
+            return refreshesInFlight.get(key, k -> newRefresh(k, refreshToken));
+        });
+    }
+
+    private Mono<byte[]> newRefresh(TokenKey key, String refreshToken) {
+        AtomicReference<Mono<byte[]>> self = new AtomicReference<>();
+        Mono<byte[]> refresh = tokenRequest(BodyInserters.fromFormData(GRANT_TYPE, REFRESH_TOKEN)
+                        .with(REFRESH_TOKEN, refreshToken)
+                        .with(CLIENT_ID, keycloakProperties.getClientId())
+                        .with(CLIENT_SECRET, keycloakProperties.getClientSecret()),
+                response -> response.bodyToMono(byte[].class))
+                .doOnError(throwable -> refreshesInFlight.asMap().remove(key, self.get()))
+                .cache();
+        self.set(refresh);
+        return refresh;
+    }
+
+    private Mono<Void> checkLoginRate(String username) {
+        return Mono.defer(() -> {
+            String key = username == null ? "" : username.toLowerCase(Locale.ROOT);
+            int attempts = loginAttempts.get(key, k -> new AtomicInteger()).incrementAndGet();
+            if (attempts > keycloakProperties.getLoginMaxAttempts()) {
+                rateLimitedLoginCounter.increment();
+                return Mono.error(new LoginRateLimitedException(username, keycloakProperties.getLoginAttemptWindow()));
+            }
+            return Mono.empty();
+        });
+    }
+
+    private BodyInserters.FormInserter<String> passwordForm(String username, String password) {
+        return BodyInserters.fromFormData(USERNAME, username)
+                .with(PASSWORD, password)
+                .with(GRANT_TYPE, "password")
+                .with(CLIENT_ID, keycloakProperties.getClientId())
+                .with(CLIENT_SECRET, keycloakProperties.getClientSecret());
+    }
+
+    private KeycloakTokenResponse decode(byte[] body) {
+        try {
+            return objectMapper.readValue(body, KeycloakTokenResponse.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to parse token response", e);
+        }
+    }
+
+    private <T> Mono<T> tokenRequest(BodyInserters.FormInserter<String> form,
+                                     Function<WebClient.ResponseSpec, Mono<T>> bodyExtractor) {
+        Mono<T> call = Mono.defer(() -> bodyExtractor.apply(webClient.post()
+                .uri(keycloakProperties.getTokenUri())
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                .body(form)
+                .retrieve()));
+        return circuitBreaker.run(call, Mono::error);
+    }
+}
@@ -0,0 +1,19 @@
+package com.projectlos.gw_service.client;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a username has used up its login attempts for the current window.
+ */
+@Getter
+public class LoginRateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginRateLimitedException(String username, Duration retryAfter) {
+        super("Too many login attempts for user " + username);
+        this.retryAfter = retryAfter;
+    }
+}
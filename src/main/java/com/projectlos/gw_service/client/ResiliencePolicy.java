@@ -0,0 +1,36 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamResilienceProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+
+import java.time.Duration;
+
+/**
+ * Retry, hedging and circuit breaker settings of one route, compiled from its route_config row.
+ *
+ * @param retries        retries after the first attempt
+ * @param retryBackoff   base of the exponential, jittered backoff between attempts
+ * @param hedgeDelay     delay after which a GET is sent a second time, or {@code null}
+ * @param circuitBreaker name of the breaker guarding the service, or {@code null}
+ */
+public record ResiliencePolicy(int retries, Duration retryBackoff, Duration hedgeDelay, String circuitBreaker) {
+
+    /**
+     * The policy of a route, or {@code null} when the route uses none of the features.
+     */
+    public static ResiliencePolicy of(RouteConfig rc, UpstreamResilienceProperties properties) {
+        int retries = rc.getRetryAttempts() != null ? Math.max(0, rc.getRetryAttempts()) : 0;
+        Duration hedgeDelay = rc.getHedgeDelayMs() != null && rc.getHedgeDelayMs() > 0
+                ? Duration.ofMillis(rc.getHedgeDelayMs())
+                : null;
+        boolean circuitBreaker = Boolean.TRUE.equals(rc.getCircuitBreakerEnabled());
+        if (retries == 0 && hedgeDelay == null && !circuitBreaker) {
+            return null;
+        }
+        return new ResiliencePolicy(
+                retries,
+                rc.getRetryBackoffMs() != null ? Duration.ofMillis(rc.getRetryBackoffMs()) : properties.getRetryBackoff(),
+                hedgeDelay,
+                circuitBreaker ? (rc.getServiceName() != null ? rc.getServiceName() : rc.getRouteId()) : null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamPoolProperties;
+import com.projectlos.gw_service.metrics.RouteTiming;
+import lombok.Getter;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@link HttpClient} of one downstream service: the gateway's own client
+ * configuration (SSL, proxy, connect timeout, customizers) on top of a connection pool
+ * dedicated to that service.
+ */
+class ServiceHttpClientFactory extends HttpClientFactory {
+
+    private final String serviceName;
+    private final UpstreamPoolSettings settings;
+    private final UpstreamPoolProperties poolProperties;
+    private final ConnectionProvider.MeterRegistrar meterRegistrar;
+
+    @Getter
+    private ConnectionProvider connectionProvider;
+
+    ServiceHttpClientFactory(String serviceName,
+                             UpstreamPoolSettings settings,
+                             UpstreamPoolProperties poolProperties,
+                             ConnectionProvider.MeterRegistrar meterRegistrar,
+                             HttpClientProperties properties,
+                             ServerProperties serverProperties,
+                             HttpClientSslConfigurer sslConfigurer,
+                             List<HttpClientCustomizer> customizers) {
+        super(properties, serverProperties, sslConfigurer, new ArrayList<>(customizers));
+        this.serviceName = serviceName;
+        this.settings = settings;
+        this.poolProperties = poolProperties;
+        this.meterRegistrar = meterRegistrar;
+    }
+
+    HttpClient build() {
+        return createInstance();
+    }
+
+    @Override
+    protected HttpClient createInstance() {
+        HttpClient httpClient = super.createInstance().keepAlive(settings.keepAlive());
+        if (settings.http2()) {
+            // Prior-knowledge h2c for plain HTTP upstreams, ALPN negotiation for TLS ones
+            httpClient = settings.secure()
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    : httpClient.protocol(HttpProtocol.H2C);
+        }
+        return RouteTiming.instrument(httpClient);
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        connectionProvider = ConnectionProvider.builder(serviceName)
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireMaxCount(settings.pendingAcquireMax())
+                .pendingAcquireTimeout(poolProperties.getPendingAcquireTimeout())
+                .maxIdleTime(settings.maxIdleTime())
+                .evictInBackground(poolProperties.getEvictionInterval())
+                .metrics(true, () -> meterRegistrar)
+                .build();
+        return connectionProvider;
+    }
+}
@@ -0,0 +1,172 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamPoolProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstances;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link HttpClient} with its own connection pool per route_config
+ * {@code service_name}, so a slow service can only exhaust its own connections.
+ * <p>
+ * Pools are reconciled with the route table on every {@link RefreshRoutesEvent}: a service
+ * whose pool settings changed gets a new pool, and the old one keeps serving in-flight
+ * requests for {@code gateway.upstream-pool.dispose-grace-period} before it is closed.
+ */
+@Component
+@Slf4j
+public class ServiceHttpClientRegistry {
+
+    static final String DEFAULT_CLIENT_NAME = "web-client";
+
+    private final CustomRouteLocator customRouteLocator;
+    private final UpstreamPoolProperties poolProperties;
+    private final HttpClientProperties httpClientProperties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final List<HttpClientCustomizer> customizers;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, UpstreamPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+    private final ServiceClient defaultClient;
+
+    private volatile Map<String, ServiceClient> clientsByService = Map.of();
+    private volatile Map<String, ServiceClient> clientsByAuthority = Map.of();
+
+    public ServiceHttpClientRegistry(CustomRouteLocator customRouteLocator,
+                                     UpstreamPoolProperties poolProperties,
+                                     HttpClientProperties httpClientProperties,
+                                     ServerProperties serverProperties,
+                                     HttpClientSslConfigurer sslConfigurer,
+                                     ObjectProvider<HttpClientCustomizer> customizers,
+                                     MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.poolProperties = poolProperties;
+        this.httpClientProperties = httpClientProperties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers.orderedStream().toList();
+        this.meterRegistry = meterRegistry;
+
+        this.defaultClient = createClient(DEFAULT_CLIENT_NAME, UpstreamPoolSettings.defaults(poolProperties));
+        reconcile();
+    }
+
+    /**
+     * The pooled client of a service, or {@code null} when no active route declares it.
+     */
+    public HttpClient getHttpClient(String serviceName) {
+        ServiceClient client = serviceName != null ? clientsByService.get(serviceName) : null;
+        return client != null ? client.httpClient() : null;
+    }
+
+    /**
+     * The connector for a request URI: the pool of the service whose route points at the
+     * same host, or the shared {@value #DEFAULT_CLIENT_NAME} pool for everything else.
+     */
+    public ReactorClientHttpConnector getConnector(URI uri) {
+        ServiceClient client = clientsByAuthority.get(authority(uri));
+        return (client != null ? client : defaultClient).connector();
+    }
+
+    @EventListener(RefreshRoutesEvent.class)
+    public synchronized void reconcile() {
+        Map<String, List<RouteConfig>> routesByService = new LinkedHashMap<>();
+        for (RouteConfig rc : customRouteLocator.getRouteTable().getRouteConfigs()) {
+            if (rc.getServiceName() != null) {
+                routesByService.computeIfAbsent(rc.getServiceName(), name -> new ArrayList<>()).add(rc);
+            }
+        }
+
+        Map<String, ServiceClient> previous = clientsByService;
+        Map<String, ServiceClient> clients = new HashMap<>();
+        Map<String, ServiceClient> byAuthority = new HashMap<>();
+
+        routesByService.forEach((serviceName, routes) -> {
+            UpstreamPoolSettings settings = UpstreamPoolSettings.of(routes, poolProperties);
+            ServiceClient existing = previous.get(serviceName);
+            ServiceClient client = existing != null && existing.settings().equals(settings)
+                    ? existing
+                    : createClient(serviceName, settings);
+            clients.put(serviceName, client);
+            routes.forEach(rc -> UpstreamInstances.parse(rc.getUri())
+                    .forEach(instance -> byAuthority.putIfAbsent(authority(instance), client)));
+        });
+
+        clientsByService = Map.copyOf(clients);
+        clientsByAuthority = Map.copyOf(byAuthority);
+
+        previous.forEach((serviceName, client) -> {
+            if (clients.get(serviceName) != client) {
+                log.info("Retiring connection pool of {}", serviceName);
+                Mono.delay(poolProperties.getDisposeGracePeriod())
+                        .then(client.connectionProvider().disposeLater())
+                        .then(Mono.fromRunnable(() -> removeMetricsIfRetired(serviceName)))
+                        .subscribe();
+            }
+        });
+    }
+
+    /**
+     * Drops the gauges of a service that no route declares any more; a service that came
+     * back during the grace period keeps them for its new pool.
+     */
+    private synchronized void removeMetricsIfRetired(String serviceName) {
+        if (!clientsByService.containsKey(serviceName)) {
+            UpstreamPoolMetrics metrics = poolMetrics.remove(serviceName);
+            if (metrics != null) {
+                metrics.remove(meterRegistry);
+            }
+        }
+    }
+
+    @PreDestroy
+    void dispose() {
+        clientsByService.values().forEach(client -> client.connectionProvider().dispose());
+        defaultClient.connectionProvider().dispose();
+    }
+
+    private ServiceClient createClient(String serviceName, UpstreamPoolSettings settings) {
+        log.info("Creating connection pool for {}: {}", serviceName, settings);
+        UpstreamPoolMetrics metrics = poolMetrics.computeIfAbsent(serviceName,
+                name -> new UpstreamPoolMetrics(name, meterRegistry));
+        ServiceHttpClientFactory factory = new ServiceHttpClientFactory(serviceName, settings, poolProperties,
+                metrics, httpClientProperties, serverProperties, sslConfigurer, customizers);
+        HttpClient httpClient = factory.build();
+        return new ServiceClient(settings, httpClient, factory.getConnectionProvider(),
+                new ReactorClientHttpConnector(httpClient));
+    }
+
+    private static String authority(URI uri) {
+        return uri.getAuthority() != null ? uri.getAuthority().toLowerCase() : "";
+    }
+
+    private record ServiceClient(UpstreamPoolSettings settings,
+                                 HttpClient httpClient,
+                                 ConnectionProvider connectionProvider,
+                                 ReactorClientHttpConnector connector) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.projectlos.gw_service.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.function.Function;
+
+/**
+ * {@link ClientHttpConnector} that sends each request through the connection pool of the
+ * service it targets, so {@code WebClient} calls share the per-service pool limits of the
+ * routed traffic.
+ */
+public class ServiceRoutingClientHttpConnector implements ClientHttpConnector {
+
+    private final ServiceHttpClientRegistry registry;
+
+    public ServiceRoutingClientHttpConnector(ServiceHttpClientRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri,
+                                            Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return registry.getConnector(uri).connect(method, uri, requestCallback);
+    }
+}
@@ -0,0 +1,78 @@
+package com.projectlos.gw_service.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+/**
+ * Relays a token endpoint JSON object unparsed, with extra gateway fields spliced in
+ * right after its opening brace.
+ * <p>
+ * The body is collected before anything is emitted, so a token endpoint failing halfway
+ * through surfaces as an error while the response can still be turned into an error
+ * response. Joining keeps Keycloak's buffers (a composite on Netty); the only new
+ * allocation is the buffer holding the spliced fields.
+ */
+public final class TokenResponseRelay {
+
+    // Token responses are a few KB; anything past this is not one
+    static final int MAX_BODY_SIZE = 256 * 1024;
+
+    private TokenResponseRelay() {
+    }
+
+    /**
+     * @param body          the token endpoint response body, a JSON object
+     * @param gatewayFields a serialized JSON object with the fields to add, e.g. {@code {"username":"u"}}
+     * @return the relayed body; errors without emitting anything when the body fails, is too
+     * large, or starts a JSON object it does not close
+     */
+    public static Flux<DataBuffer> relay(Flux<DataBuffer> body, byte[] gatewayFields, DataBufferFactory bufferFactory) {
+        return DataBufferUtils.join(body, MAX_BODY_SIZE).flatMapMany(joined -> {
+            int brace = firstNonWhitespace(joined);
+            if (brace < 0 || joined.getByte(brace) != '{') {
+                return Flux.just(joined);
+            }
+            int closing = lastNonWhitespace(joined);
+            if (closing <= brace || joined.getByte(closing) != '}') {
+                DataBufferUtils.release(joined);
+                return Flux.error(new IllegalStateException("Token response is not a complete JSON object"));
+            }
+
+            joined.readPosition(brace + 1);
+            if (firstNonWhitespace(joined) == closing) {
+                // "{}" becomes the gateway fields alone
+                DataBufferUtils.release(joined);
+                return Flux.just(bufferFactory.wrap(gatewayFields));
+            }
+            // "{...fields}" becomes "{...fields," followed by the body without its "{"
+            DataBuffer fields = bufferFactory.allocateBuffer(gatewayFields.length);
+            fields.write(gatewayFields, 0, gatewayFields.length - 1);
+            fields.write((byte) ',');
+            return Flux.just(fields, joined);
+        }).doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static int firstNonWhitespace(DataBuffer buffer) {
+        for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+            if (!isWhitespace(buffer.getByte(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastNonWhitespace(DataBuffer buffer) {
+        for (int i = buffer.writePosition() - 1; i >= buffer.readPosition(); i--) {
+            if (!isWhitespace(buffer.getByte(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
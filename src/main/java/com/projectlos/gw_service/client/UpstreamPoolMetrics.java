@@ -0,0 +1,77 @@
+package com.projectlos.gw_service.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Publishes the connection pools of one service as {@code gateway.upstream.pool.*} gauges.
+ * <p>
+ * A service's pool is replaced when its route_config settings change, so the gauges are
+ * registered once per service and aggregate whichever pools are currently alive rather
+ * than being tied to a single {@link ConnectionProvider}. They are removed with the last
+ * pool of a service that left the route table.
+ */
+class UpstreamPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final List<Meter> meters = new ArrayList<>();
+
+    UpstreamPoolMetrics(String serviceName, MeterRegistry meterRegistry) {
+        Tags tags = Tags.of("service", serviceName);
+        register(meterRegistry, "gateway.upstream.pool.active", "Connections currently leased to requests", tags, ConnectionPoolMetrics::acquiredSize);
+        register(meterRegistry, "gateway.upstream.pool.idle", "Idle connections kept in the pool", tags, ConnectionPoolMetrics::idleSize);
+        register(meterRegistry, "gateway.upstream.pool.total", "Connections allocated by the pool", tags, ConnectionPoolMetrics::allocatedSize);
+        register(meterRegistry, "gateway.upstream.pool.pending", "Requests waiting to acquire a connection", tags, ConnectionPoolMetrics::pendingAcquireSize);
+        register(meterRegistry, "gateway.upstream.pool.max", "Maximum connections the pool may allocate", tags, ConnectionPoolMetrics::maxAllocatedSize);
+        meters.add(Gauge.builder("gateway.upstream.pool.utilisation", this, UpstreamPoolMetrics::utilisation)
+                .description("Share of the maximum connections currently leased")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(id + remoteAddress, metrics);
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id + remoteAddress);
+    }
+
+    private void register(MeterRegistry meterRegistry, String name, String description, Tags tags,
+                          ToIntFunction<ConnectionPoolMetrics> value) {
+        meters.add(Gauge.builder(name, this, self -> self.sum(value))
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    void remove(MeterRegistry meterRegistry) {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    private double sum(ToIntFunction<ConnectionPoolMetrics> value) {
+        int total = 0;
+        for (ConnectionPoolMetrics metrics : pools.values()) {
+            total += value.applyAsInt(metrics);
+        }
+        return total;
+    }
+
+    private double utilisation() {
+        double max = sum(ConnectionPoolMetrics::maxAllocatedSize);
+        return max > 0 ? sum(ConnectionPoolMetrics::acquiredSize) / max : 0;
+    }
+}
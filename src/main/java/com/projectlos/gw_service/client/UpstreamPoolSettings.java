@@ -0,0 +1,55 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamPoolProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Connection pool settings for one downstream service.
+ */
+public record UpstreamPoolSettings(int maxConnections,
+                                   int pendingAcquireMax,
+                                   Duration maxIdleTime,
+                                   boolean keepAlive,
+                                   boolean http2,
+                                   boolean secure) {
+
+    public static UpstreamPoolSettings defaults(UpstreamPoolProperties properties) {
+        return new UpstreamPoolSettings(
+                properties.getMaxConnections(),
+                properties.getPendingAcquireMax(),
+                properties.getMaxIdleTime(),
+                properties.isKeepAlive(),
+                properties.isHttp2(),
+                false);
+    }
+
+    /**
+     * Resolves the settings of a service from its routes. Routes must be in priority
+     * order; for each setting the highest-priority route that defines it wins.
+     */
+    public static UpstreamPoolSettings of(List<RouteConfig> serviceRoutes, UpstreamPoolProperties properties) {
+        Long maxIdleTimeMs = first(serviceRoutes, RouteConfig::getPoolMaxIdleTimeMs);
+        return new UpstreamPoolSettings(
+                Objects.requireNonNullElse(first(serviceRoutes, RouteConfig::getPoolMaxConnections), properties.getMaxConnections()),
+                Objects.requireNonNullElse(first(serviceRoutes, RouteConfig::getPoolPendingAcquireMax), properties.getPendingAcquireMax()),
+                maxIdleTimeMs != null ? Duration.ofMillis(maxIdleTimeMs) : properties.getMaxIdleTime(),
+                Objects.requireNonNullElse(first(serviceRoutes, RouteConfig::getPoolKeepAlive), properties.isKeepAlive()),
+                Objects.requireNonNullElse(first(serviceRoutes, RouteConfig::getPoolHttp2), properties.isHttp2()),
+                serviceRoutes.get(0).getUri().regionMatches(true, 0, "https:", 0, 6));
+    }
+
+    private static <T> T first(List<RouteConfig> routes, Function<RouteConfig, T> getter) {
+        for (RouteConfig route : routes) {
+            T value = getter.apply(route);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamResilienceProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shared state behind the per-route {@link ResiliencePolicy}s: one circuit breaker per
+ * service in the Resilience4j registry, which publishes their state as
+ * {@code resilience4j.circuitbreaker.*} metrics, plus retry and hedge counters per service.
+ * A 5xx upstream response counts as a failed call.
+ */
+@Component
+public class UpstreamResilience {
+
+    private static final String CIRCUIT_BREAKER_PREFIX = "upstream-";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final UpstreamResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ServiceCounters> counters = new ConcurrentHashMap<>();
+
+    public UpstreamResilience(CircuitBreakerRegistry circuitBreakerRegistry,
+                              UpstreamResilienceProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        UpstreamResilienceProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        this.circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .failureRateThreshold(breaker.getFailureRateThreshold())
+                .slowCallDurationThreshold(breaker.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(breaker.getSlowCallRateThreshold())
+                .slidingWindowSize(breaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(breaker.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(breaker.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(breaker.getPermittedCallsInHalfOpenState())
+                .recordResult(result -> result instanceof UpstreamResponse response && response.status() >= 500)
+                .build();
+    }
+
+    public CircuitBreaker circuitBreaker(String name) {
+        return circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER_PREFIX + name, circuitBreakerConfig);
+    }
+
+    public Duration openStateWait() {
+        return properties.getCircuitBreaker().getWaitDurationInOpenState();
+    }
+
+    /**
+     * Full-jitter exponential backoff before retry number {@code retry} (0-based).
+     */
+    public Duration backoff(Duration base, int retry) {
+        long ceiling = Math.min(properties.getMaxRetryBackoff().toNanos(), base.toNanos() << Math.min(retry, 20));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Failures worth another attempt: the request may not have reached the service, or it
+     * did not answer in time. Open breakers and rejected requests are final.
+     */
+    public boolean isRetryable(Throwable throwable) {
+        return throwable instanceof IOException || throwable instanceof TimeoutException
+                // The routing filter's response timeout, as it reaches the caller
+                || throwable instanceof ResponseStatusException e
+                && e.getCause() instanceof org.springframework.cloud.gateway.support.TimeoutException;
+    }
+
+    public ServiceCounters counters(String serviceName) {
+        return counters.computeIfAbsent(serviceName, name -> new ServiceCounters(
+                Counter.builder("gateway.upstream.retries")
+                        .description("Upstream attempts retried after a failure or 5xx response")
+                        .tag("service", name)
+                        .register(meterRegistry),
+                Counter.builder("gateway.upstream.hedges")
+                        .description("Hedged requests by the attempt that answered first")
+                        .tag("service", name)
+                        .tag("winner", "primary")
+                        .register(meterRegistry),
+                Counter.builder("gateway.upstream.hedges")
+                        .description("Hedged requests by the attempt that answered first")
+                        .tag("service", name)
+                        .tag("winner", "hedge")
+                        .register(meterRegistry)));
+    }
+
+    public record ServiceCounters(Counter retries, Counter primaryWins, Counter hedgeWins) {
+    }
+}
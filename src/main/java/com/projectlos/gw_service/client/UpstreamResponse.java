@@ -0,0 +1,14 @@
+package com.projectlos.gw_service.client;
+
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClientResponse;
+
+/**
+ * Response headers of one upstream attempt, with the connection its body is still to be read from.
+ */
+public record UpstreamResponse(HttpClientResponse response, Connection connection) {
+
+    public int status() {
+        return response.status().code();
+    }
+}
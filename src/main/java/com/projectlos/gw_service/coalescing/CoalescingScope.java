@@ -0,0 +1,14 @@
+package com.projectlos.gw_service.coalescing;
+
+/**
+ * Which callers of a coalescing route may share one upstream response. {@link #USER} is the
+ * default; the wider scopes suit only responses that do not depend on who asks.
+ */
+public enum CoalescingScope {
+    /** Requests of the same JWT {@code preferred_username} only; anonymous callers share with each other. */
+    USER,
+    /** Callers with the same set of roles; anonymous callers share with each other. */
+    ROLES,
+    /** Every caller of the route. */
+    GLOBAL
+}
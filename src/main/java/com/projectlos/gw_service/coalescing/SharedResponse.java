@@ -0,0 +1,13 @@
+package com.projectlos.gw_service.coalescing;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * A complete upstream response handed from the leading request of a single flight to the
+ * requests waiting on it.
+ *
+ * @param headers read-only upstream headers, without Content-Length and hop-by-hop headers
+ */
+public record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+}
@@ -0,0 +1,95 @@
+package com.projectlos.gw_service.coalescing;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent calls with the same key into one. The first caller of a key leads
+ * the call and publishes its result with {@link Call#complete}; callers joining while the
+ * call is in flight wait for that result instead of doing the work again.
+ * <p>
+ * A key is free again as soon as its call completes or is abandoned, so later callers start
+ * a new call rather than reusing an old result.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * @return the in-flight call of the key, or a new call led by the caller
+     */
+    public Call<V> join(K key) {
+        Call<V> created = new Call<>(this, key);
+        Call<V> existing = calls.putIfAbsent(key, created);
+        return existing != null ? existing.follower() : created;
+    }
+
+    /**
+     * Number of calls currently in flight.
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    /**
+     * One caller's view of a call: either its leader or one of the followers waiting on it.
+     */
+    public static final class Call<V> {
+
+        private final SingleFlight<?, V> owner;
+        private final Object key;
+        private final Sinks.One<V> result;
+        private final boolean leader;
+
+        private Call(SingleFlight<?, V> owner, Object key) {
+            this(owner, key, Sinks.one(), true);
+        }
+
+        private Call(SingleFlight<?, V> owner, Object key, Sinks.One<V> result, boolean leader) {
+            this.owner = owner;
+            this.key = key;
+            this.result = result;
+            this.leader = leader;
+        }
+
+        private Call<V> follower() {
+            return new Call<>(owner, key, result, false);
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * The leader's result; completes empty when the leader abandons the call.
+         */
+        public Mono<V> result() {
+            return result.asMono();
+        }
+
+        /**
+         * Hands the result to the followers. Only the first of complete and abandon counts.
+         */
+        public void complete(V value) {
+            release();
+            result.tryEmitValue(value);
+        }
+
+        /**
+         * Sends the followers off to do the work themselves.
+         */
+        public void abandon() {
+            release();
+            result.tryEmitEmpty();
+        }
+
+        private void release() {
+            if (leader) {
+                owner.calls.remove(key, this);
+            }
+        }
+    }
+}
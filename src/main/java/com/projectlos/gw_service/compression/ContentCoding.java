@@ -0,0 +1,138 @@
+package com.projectlos.gw_service.compression;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliDecoder;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import io.netty.handler.codec.compression.JdkZlibEncoder;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP content codings the gateway encodes and decodes, backed by Netty's compression codecs.
+ * <p>
+ * gzip and deflate only need the JDK. br needs brotli4j with its native library on the
+ * classpath and zstd needs zstd-jni; Netty 4.1 has no zstd decoder, so zstd is decoded by
+ * {@link ZstdStreamDecoder} on zstd-jni directly.
+ */
+public enum ContentCoding {
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    BROTLI("br"),
+    ZSTD("zstd");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public boolean canEncode() {
+        return switch (this) {
+            case GZIP, DEFLATE -> true;
+            case BROTLI -> Brotli.isAvailable();
+            case ZSTD -> Zstd.isAvailable();
+        };
+    }
+
+    public boolean canDecode() {
+        return switch (this) {
+            case GZIP, DEFLATE -> true;
+            case BROTLI -> Brotli.isAvailable();
+            case ZSTD -> Zstd.isAvailable();
+        };
+    }
+
+    /**
+     * @param level compression level for gzip, deflate and zstd; br uses Netty's default quality
+     */
+    public ChannelHandler newEncoder(int level) {
+        return switch (this) {
+            case GZIP -> new JdkZlibEncoder(ZlibWrapper.GZIP, level);
+            case DEFLATE -> new JdkZlibEncoder(ZlibWrapper.ZLIB, level);
+            case BROTLI -> new BrotliEncoder();
+            case ZSTD -> new ZstdEncoder(level);
+        };
+    }
+
+    public ChannelHandler newDecoder() {
+        return switch (this) {
+            case GZIP -> new JdkZlibDecoder(ZlibWrapper.GZIP, true);
+            // Some clients send raw deflate despite RFC 9110 asking for the zlib format
+            case DEFLATE -> new JdkZlibDecoder(ZlibWrapper.ZLIB_OR_NONE, false);
+            case BROTLI -> new BrotliDecoder();
+            case ZSTD -> new ZstdStreamDecoder();
+        };
+    }
+
+    /**
+     * @return the coding of a Content-Encoding or Accept-Encoding token, or null if unknown
+     */
+    public static ContentCoding fromToken(String token) {
+        String normalized = token.trim().toLowerCase(Locale.ROOT);
+        for (ContentCoding coding : values()) {
+            if (coding.token.equals(normalized)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the response coding for a request's Accept-Encoding: the offered coding with the
+     * highest q value, ties going to the earlier one in {@code offered}.
+     *
+     * @return the coding, or null when the client accepts none of them
+     */
+    public static ContentCoding negotiate(List<String> acceptEncoding, List<ContentCoding> offered) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        Map<String, Float> qualities = new HashMap<>();
+        for (String value : acceptEncoding) {
+            for (String element : value.split(",")) {
+                String[] parts = element.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (!name.isEmpty()) {
+                    qualities.put(name, quality(parts));
+                }
+            }
+        }
+        float wildcard = qualities.getOrDefault("*", 0f);
+        ContentCoding best = null;
+        float bestQuality = 0f;
+        for (ContentCoding coding : offered) {
+            float quality = qualities.getOrDefault(coding.token, wildcard);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static float quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0f;
+                }
+            }
+        }
+        return 1f;
+    }
+}
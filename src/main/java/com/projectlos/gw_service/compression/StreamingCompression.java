@@ -0,0 +1,129 @@
+package com.projectlos.gw_service.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Runs a body through a Netty compression codec one {@link DataBuffer} at a time, so bodies
+ * are never held in memory as a whole: every buffer goes into the codec as it arrives and
+ * whatever the codec produced for it is emitted before the next one is requested. The codec
+ * sits in an {@link EmbeddedChannel} created per subscription, and is finished on
+ * completion and released on error or cancellation.
+ */
+public final class StreamingCompression {
+
+    private static final int DECODER_INPUT_SLICE = 4096;
+
+    private StreamingCompression() {
+    }
+
+    public static Flux<DataBuffer> encode(Publisher<? extends DataBuffer> body, Supplier<ChannelHandler> encoder,
+                                          DataBufferFactory bufferFactory) {
+        return transcode(body, () -> new EmbeddedChannel(encoder.get()), false, bufferFactory);
+    }
+
+    /**
+     * @param maxBytes decoded size beyond which the body fails with a {@link DataBufferLimitException}
+     */
+    public static Flux<DataBuffer> decode(Publisher<? extends DataBuffer> body, Supplier<ChannelHandler> decoder,
+                                          DataBufferFactory bufferFactory, long maxBytes) {
+        return transcode(body, () -> new EmbeddedChannel(decoder.get(), new DecodedSizeLimit(maxBytes)), true,
+                bufferFactory);
+    }
+
+    private static Flux<DataBuffer> transcode(Publisher<? extends DataBuffer> body,
+                                              Callable<EmbeddedChannel> channelSupplier,
+                                              boolean inbound, DataBufferFactory bufferFactory) {
+        return Flux.using(channelSupplier,
+                        channel -> Flux.from(body)
+                                .concatMapIterable(buffer -> {
+                                    // Released only once written: when the codec fails, Reactor discards the buffer
+                                    ByteBuf input = NettyDataBufferFactory.toByteBuf(buffer);
+                                    if (inbound) {
+                                        writeInbound(channel, input);
+                                    } else {
+                                        channel.writeOutbound(input.retain());
+                                    }
+                                    input.release();
+                                    return drain(channel, inbound, bufferFactory);
+                                })
+                                .concatWith(Flux.defer(() -> {
+                                    channel.finish();
+                                    return Flux.fromIterable(drain(channel, inbound, bufferFactory));
+                                })),
+                        EmbeddedChannel::finishAndReleaseAll)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Feeds a buffer to a decoder in slices, bounding what a highly compressed buffer inflates
+     * to before the decoded size limit gets to reject it.
+     */
+    private static void writeInbound(EmbeddedChannel channel, ByteBuf input) {
+        while (input.isReadable()) {
+            channel.writeInbound(input.readRetainedSlice(Math.min(input.readableBytes(), DECODER_INPUT_SLICE)));
+        }
+    }
+
+    private static List<DataBuffer> drain(EmbeddedChannel channel, boolean inbound, DataBufferFactory bufferFactory) {
+        List<DataBuffer> output = new ArrayList<>(2);
+        ByteBuf buf;
+        while ((buf = inbound ? channel.readInbound() : channel.readOutbound()) != null) {
+            if (!buf.isReadable()) {
+                buf.release();
+            } else if (bufferFactory instanceof NettyDataBufferFactory nettyBufferFactory) {
+                output.add(nettyBufferFactory.wrap(buf));
+            } else {
+                output.add(bufferFactory.wrap(ByteBufUtil.getBytes(buf)));
+                buf.release();
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Fails decoding once the decoded output exceeds a limit, and drops everything the
+     * decoder still produces for the current input buffer after that.
+     */
+    private static final class DecodedSizeLimit extends ChannelInboundHandlerAdapter {
+
+        private final long maxBytes;
+        private long decodedBytes;
+
+        DecodedSizeLimit(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (decodedBytes > maxBytes) {
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+            decodedBytes += ((ByteBuf) msg).readableBytes();
+            if (decodedBytes > maxBytes) {
+                ReferenceCountUtil.release(msg);
+                ctx.fireExceptionCaught(new DataBufferLimitException("Decoded body exceeds " + maxBytes + " bytes"));
+                return;
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.projectlos.gw_service.compression;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.compression.DecompressionException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Streaming zstd decoder on zstd-jni, which Netty 4.1 does not provide. Input is decoded as
+ * it arrives, across frame boundaries; input that ends inside a frame is an error.
+ */
+final class ZstdStreamDecoder extends ByteToMessageDecoder {
+
+    private static final int OUTPUT_CHUNK = 16 * 1024;
+
+    private final ZstdDecompressCtx zstd = new ZstdDecompressCtx();
+    private boolean inFrame;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (!in.isReadable()) {
+            return;
+        }
+        // The stream API reads and writes direct buffers only
+        ByteBuf direct = in.isDirect() && in.nioBufferCount() == 1
+                ? in
+                : ctx.alloc().directBuffer(in.readableBytes()).writeBytes(in, in.readerIndex(), in.readableBytes());
+        try {
+            ByteBuffer input = direct.nioBuffer(direct.readerIndex(), direct.readableBytes());
+            boolean outputFull;
+            do {
+                ByteBuf output = ctx.alloc().directBuffer(OUTPUT_CHUNK);
+                ByteBuffer target = output.nioBuffer(0, OUTPUT_CHUNK);
+                try {
+                    inFrame = !zstd.decompressDirectByteBufferStream(target, input);
+                } catch (ZstdException e) {
+                    output.release();
+                    throw new DecompressionException("Malformed zstd input", e);
+                }
+                output.writerIndex(target.position());
+                outputFull = !target.hasRemaining();
+                if (output.isReadable()) {
+                    out.add(output);
+                } else {
+                    output.release();
+                }
+            } while (input.hasRemaining() || outputFull);
+            in.skipBytes(input.position());
+        } finally {
+            if (direct != in) {
+                direct.release();
+            }
+        }
+    }
+
+    @Override
+    protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        decode(ctx, in, out);
+        if (inFrame) {
+            inFrame = false;
+            throw new DecompressionException("Truncated zstd input");
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) {
+        zstd.close();
+    }
+}
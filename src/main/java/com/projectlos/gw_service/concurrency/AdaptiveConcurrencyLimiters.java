@@ -0,0 +1,86 @@
+package com.projectlos.gw_service.concurrency;
+
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AdaptiveLimiter} per route_config service, created on first use and
+ * published as {@code gateway.concurrency.limit}, {@code gateway.concurrency.inflight}
+ * and {@code gateway.concurrency.rejected}, tagged by service. On every
+ * {@link RefreshRoutesEvent} the limiters and meters of services no active route
+ * declares any more are dropped.
+ */
+@Component
+public class AdaptiveConcurrencyLimiters {
+
+    private final AdaptiveConcurrencyProperties properties;
+    private final CustomRouteLocator customRouteLocator;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ServiceLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiters(AdaptiveConcurrencyProperties properties, CustomRouteLocator customRouteLocator,
+                                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.customRouteLocator = customRouteLocator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AdaptiveLimiter limiter(String serviceName) {
+        ServiceLimiter limiter = limiters.get(serviceName);
+        return (limiter != null ? limiter : limiters.computeIfAbsent(serviceName, this::register)).limiter();
+    }
+
+    /**
+     * Drops the limiters of services that left the route table. Requests still in flight
+     * finish on the dropped limiter; a service that comes back starts from the initial limit.
+     */
+    @EventListener(RefreshRoutesEvent.class)
+    public void reconcile() {
+        Set<String> serviceNames = new HashSet<>();
+        for (RouteConfig rc : customRouteLocator.getRouteTable().getRouteConfigs()) {
+            if (rc.getServiceName() != null) {
+                serviceNames.add(rc.getServiceName());
+            }
+        }
+        limiters.forEach((serviceName, limiter) -> {
+            if (!serviceNames.contains(serviceName) && limiters.remove(serviceName, limiter)) {
+                limiter.meters().forEach(meterRegistry::remove);
+            }
+        });
+    }
+
+    private ServiceLimiter register(String serviceName) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties, System.nanoTime());
+        List<Meter> meters = List.of(
+                Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveLimiter::limit)
+                        .description("Current adaptive in-flight limit of the service")
+                        .tag("service", serviceName)
+                        .register(meterRegistry),
+                Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveLimiter::inFlight)
+                        .description("Requests in flight to the service")
+                        .tag("service", serviceName)
+                        .register(meterRegistry),
+                FunctionCounter.builder("gateway.concurrency.rejected", limiter, AdaptiveLimiter::rejected)
+                        .description("Requests answered 503 because the service was at its limit")
+                        .tag("service", serviceName)
+                        .register(meterRegistry));
+        return new ServiceLimiter(limiter, meters);
+    }
+
+    private record ServiceLimiter(AdaptiveLimiter limiter, List<Meter> meters) {
+    }
+}
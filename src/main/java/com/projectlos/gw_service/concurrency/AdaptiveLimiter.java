@@ -0,0 +1,143 @@
+package com.projectlos.gw_service.concurrency;
+
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight limit of one upstream service, adjusted from observed round-trip times with
+ * a gradient algorithm.
+ * <p>
+ * Samples are grouped into short windows. At the end of each window, the window's average
+ * round trip is compared with a long-term average. A service answering no slower than
+ * {@code rtt-tolerance} times its usual speed gets {@code sqrt(limit)} extra headroom. A
+ * slower one shrinks the limit in proportion to the slowdown, by at most half. Windows
+ * with failed or overloaded calls back the limit off by {@code backoff-ratio}, and windows
+ * that never used half the limit do not grow it. Each new estimate is smoothed into the
+ * limit, which stays within {@code [min-limit, max-limit]}.
+ * <p>
+ * {@link #tryAcquire()} is a CAS on the in-flight count; window bookkeeping happens under
+ * the limiter's lock when a call completes.
+ */
+public final class AdaptiveLimiter {
+
+    private final AdaptiveConcurrencyProperties properties;
+    private final long minWindowNanos;
+    private final double longRttDecay;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowStartNanos;
+    private long windowRttNanos;
+    private int windowSamples;
+    private int windowRttSamples;
+    private int windowMaxInFlight;
+    private boolean windowOverloaded;
+
+    public AdaptiveLimiter(AdaptiveConcurrencyProperties properties, long nowNanos) {
+        this.properties = properties;
+        this.minWindowNanos = properties.getMinWindowTime().toNanos();
+        this.longRttDecay = 2.0 / (properties.getLongWindow() + 1);
+        this.estimatedLimit = clamp(properties.getInitialLimit());
+        this.limit = (int) estimatedLimit;
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * @return {@code false} when the service is at its limit; the call must not be made
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Ends an acquired call that produced no usable sample, e.g. because the client went away.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Ends an acquired call.
+     *
+     * @param overloaded whether the call failed or the service reported overload
+     */
+    public void complete(long rttNanos, boolean overloaded, long nowNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+            if (overloaded) {
+                windowOverloaded = true;
+            } else {
+                windowRttNanos += rttNanos;
+                windowRttSamples++;
+            }
+            if (windowSamples >= properties.getMinWindowSamples() && nowNanos - windowStartNanos >= minWindowNanos) {
+                closeWindow();
+                windowStartNanos = nowNanos;
+            }
+        }
+    }
+
+    private void closeWindow() {
+        double next = estimatedLimit;
+        if (windowOverloaded) {
+            next = estimatedLimit * properties.getBackoffRatio();
+        } else if (windowRttSamples > 0) {
+            double shortRttNanos = (double) windowRttNanos / windowRttSamples;
+            if (longRttNanos == 0) {
+                longRttNanos = shortRttNanos;
+            } else {
+                longRttNanos += (shortRttNanos - longRttNanos) * longRttDecay;
+                // The service got much faster, e.g. after a slow deploy: let the baseline catch up
+                if (longRttNanos / shortRttNanos > 2) {
+                    longRttNanos *= 0.95;
+                }
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / shortRttNanos));
+            // Headroom only for a service that actually used its limit
+            double headroom = windowMaxInFlight >= estimatedLimit / 2 ? Math.sqrt(estimatedLimit) : 0;
+            double target = estimatedLimit * gradient + headroom;
+            next = estimatedLimit * (1 - properties.getSmoothing()) + target * properties.getSmoothing();
+        }
+        estimatedLimit = clamp(next);
+        limit = (int) estimatedLimit;
+
+        windowRttNanos = 0;
+        windowSamples = 0;
+        windowRttSamples = 0;
+        windowMaxInFlight = 0;
+        windowOverloaded = false;
+    }
+
+    private double clamp(double value) {
+        return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), value));
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,27 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Binary access log of routed requests.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.access-log")
+@Getter
+@Setter
+public class AccessLogProperties {
+    private boolean enabled = false;
+    private String directory = "logs/access";
+    // Entries buffered between request threads and the writer, a power of two; further entries are dropped
+    private int bufferSize = 65536;
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private int maxSegments = 16;
+    // How often written entries are forced to disk
+    private Duration flushInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,33 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Adaptive in-flight limits per route_config service, sized from the upstream round-trip times.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.adaptive-concurrency")
+@Getter
+@Setter
+public class AdaptiveConcurrencyProperties {
+    private boolean enabled = false;
+    private int initialLimit = 20;
+    private int minLimit = 2;
+    private int maxLimit = 500;
+    // Round trips up to this multiple of the long-term average do not shrink the limit
+    private double rttTolerance = 1.5;
+    // Weight of each new estimate in the limit
+    private double smoothing = 0.2;
+    // Sample windows averaged into the long-term round-trip time
+    private int longWindow = 600;
+    // A sample window closes once it is at least this old and holds min-window-samples samples
+    private Duration minWindowTime = Duration.ofMillis(100);
+    private int minWindowSamples = 10;
+    // Limit multiplier after a window with failed or overloaded (429, 502-504) calls
+    private double backoffRatio = 0.9;
+}
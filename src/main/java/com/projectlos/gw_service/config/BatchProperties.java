@@ -0,0 +1,28 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * The batch endpoint, which fans a list of sub-requests out to the gateway routes.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.batch")
+@Getter
+@Setter
+public class BatchProperties {
+    private boolean enabled = true;
+    // Larger batches are rejected as a whole
+    private int maxRequests = 20;
+    // Sub-requests of one batch in flight at once
+    private int maxConcurrency = 8;
+    // Sub-requests still running when it passes answer 504
+    private Duration deadline = Duration.ofSeconds(5);
+    // Body limit of one sub-response; larger ones answer 502
+    private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+}
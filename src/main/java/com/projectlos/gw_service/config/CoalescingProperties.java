@@ -0,0 +1,20 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Request coalescing. Routes opt in through the coalesce_* columns of route_config.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.coalescing")
+@Getter
+@Setter
+public class CoalescingProperties {
+    private boolean enabled = true;
+    // Larger responses still reach the leading request; waiting requests then call the upstream themselves
+    private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+}
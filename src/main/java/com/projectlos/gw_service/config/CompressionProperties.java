@@ -0,0 +1,32 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * Edge compression. Routes opt in through the compression_* and request_decompression_*
+ * columns of route_config; the sizes and content types here are their defaults.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.compression")
+@Getter
+@Setter
+public class CompressionProperties {
+    private boolean enabled = true;
+    // Response codings in order of preference when the client accepts several with the same q;
+    // br is left out since brotli4j is not a dependency, add it once its native library is deployed
+    private List<String> encodings = List.of("zstd", "gzip");
+    private DataSize minResponseSize = DataSize.ofKilobytes(1);
+    private List<String> contentTypes = List.of(
+            "application/json", "application/*+json", "application/xml", "application/*+xml",
+            "application/javascript", "text/html", "text/plain", "text/css", "text/csv", "text/xml",
+            "image/svg+xml");
+    private DataSize maxDecompressedRequestSize = DataSize.ofMegabytes(10);
+    private int gzipLevel = 6;
+    private int zstdLevel = 3;
+}
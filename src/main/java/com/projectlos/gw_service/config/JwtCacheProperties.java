@@ -0,0 +1,20 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.jwt-cache")
+@Getter
+@Setter
+public class JwtCacheProperties {
+    private boolean enabled = true;
+    private long maxSize = 10_000;
+    // Background JWK set refresh; an unknown key id also triggers a refresh, at most once per min-refresh-interval
+    private Duration jwkRefreshInterval = Duration.ofMinutes(5);
+    private Duration jwkMinRefreshInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,34 @@
+package com.projectlos.gw_service.config;
+
+import com.projectlos.gw_service.client.KeycloakTokenClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+
+@Configuration
+public class KeycloakCircuitBreakerConfig {
+
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> keycloakCircuitBreakerCustomizer(KeycloakProperties keycloakProperties) {
+        return factory -> factory.configure(builder -> builder
+                .timeLimiterConfig(TimeLimiterConfig.custom()
+                        .timeoutDuration(keycloakProperties.getTimeout())
+                        .build())
+                .circuitBreakerConfig(CircuitBreakerConfig.custom()
+                        .slidingWindowSize(20)
+                        .minimumNumberOfCalls(10)
+                        .failureRateThreshold(50)
+                        .slowCallDurationThreshold(keycloakProperties.getTimeout())
+                        .waitDurationInOpenState(Duration.ofSeconds(10))
+                        // Rejected credentials or refresh tokens are answers, not outages
+                        .recordException(throwable -> !(throwable instanceof WebClientResponseException e)
+                                || e.getStatusCode().is5xxServerError())
+                        .build()), KeycloakTokenClient.CIRCUIT_BREAKER_ID);
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "keycloak")
 @Getter
@@ -15,4 +17,11 @@ public class KeycloakProperties {
     private String clientSecret;
     private String realm;
     private String authServerUrl;
+    // Token endpoint protection: per-call timeout (circuit breaker "keycloak"), coalesced refresh TTL, login rate limit
+    private Duration timeout = Duration.ofSeconds(5);
+    private Duration refreshCoalesceTtl = Duration.ofSeconds(5);
+    private int loginMaxAttempts = 10;
+    private Duration loginAttemptWindow = Duration.ofMinutes(1);
+    // Relay Keycloak's token response as-is (snake_case fields) with username, loginTime and message added
+    private boolean passThrough = false;
 }
@@ -0,0 +1,43 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Client-side load balancing for routes whose route_config uri lists several instances.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+@Getter
+@Setter
+public class LoadBalancerProperties {
+    private boolean enabled = true;
+    // Time constant of the latency EWMA
+    private Duration decayTime = Duration.ofSeconds(10);
+    private Ejection ejection = new Ejection();
+    private HealthCheck healthCheck = new HealthCheck();
+
+    @Getter
+    @Setter
+    public static class Ejection {
+        // Consecutive failed requests (errors, timeouts, 5xx) that take an instance out of rotation
+        private int consecutiveFailures = 5;
+        // Multiplied by the number of times the instance was ejected in a row, up to 10x
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+        private int maxEjectionPercent = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class HealthCheck {
+        private boolean enabled = true;
+        private Duration interval = Duration.ofSeconds(10);
+        private Duration timeout = Duration.ofSeconds(2);
+        // Any answer below 500 counts as alive, so services without this endpoint still pass
+        private String path = "/actuator/health";
+    }
+}
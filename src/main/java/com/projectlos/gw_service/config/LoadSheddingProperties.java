@@ -0,0 +1,32 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Priority load shedding at the gateway edge, driven by event-loop lag.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.load-shedding")
+@Getter
+@Setter
+public class LoadSheddingProperties {
+    private boolean enabled = false;
+    // Event-loop lag above which low-priority requests are shed; at twice this normal ones, at four times high ones
+    private Duration targetLag = Duration.ofMillis(20);
+    private Duration probeInterval = Duration.ofMillis(10);
+    // Requests in flight through the gateway, /auth included
+    private int maxInFlight = 2000;
+    // Part of max-in-flight only /auth requests may use
+    private double authReservedShare = 0.1;
+    // Routes with a route_config priority at or above this are high priority, at or below low-priority-max low
+    private int highPriorityMin = 90;
+    private int lowPriorityMax = 10;
+    // Realm roles whose requests are high priority on any route
+    private List<String> priorityRoles = List.of("APPROVER");
+}
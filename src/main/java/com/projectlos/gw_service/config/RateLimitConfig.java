@@ -0,0 +1,17 @@
+package com.projectlos.gw_service.config;
+
+import com.projectlos.gw_service.ratelimit.InMemoryRateLimitStore;
+import com.projectlos.gw_service.ratelimit.RateLimitStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimitStore.class)
+    public RateLimitStore rateLimitStore(RateLimitProperties properties) {
+        return new InMemoryRateLimitStore(properties);
+    }
+}
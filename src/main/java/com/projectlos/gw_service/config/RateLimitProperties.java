@@ -0,0 +1,32 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Rate limiting. Service routes are limited through the rate_limit_* columns of
+ * route_config; the /auth endpoints through the {@code auth} settings, per client IP.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Buckets idle for longer than this are dropped from the in-memory store
+    private Duration keyIdleTimeout = Duration.ofMinutes(10);
+    private long maxKeys = 1_000_000;
+    private Auth auth = new Auth();
+
+    @Getter
+    @Setter
+    public static class Auth {
+        private boolean enabled = true;
+        private int replenishRate = 5;
+        private int burstCapacity = 20;
+    }
+}
@@ -0,0 +1,25 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Gateway response cache. Routes opt in through the cache_* columns of route_config.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+@Getter
+@Setter
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    // Total size of cached bodies and headers; least valuable entries are evicted first (W-TinyLFU)
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+    // How long an expired entry with an ETag or Last-Modified is kept for conditional revalidation
+    private Duration staleRetention = Duration.ofMinutes(5);
+}
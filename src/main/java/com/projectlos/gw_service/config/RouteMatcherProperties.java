@@ -0,0 +1,21 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.route-matcher")
+@Getter
+@Setter
+public class RouteMatcherProperties {
+    private Mode mode = Mode.PREDICATE;
+
+    public enum Mode {
+        /** One path predicate per route, evaluated in priority order. */
+        PREDICATE,
+        /** A single compiled segment trie resolves the route once per request. */
+        TRIE
+    }
+}
@@ -0,0 +1,17 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.route-refresh")
+@Getter
+@Setter
+public class RouteRefreshProperties {
+    private boolean enabled = true;
+    private Duration interval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,43 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Where the gateway reads route_config from, and the local snapshot it can start from
+ * without waiting for the database.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.route-source")
+@Getter
+@Setter
+public class RouteSourceProperties {
+    private Reader reader = Reader.JPA;
+    private Snapshot snapshot = new Snapshot();
+
+    public enum Reader {
+        /** RouteConfigRepository on Hibernate. */
+        JPA,
+        /** One plain JDBC query; runs without the JPA stack, see the fast-start profile. */
+        JDBC
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+        // Start from the last-known routes in path and reconcile with the database in the background
+        private boolean enabled = false;
+        // Rewritten after every route table change loaded from the database
+        private Path path = Path.of("route-snapshot.json");
+        // Run the Liquibase changelog from the background reconcile instead of during startup
+        private boolean deferredMigrations = false;
+        // Backoff between reconcile attempts while the database is unreachable
+        private Duration minRetryBackoff = Duration.ofSeconds(1);
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+    }
+}
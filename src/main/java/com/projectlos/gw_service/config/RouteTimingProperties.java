@@ -0,0 +1,20 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Per-route latency timers ({@code gateway.route.latency}).
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.route-timing")
+@Getter
+@Setter
+public class RouteTimingProperties {
+    private boolean enabled = true;
+    private List<Double> percentiles = List.of(0.5, 0.9, 0.99);
+}
@@ -0,0 +1,41 @@
+package com.projectlos.gw_service.config;
+
+import com.projectlos.gw_service.client.ServiceHttpClientRegistry;
+import com.projectlos.gw_service.client.UpstreamResilience;
+import com.projectlos.gw_service.filter.PooledNettyRoutingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * Replaces the gateway's default routing filter with {@link PooledNettyRoutingFilter}.
+ * The default one is switched off in application.yml; its response writer is switched
+ * off with it, so it is registered here as well.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.cloud.gateway.global-filter.netty-routing", name = "enabled", havingValue = "false")
+public class RoutingFilterConfig {
+
+    @Bean
+    public PooledNettyRoutingFilter pooledNettyRoutingFilter(HttpClient httpClient,
+                                                             ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                             HttpClientProperties properties,
+                                                             ServiceHttpClientRegistry serviceHttpClientRegistry,
+                                                             UpstreamResilience upstreamResilience) {
+        return new PooledNettyRoutingFilter(httpClient, headersFilters, properties, serviceHttpClientRegistry,
+                upstreamResilience);
+    }
+
+    @Bean
+    public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties properties) {
+        return new NettyWriteResponseFilter(properties.getStreamingMediaTypes());
+    }
+}
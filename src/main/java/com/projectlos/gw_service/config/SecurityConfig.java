@@ -1,22 +1,28 @@
 package com.projectlos.gw_service.config;
 
+import com.projectlos.gw_service.security.CachingJwtAuthenticationManager;
+import com.projectlos.gw_service.security.JwkSetCache;
+import com.projectlos.gw_service.security.RouteAuthorizationManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.authentication.AbstractAuthenticationToken;
-import org.springframework.security.config.Customizer;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import reactor.core.publisher.Flux;
 
 @Configuration
@@ -24,12 +30,23 @@ import reactor.core.publisher.Flux;
 @Slf4j
 public class SecurityConfig {
 
+    /**
+     * Order of the WebFilterChainProxy that {@code @EnableWebFluxSecurity} registers. Spring
+     * Security keeps its own constant, WebFluxSecurityConfiguration.WEB_FILTER_CHAIN_FILTER_ORDER,
+     * package-private.
+     */
+    public static final int WEB_FILTER_CHAIN_FILTER_ORDER = -100;
+
     private static final String REALM_ACCESS = "realm_access";
     private static final String ROLES = "roles";
     private static final String ROLE = "ROLE_";
 
     @Bean
-    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         RouteAuthorizationManager routeAuthorizationManager,
+                                                         ReactiveJwtDecoder jwtDecoder,
+                                                         JwtCacheProperties jwtCacheProperties,
+                                                         MeterRegistry meterRegistry) {
         http
                 .cors(cors -> {})
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
@@ -44,65 +61,48 @@ public class SecurityConfig {
                         // Auth endpoints (require authentication)
                         .pathMatchers(HttpMethod.POST, "/auth/logout").authenticated()
                         .pathMatchers(HttpMethod.GET, "/auth/user-info").authenticated()
+
+                        // Batch endpoint - each sub-request is authorized again against its own route
+                        .pathMatchers(HttpMethod.POST, "/gateway/batch").authenticated()
                         
-                        // All service routes - just pass through with token relay
-                        .pathMatchers("/api/**").permitAll()
-                        
-//                        // Customer service endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/customers").hasAnyRole("ADMIN", "MAKER")
-//                        .pathMatchers(HttpMethod.GET, "/api/customers/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/customers/**").hasAnyRole("ADMIN", "MAKER", "CHECKER")
-//                        .pathMatchers(HttpMethod.DELETE, "/api/customers/**").hasRole("ADMIN")
-//
-//                        // Loan service endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/loans").hasAnyRole("ADMIN", "MAKER")
-//                        .pathMatchers(HttpMethod.GET, "/api/loans/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/loans/**").hasAnyRole("ADMIN", "MAKER", "CHECKER")
-//                        .pathMatchers(HttpMethod.DELETE, "/api/loans/**").hasRole("ADMIN")
-//
-//                        // Identity documents endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/identity-documents").hasAnyRole("ADMIN", "MAKER")
-//                        .pathMatchers(HttpMethod.GET, "/api/identity-documents/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/identity-documents/**").hasAnyRole("ADMIN", "MAKER", "CHECKER")
-//                        .pathMatchers(HttpMethod.DELETE, "/api/identity-documents/**").hasRole("ADMIN")
-//
-//                        // Collaterals endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/collaterals").hasAnyRole("ADMIN", "MAKER")
-//                        .pathMatchers(HttpMethod.GET, "/api/collaterals/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/collaterals/**").hasAnyRole("ADMIN", "MAKER", "CHECKER")
-//                        .pathMatchers(HttpMethod.DELETE, "/api/collaterals/**").hasRole("ADMIN")
-//
-//                        // Tasks endpoints
-//                        .pathMatchers(HttpMethod.GET, "/tasks/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.POST, "/tasks/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/tasks/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//
-//                        // Document service endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/documents").hasAnyRole("ADMIN", "MAKER")
-//                        .pathMatchers(HttpMethod.GET, "/api/documents/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/documents/**").hasAnyRole("ADMIN", "MAKER", "CHECKER")
-//                        .pathMatchers(HttpMethod.DELETE, "/api/documents/**").hasRole("ADMIN")
-//
-//                        // Disbursement endpoints (now handled by loan service)
-//                        .pathMatchers(HttpMethod.POST, "/api/disbursements").hasAnyRole("ADMIN", "APPROVER")
-//                        .pathMatchers(HttpMethod.GET, "/api/disbursements/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.PUT, "/api/disbursements/**").hasAnyRole("ADMIN", "APPROVER")
-//
-//                        // Notification service endpoints
-//                        .pathMatchers(HttpMethod.POST, "/api/notifications").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//                        .pathMatchers(HttpMethod.GET, "/api/notifications/**").hasAnyRole("ADMIN", "MAKER", "CHECKER", "APPROVER")
-//
+                        // Service routes - requires_auth and roles from route_config
+                        .pathMatchers("/api/**").access(routeAuthorizationManager)
+
                         // All other requests require authentication
                         .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt
-                                .jwtAuthenticationConverter(jwtAuthenticationConverter())
+                                .authenticationManager(jwtAuthenticationManager(jwtDecoder, jwtCacheProperties, meterRegistry))
                         )
                 );
         return http.build();
     }
 
+    private ReactiveAuthenticationManager jwtAuthenticationManager(ReactiveJwtDecoder jwtDecoder,
+                                                                   JwtCacheProperties jwtCacheProperties,
+                                                                   MeterRegistry meterRegistry) {
+        JwtReactiveAuthenticationManager authenticationManager = new JwtReactiveAuthenticationManager(jwtDecoder);
+        authenticationManager.setJwtAuthenticationConverter(jwtAuthenticationConverter());
+        if (!jwtCacheProperties.isEnabled()) {
+            return authenticationManager;
+        }
+        return new CachingJwtAuthenticationManager(authenticationManager, jwtCacheProperties.getMaxSize(), meterRegistry);
+    }
+
+    /**
+     * Verifies tokens against the prefetched JWK set instead of fetching it on the request path.
+     */
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(JwkSetCache jwkSetCache, OAuth2ResourceServerProperties resourceServerProperties) {
+        NimbusReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSetCache::select).build();
+        String issuerUri = resourceServerProperties.getJwt().getIssuerUri();
+        if (StringUtils.hasText(issuerUri)) {
+            jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        }
+        return jwtDecoder;
+    }
+
     @Bean
     public ReactiveJwtAuthenticationConverter jwtAuthenticationConverter() {
         ReactiveJwtAuthenticationConverter jwtAuthenticationConverter = new ReactiveJwtAuthenticationConverter();
@@ -118,9 +118,8 @@ public class SecurityConfig {
                 return Flux.empty();
             }
             
-            return Flux.fromIterable(roles.stream()
-                    .map(role -> new SimpleGrantedAuthority(ROLE + role))
-                    .collect(Collectors.toList()));
+            return Flux.fromIterable(roles)
+                    .map(role -> new SimpleGrantedAuthority(ROLE + role));
         });
         
         return jwtAuthenticationConverter;
@@ -0,0 +1,20 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Streaming routes. Routes opt in through the streaming_* columns of route_config.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.streaming")
+@Getter
+@Setter
+public class StreamingProperties {
+    private boolean enabled = true;
+    // Request body limit of streaming routes without a streaming_max_size
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+}
@@ -0,0 +1,28 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Defaults for the per-service upstream connection pools. Each value can be overridden
+ * per service through the pool_* columns of route_config.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.upstream-pool")
+@Getter
+@Setter
+public class UpstreamPoolProperties {
+    private int maxConnections = 500;
+    private int pendingAcquireMax = 1000;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration evictionInterval = Duration.ofSeconds(30);
+    private boolean keepAlive = true;
+    private boolean http2 = false;
+    // How long a replaced pool keeps serving in-flight requests before it is closed
+    private Duration disposeGracePeriod = Duration.ofSeconds(30);
+}
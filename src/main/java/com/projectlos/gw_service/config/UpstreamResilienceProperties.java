@@ -0,0 +1,34 @@
+package com.projectlos.gw_service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Defaults for the retry and circuit breaker policies enabled per route through the
+ * retry_*, hedge_delay_ms and circuit_breaker_enabled columns of route_config.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.upstream-resilience")
+@Getter
+@Setter
+public class UpstreamResilienceProperties {
+    private Duration retryBackoff = Duration.ofMillis(50);
+    private Duration maxRetryBackoff = Duration.ofSeconds(1);
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+        private float slowCallRateThreshold = 100;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 5;
+    }
+}
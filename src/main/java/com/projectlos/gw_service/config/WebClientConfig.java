@@ -1,5 +1,7 @@
 package com.projectlos.gw_service.config;
 
+import com.projectlos.gw_service.client.ServiceHttpClientRegistry;
+import com.projectlos.gw_service.client.ServiceRoutingClientHttpConnector;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -7,7 +9,9 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClient webClient(WebClient.Builder builder, ServiceHttpClientRegistry serviceHttpClientRegistry) {
+        return builder
+                .clientConnector(new ServiceRoutingClientHttpConnector(serviceHttpClientRegistry))
+                .build();
     }
 }
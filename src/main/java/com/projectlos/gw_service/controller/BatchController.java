@@ -0,0 +1,63 @@
+package com.projectlos.gw_service.controller;
+
+import com.projectlos.gw_service.batch.BatchDispatcher;
+import com.projectlos.gw_service.config.BatchProperties;
+import com.projectlos.gw_service.model.request.BatchRequest;
+import com.projectlos.gw_service.model.request.BatchRequest.SubRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fans a list of sub-requests out to the gateway routes and streams the responses back as
+ * one JSON array, or as newline-delimited JSON when the client accepts it.
+ */
+@RestController
+@RequestMapping("/gateway")
+@ConditionalOnProperty(prefix = "gateway.batch", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class BatchController {
+
+    private final BatchDispatcher batchDispatcher;
+    private final BatchProperties batchProperties;
+
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<?>> batch(@RequestBody BatchRequest request, ServerWebExchange exchange) {
+        String invalid = validate(request.getRequests());
+        if (invalid != null) {
+            log.debug("Rejected batch: {}", invalid);
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", invalid)));
+        }
+        return Mono.just(ResponseEntity.ok().body(batchDispatcher.dispatch(request.getRequests(), exchange)));
+    }
+
+    private String validate(List<SubRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return "requests must not be empty";
+        }
+        if (requests.size() > batchProperties.getMaxRequests()) {
+            return "A batch holds at most " + batchProperties.getMaxRequests() + " requests";
+        }
+        Set<String> ids = new HashSet<>();
+        for (SubRequest subRequest : requests) {
+            if (subRequest == null || subRequest.getId() == null || !ids.add(subRequest.getId())) {
+                return "Every request needs a unique id";
+            }
+        }
+        return null;
+    }
+}
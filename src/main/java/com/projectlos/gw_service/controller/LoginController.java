@@ -1,25 +1,36 @@
 package com.projectlos.gw_service.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.client.KeycloakTokenClient;
+import com.projectlos.gw_service.client.LoginRateLimitedException;
+import com.projectlos.gw_service.client.TokenResponseRelay;
 import com.projectlos.gw_service.config.KeycloakProperties;
 import com.projectlos.gw_service.model.request.LoginRequest;
 import com.projectlos.gw_service.model.request.RefreshTokenRequest;
+import com.projectlos.gw_service.model.response.KeycloakTokenResponse;
 import com.projectlos.gw_service.model.response.LoginResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/auth")
@@ -27,73 +38,57 @@ import java.util.List;
 @Slf4j
 public class LoginController {
 
-    private static final String USERNAME = "username";
-    private static final String PASSWORD = "password";
-    private static final String GRANT_TYPE = "grant_type";
-    private static final String CLIENT_ID = "client_id";
-    private static final String CLIENT_SECRET = "client_secret";
-    private static final String REFRESH_TOKEN = "refresh_token";
-
-    private final WebClient webClient;
+    private final KeycloakTokenClient keycloakTokenClient;
     private final KeycloakProperties keycloakProperties;
     private final ObjectMapper objectMapper;
 
     @PostMapping("/login")
-    public Mono<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest request) {
+    public Mono<ResponseEntity<?>> login(@RequestBody LoginRequest request, ServerWebExchange exchange) {
         log.info("Login attempt for user: {}", request.getUsername());
-        
-        return webClient.post()
-                .uri(keycloakProperties.getTokenUri())
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-                .body(BodyInserters.fromFormData(USERNAME, request.getUsername())
-                        .with(PASSWORD, request.getPassword())
-                        .with(GRANT_TYPE, "password")
-                        .with(CLIENT_ID, keycloakProperties.getClientId())
-                        .with(CLIENT_SECRET, keycloakProperties.getClientSecret()))
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(this::parseLoginResponse)
-                .map(loginResponse -> {
-                    loginResponse.setUsername(request.getUsername());
-                    loginResponse.setLoginTime(LocalDateTime.now());
-                    loginResponse.setMessage("Login successful");
-                    return ResponseEntity.ok().body(loginResponse);
-                })
-                .onErrorResume(throwable -> {
-                    log.error("Login failed for user: {}", request.getUsername(), throwable);
-                    LoginResponse errorResponse = LoginResponse.builder()
-                            .message("Login failed: " + throwable.getMessage())
-                            .build();
-                    return Mono.just(ResponseEntity.badRequest().body(errorResponse));
-                });
+
+        Mono<ResponseEntity<?>> response;
+        if (keycloakProperties.isPassThrough()) {
+            GatewayFields fields = new GatewayFields(request.getUsername(), LocalDateTime.now(), "Login successful");
+            response = keycloakTokenClient.passwordGrantBody(request.getUsername(), request.getPassword())
+                    .flatMap(body -> relay(body, fields, exchange));
+        } else {
+            response = keycloakTokenClient.passwordGrant(request.getUsername(), request.getPassword())
+                    .map(token -> {
+                        LoginResponse loginResponse = toLoginResponse(token);
+                        loginResponse.setUsername(request.getUsername());
+                        loginResponse.setLoginTime(LocalDateTime.now());
+                        loginResponse.setMessage("Login successful");
+                        return ResponseEntity.ok().body(loginResponse);
+                    });
+        }
+        return response.onErrorResume(throwable -> {
+            log.error("Login failed for user: {}", request.getUsername(), throwable);
+            return Mono.just(errorResponse("Login failed: ", throwable));
+        });
     }
 
     @PostMapping("/refresh")
-    public Mono<ResponseEntity<LoginResponse>> refreshToken(@RequestBody RefreshTokenRequest request) {
+    public Mono<ResponseEntity<?>> refreshToken(@RequestBody RefreshTokenRequest request, ServerWebExchange exchange) {
         log.info("Token refresh attempt");
-        
-        return webClient.post()
-                .uri(keycloakProperties.getTokenUri())
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-                .body(BodyInserters.fromFormData(GRANT_TYPE, "refresh_token")
-                        .with(REFRESH_TOKEN, request.getRefreshToken())
-                        .with(CLIENT_ID, keycloakProperties.getClientId())
-                        .with(CLIENT_SECRET, keycloakProperties.getClientSecret()))
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(this::parseLoginResponse)
-                .map(loginResponse -> {
-                    loginResponse.setLoginTime(LocalDateTime.now());
-                    loginResponse.setMessage("Token refreshed successfully");
-                    return ResponseEntity.ok().body(loginResponse);
-                })
-                .onErrorResume(throwable -> {
-                    log.error("Token refresh failed", throwable);
-                    LoginResponse errorResponse = LoginResponse.builder()
-                            .message("Token refresh failed: " + throwable.getMessage())
-                            .build();
-                    return Mono.just(ResponseEntity.badRequest().body(errorResponse));
-                });
+
+        Mono<ResponseEntity<?>> response;
+        if (keycloakProperties.isPassThrough()) {
+            GatewayFields fields = new GatewayFields(null, LocalDateTime.now(), "Token refreshed successfully");
+            response = keycloakTokenClient.refreshGrantBody(request.getRefreshToken())
+                    .flatMap(body -> relay(Flux.just(exchange.getResponse().bufferFactory().wrap(body)), fields, exchange));
+        } else {
+            response = keycloakTokenClient.refreshGrant(request.getRefreshToken())
+                    .map(token -> {
+                        LoginResponse loginResponse = toLoginResponse(token);
+                        loginResponse.setLoginTime(LocalDateTime.now());
+                        loginResponse.setMessage("Token refreshed successfully");
+                        return ResponseEntity.ok().body(loginResponse);
+                    });
+        }
+        return response.onErrorResume(throwable -> {
+            log.error("Token refresh failed", throwable);
+            return Mono.just(errorResponse("Token refresh failed: ", throwable));
+        });
     }
 
     @PostMapping("/logout")
@@ -125,20 +120,55 @@ public class LoginController {
         return Mono.just(ResponseEntity.badRequest().body("{\"error\": \"User not authenticated\"}"));
     }
 
-    private LoginResponse parseLoginResponse(String jsonResponse) {
+    private ResponseEntity<LoginResponse> errorResponse(String message, Throwable throwable) {
+        LoginResponse errorResponse = LoginResponse.builder()
+                .message(message + throwable.getMessage())
+                .build();
+        if (throwable instanceof LoginRateLimitedException rateLimited) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(rateLimited.getRetryAfter().toSeconds()))
+                    .body(errorResponse);
+        }
+        if (throwable instanceof CallNotPermittedException
+                || throwable instanceof TimeoutException
+                || throwable instanceof WebClientRequestException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+        }
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    private LoginResponse toLoginResponse(KeycloakTokenResponse token) {
+        return LoginResponse.builder()
+                .accessToken(token.accessToken())
+                .tokenType(token.tokenType())
+                .refreshToken(token.refreshToken())
+                .expiresIn(token.expiresIn())
+                .scope(token.scope())
+                .build();
+    }
+
+    /**
+     * Writes the relayed token response straight to the exchange; the returned Mono completes
+     * empty so no ResponseEntity is rendered on top of it.
+     */
+    private Mono<ResponseEntity<?>> relay(Flux<DataBuffer> body, GatewayFields fields, ServerWebExchange exchange) {
+        byte[] gatewayFields;
         try {
-            JsonNode jsonNode = objectMapper.readTree(jsonResponse);
-            
-            return LoginResponse.builder()
-                    .accessToken(jsonNode.get("access_token").asText())
-                    .tokenType(jsonNode.get("token_type").asText())
-                    .refreshToken(jsonNode.get("refresh_token").asText())
-                    .expiresIn(jsonNode.get("expires_in").asLong())
-                    .scope(jsonNode.get("scope").asText())
-                    .build();
-        } catch (Exception e) {
-            log.error("Failed to parse login response", e);
-            throw new RuntimeException("Failed to parse login response", e);
+            gatewayFields = objectMapper.writeValueAsBytes(fields);
+        } catch (JsonProcessingException e) {
+            return Mono.error(new IllegalStateException("Failed to serialize gateway fields", e));
         }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(TokenResponseRelay.relay(body, gatewayFields, response.bufferFactory()))
+                .then(Mono.empty());
+    }
+
+    /**
+     * Fields the gateway adds to a relayed token response in pass-through mode.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record GatewayFields(String username, LocalDateTime loginTime, String message) {
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,8 @@ package com.projectlos.gw_service.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "route_config")
 @Data
@@ -20,8 +22,8 @@ public class RouteConfig {
     @Column(name = "path_pattern", length = 255)
     private String pathPattern;
     
-    @Column(name = "uri", length = 255)
-    private String uri;
+    @Column(name = "uri", length = 1024)
+    private String uri; // One URL, or comma-separated instances of the service to load balance over
     
     @Column(name = "service_name", length = 100)
     private String serviceName;
@@ -37,5 +39,124 @@ public class RouteConfig {
     
     @Column(name = "priority", nullable = false)
     private Integer priority = 0;
+
+    // Upstream connection pool for the route's service; null falls back to gateway.upstream-pool defaults
+    @Column(name = "pool_max_connections")
+    private Integer poolMaxConnections;
+
+    @Column(name = "pool_pending_acquire_max")
+    private Integer poolPendingAcquireMax;
+
+    @Column(name = "pool_max_idle_time_ms")
+    private Long poolMaxIdleTimeMs;
+
+    @Column(name = "pool_keep_alive")
+    private Boolean poolKeepAlive;
+
+    @Column(name = "pool_http2")
+    private Boolean poolHttp2;
+
+    // Gateway response cache for GET requests; null or 0 TTL disables caching for the route
+    @Column(name = "cache_ttl_seconds")
+    private Integer cacheTtlSeconds;
+
+    @Column(name = "cache_vary_headers", length = 255)
+    private String cacheVaryHeaders; // Comma-separated request headers added to the cache key
+
+    @Column(name = "cache_vary_roles")
+    private Boolean cacheVaryRoles;
+
+    // Token bucket per rate_limit_key (PRINCIPAL, IP or ROUTE); null replenish rate disables limiting
+    @Column(name = "rate_limit_replenish_rate")
+    private Integer rateLimitReplenishRate; // Requests per second
+
+    @Column(name = "rate_limit_burst_capacity")
+    private Integer rateLimitBurstCapacity;
+
+    @Column(name = "rate_limit_key", length = 20)
+    private String rateLimitKey;
+
+    // Upstream resilience; retries and hedges only apply to idempotent requests without a body
+    @Column(name = "retry_attempts")
+    private Integer retryAttempts; // Retries after the first attempt
+
+    @Column(name = "retry_backoff_ms")
+    private Long retryBackoffMs;
+
+    @Column(name = "hedge_delay_ms")
+    private Long hedgeDelayMs; // GETs only; usually the service's p95 from gateway.route.latency
+
+    @Column(name = "circuit_breaker_enabled")
+    private Boolean circuitBreakerEnabled; // One breaker per service_name
+
+    // Edge compression; null sizes and content types fall back to gateway.compression defaults
+    @Column(name = "compression_enabled")
+    private Boolean compressionEnabled; // Encode responses with the client's preferred coding
+
+    @Column(name = "compression_min_size")
+    private Integer compressionMinSize; // Bytes; responses with a smaller Content-Length go out as is
+
+    @Column(name = "compression_content_types", length = 500)
+    private String compressionContentTypes; // Comma-separated media types, wildcards allowed
+
+    @Column(name = "request_decompression_enabled")
+    private Boolean requestDecompressionEnabled; // Decode encoded request bodies before forwarding
+
+    @Column(name = "request_decompression_max_size")
+    private Long requestDecompressionMaxSize; // Bytes after decoding; larger bodies are rejected with 413
+
+    // Large bodies such as document scans; bypasses the response cache and compression, which read the body
+    @Column(name = "streaming_enabled")
+    private Boolean streamingEnabled;
+
+    @Column(name = "streaming_max_size")
+    private Long streamingMaxSize; // Bytes per request body; null falls back to gateway.streaming.max-size
+
+    // Single-flight: identical concurrent GETs share one upstream call
+    @Column(name = "coalesce_enabled")
+    private Boolean coalesceEnabled;
+
+    @Column(name = "coalesce_scope", length = 20)
+    private String coalesceScope; // USER (default), ROLES or GLOBAL: which callers may share a response
+
+    // Predicates and rewrites, compiled once per route by CompiledRouteFilter; null means none
+    @Column(name = "methods", length = 100)
+    private String methods; // Comma-separated HTTP methods the route accepts
+
+    @Column(name = "strip_prefix")
+    private Integer stripPrefix; // Leading path segments removed before forwarding
+
+    @Column(name = "rewrite_path_regex", length = 255)
+    private String rewritePathRegex; // Applied after strip_prefix
+
+    @Column(name = "rewrite_path_replacement", length = 255)
+    private String rewritePathReplacement; // May reference groups of rewrite_path_regex as $1 or ${name}
+
+    @Column(name = "add_request_headers", length = 1000)
+    private String addRequestHeaders; // One "Name: value" per line
+
+    @Column(name = "remove_request_headers", length = 500)
+    private String removeRequestHeaders; // Comma-separated names, removed before the additions
+
+    @Column(name = "add_response_headers", length = 1000)
+    private String addResponseHeaders; // One "Name: value" per line
+
+    @Column(name = "remove_response_headers", length = 500)
+    private String removeResponseHeaders; // Comma-separated names, removed before the additions
+
+    @Column(name = "connect_timeout_ms")
+    private Integer connectTimeoutMs;
+
+    @Column(name = "response_timeout_ms")
+    private Long responseTimeoutMs; // Negative disables the gateway's response timeout for the route
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touchUpdatedAt() {
+        updatedAt = LocalDateTime.now();
+    }
 }
 
@@ -0,0 +1,84 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.accesslog.AccessLogRecord;
+import com.projectlos.gw_service.accesslog.AccessLogWriter;
+import com.projectlos.gw_service.metrics.RouteTiming;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+
+/**
+ * Appends one {@link AccessLogRecord} per routed request to the {@link AccessLogWriter},
+ * once the response is complete. Rate-limited and cached responses are logged too.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.access-log", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    // Inside RouteTimingFilter, whose timing marks end up in the entry
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    private static final String PREFERRED_USERNAME = "preferred_username";
+    private static final Long ANONYMOUS = 0L;
+
+    private final AccessLogWriter accessLogWriter;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        long startNanos = System.nanoTime();
+        return exchange.getPrincipal()
+                .map(AccessLogFilter::principalHash)
+                .defaultIfEmpty(ANONYMOUS)
+                .flatMap(principalHash -> chain.filter(exchange)
+                        .doFinally(signal -> append(exchange, route, startNanos, principalHash)));
+    }
+
+    private void append(ServerWebExchange exchange, Route route, long startNanos, long principalHash) {
+        long endNanos = System.nanoTime();
+        RouteTiming timing = exchange.getAttribute(RouteTiming.ATTRIBUTE);
+        long gatewayNanos = -1;
+        long upstreamNanos = -1;
+        if (timing != null) {
+            if (timing.routingNanos() != 0) {
+                gatewayNanos = timing.routingNanos() - timing.startNanos();
+            }
+            if (timing.requestSentNanos() != 0 && timing.firstByteNanos() != 0) {
+                upstreamNanos = timing.firstByteNanos() - timing.requestSentNanos();
+            }
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        accessLogWriter.append(System.currentTimeMillis(), endNanos - startNanos, gatewayNanos, upstreamNanos,
+                exchange.getRequest().getHeaders().getContentLength(),
+                exchange.getResponse().getHeaders().getContentLength(),
+                principalHash, status != null ? status.value() : 0,
+                exchange.getRequest().getMethod(), route.getId());
+    }
+
+    private static long principalHash(Principal principal) {
+        String name = principal instanceof JwtAuthenticationToken jwt
+                ? jwt.getToken().getClaimAsString(PREFERRED_USERNAME)
+                : principal.getName();
+        return name != null ? AccessLogRecord.principalHash(name) : ANONYMOUS;
+    }
+}
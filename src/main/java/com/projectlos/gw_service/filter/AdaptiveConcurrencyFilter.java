@@ -0,0 +1,83 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.concurrency.AdaptiveConcurrencyLimiters;
+import com.projectlos.gw_service.concurrency.AdaptiveLimiter;
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+import com.projectlos.gw_service.router.CompiledRouteFilter;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds the requests to each route_config service within the service's
+ * {@link AdaptiveLimiter}. Requests over the limit are answered 503 at once instead of
+ * queueing for a connection. The round trip is measured up to the upstream response
+ * headers; cached and coalesced responses never get here.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    // Ahead of the load balancer, so rejected requests never count against an instance
+    public static final int ORDER = CompiledRouteFilter.ORDER - 1;
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiters limiters;
+    private final AdaptiveConcurrencyProperties properties;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Object serviceName = route != null ? route.getMetadata().get(CustomRouteLocator.SERVICE_NAME_METADATA) : null;
+        if (serviceName == null) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveLimiter limiter = limiters.limiter(serviceName.toString());
+        if (!limiter.tryAcquire()) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return response.setComplete();
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long now = System.nanoTime();
+                    switch (signal) {
+                        case CANCEL -> limiter.release();
+                        case ON_COMPLETE -> limiter.complete(now - start,
+                                isOverloaded(exchange.getResponse().getStatusCode()), now);
+                        default -> limiter.complete(now - start, true, now);
+                    }
+                });
+    }
+
+    private static boolean isOverloaded(HttpStatusCode status) {
+        if (status == null) {
+            return false;
+        }
+        int code = status.value();
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+}
@@ -0,0 +1,47 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.batch.BatchDispatcher;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Removes {@link BatchDispatcher#CLIENT_ADDRESS_HEADER} from every inbound request, so it
+ * neither reaches an upstream nor names a client it was not sent for. When the header was
+ * set by this gateway's own {@link BatchDispatcher}, the client address it carries is kept
+ * as {@link BatchDispatcher#CLIENT_ADDRESS_ATTR} for the per-IP rate limits.
+ */
+@Component
+public class BatchClientAddressWebFilter implements WebFilter, Ordered {
+
+    private final BatchDispatcher batchDispatcher;
+
+    public BatchClientAddressWebFilter(BatchDispatcher batchDispatcher) {
+        this.batchDispatcher = batchDispatcher;
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of AuthRateLimitWebFilter and every other reader of the client address
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(BatchDispatcher.CLIENT_ADDRESS_HEADER);
+        if (header == null) {
+            return chain.filter(exchange);
+        }
+        String clientAddress = batchDispatcher.trustedClientAddress(header);
+        ServerWebExchange stripped = exchange.mutate()
+                .request(request -> request.headers(headers -> headers.remove(BatchDispatcher.CLIENT_ADDRESS_HEADER)))
+                .build();
+        if (clientAddress != null) {
+            stripped.getAttributes().put(BatchDispatcher.CLIENT_ADDRESS_ATTR, clientAddress);
+        }
+        return chain.filter(stripped);
+    }
+}
@@ -0,0 +1,356 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.coalescing.CoalescingScope;
+import com.projectlos.gw_service.coalescing.SharedResponse;
+import com.projectlos.gw_service.coalescing.SingleFlight;
+import com.projectlos.gw_service.config.CoalescingProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CompiledRouteFilter;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collapses identical concurrent GET requests of routes with {@code coalesce_enabled} into
+ * one upstream call. The first request of a key goes upstream and streams its response as
+ * usual; requests arriving while it is in flight wait and get a copy of the same response.
+ * <p>
+ * Requests are identical when they share the route, raw path and query, the content
+ * negotiation and conditional headers, and the caller's {@link CoalescingScope}. Range
+ * requests are never coalesced. Responses with {@code Set-Cookie}, larger than
+ * {@code gateway.coalescing.max-response-size}, or {@code private} on a route wider than
+ * {@code USER} are not shared, and neither are failed upstream calls: the waiting requests then call
+ * the upstream themselves.
+ * <p>
+ * Runs inside {@link ResponseCacheFilter}, so only cache misses and revalidations coalesce,
+ * and the cache and {@link CompressionFilter} still treat every waiting request on its own.
+ */
+@Component
+@Slf4j
+public class CoalescingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final String PREFERRED_USERNAME = "preferred_username";
+    private static final List<String> KEY_HEADERS = List.of(
+            HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE,
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+    private static final List<String> UNSHARED_HEADERS = List.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.CONTENT_LENGTH);
+
+    private final SingleFlight<String, SharedResponse> flights = new SingleFlight<>();
+    private final CustomRouteLocator customRouteLocator;
+    private final CoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Policies policies;
+
+    public CoalescingFilter(CustomRouteLocator customRouteLocator,
+                            CoalescingProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.policies = Policies.compile(RouteTable.EMPTY, null, meterRegistry);
+
+        Gauge.builder("gateway.coalescing.inflight", flights, SingleFlight::size)
+                .description("Upstream GETs currently shared by coalesced requests")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET
+                || request.getHeaders().containsKey(HttpHeaders.RANGE)) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCoalescing coalescing = route != null ? currentPolicies().byRoute().get(route.getId()) : null;
+        if (coalescing == null) {
+            return chain.filter(exchange);
+        }
+
+        return flightKey(exchange, route.getId(), coalescing.scope()).flatMap(key -> {
+            SingleFlight.Call<SharedResponse> call = flights.join(key);
+            if (call.isLeader()) {
+                coalescing.leaders().increment();
+                LeadingResponse response = new LeadingResponse(exchange, call, coalescing.scope());
+                return chain.filter(exchange.mutate().response(response).build())
+                        .doFinally(signal -> call.abandon());
+            }
+            return call.result().singleOptional().flatMap(shared -> {
+                if (shared.isEmpty()) {
+                    coalescing.fallbacks().increment();
+                    return chain.filter(exchange);
+                }
+                coalescing.coalesced().increment();
+                return writeShared(exchange.getResponse(), shared.get());
+            });
+        });
+    }
+
+    private Mono<String> flightKey(ServerWebExchange exchange, String routeId, CoalescingScope scope) {
+        ServerHttpRequest request = exchange.getRequest();
+        StringBuilder key = new StringBuilder(128)
+                .append(routeId).append('\n')
+                .append(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+        for (String header : KEY_HEADERS) {
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append('\n').append(header).append('=').append(String.join(",", values));
+            }
+        }
+        return exchange.getPrincipal()
+                .map(principal -> switch (scope) {
+                    case USER -> "user=" + (principal instanceof JwtAuthenticationToken jwt
+                            && jwt.getToken().hasClaim(PREFERRED_USERNAME)
+                            ? jwt.getToken().getClaimAsString(PREFERRED_USERNAME)
+                            : principal.getName());
+                    case ROLES -> "roles=" + (principal instanceof Authentication authentication
+                            ? String.join(",", authentication.getAuthorities().stream()
+                                    .map(GrantedAuthority::getAuthority).sorted().toList())
+                            : "");
+                    case GLOBAL -> "global";
+                })
+                .defaultIfEmpty(scope == CoalescingScope.GLOBAL ? "global" : "anonymous")
+                .map(caller -> key.append('\n').append(caller).toString());
+    }
+
+    private static Mono<Void> writeShared(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+
+    private Policies currentPolicies() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policies current = policies;
+        if (current.routeTable() != routeTable) {
+            current = Policies.compile(routeTable, current, meterRegistry);
+            policies = current;
+        }
+        return current;
+    }
+
+    /**
+     * Streams the leading request's response to its client while copying it for the
+     * requests waiting on the same call.
+     */
+    private class LeadingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final SingleFlight.Call<SharedResponse> call;
+        private final CoalescingScope scope;
+
+        LeadingResponse(ServerWebExchange exchange, SingleFlight.Call<SharedResponse> call, CoalescingScope scope) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.call = call;
+            this.scope = scope;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (status == null || !shareable(getHeaders())) {
+                call.abandon();
+                return super.writeWith(body);
+            }
+            HttpHeaders sharedHeaders = sharedHeaders(getHeaders());
+            int maxSize = (int) Math.min(Integer.MAX_VALUE, properties.getMaxResponseSize().toBytes());
+            ByteArrayOutputStream[] captured = {new ByteArrayOutputStream(1024)};
+            Flux<? extends DataBuffer> teed = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        ByteArrayOutputStream out = captured[0];
+                        if (out == null) {
+                            return;
+                        }
+                        if (out.size() + buffer.readableByteCount() > maxSize) {
+                            captured[0] = null;
+                            call.abandon();
+                            return;
+                        }
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            while (iterator.hasNext()) {
+                                ByteBuffer byteBuffer = iterator.next();
+                                byte[] bytes = new byte[byteBuffer.remaining()];
+                                byteBuffer.get(bytes);
+                                out.write(bytes, 0, bytes.length);
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (captured[0] != null) {
+                            call.complete(new SharedResponse(status, sharedHeaders, captured[0].toByteArray()));
+                        }
+                    });
+            return super.writeWith(teed);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Event streams and other flushed responses are never complete enough to share
+            call.abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        private boolean shareable(HttpHeaders headers) {
+            if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            return scope == CoalescingScope.USER || cacheControl == null
+                    || !cacheControl.toLowerCase(Locale.ROOT).contains("private");
+        }
+
+        /**
+         * What the upstream sent plus the headers the route adds to every response; CORS and
+         * other headers the gateway added belong to the leading request alone.
+         */
+        private HttpHeaders sharedHeaders(HttpHeaders headers) {
+            Set<String> upstreamHeaderNames = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES);
+            Set<String> routeHeaderNames = exchange.getAttributeOrDefault(
+                    CompiledRouteFilter.ADDED_RESPONSE_HEADERS_ATTR, Set.of());
+            HttpHeaders shared = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                boolean upstream = upstreamHeaderNames == null || upstreamHeaderNames.contains(name);
+                if ((upstream || routeHeaderNames.contains(name))
+                        && UNSHARED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    shared.put(name, List.copyOf(values));
+                }
+            });
+            return HttpHeaders.readOnlyHttpHeaders(shared);
+        }
+    }
+
+    record RouteCoalescing(CoalescingScope scope, Counter leaders, Counter coalesced, Counter fallbacks,
+                           Gauge collapseRatio) {
+
+        List<Meter> meters() {
+            return List.of(leaders, coalesced, fallbacks, collapseRatio);
+        }
+    }
+
+    /**
+     * Coalescing settings of the coalescing routes of one {@link RouteTable} snapshot.
+     */
+    record Policies(RouteTable routeTable, Map<String, RouteCoalescing> byRoute) {
+
+        /**
+         * @param previous policies of the prior snapshot, whose meters are kept for the routes
+         *                 still coalescing and removed for the others; null when there are none
+         */
+        static Policies compile(RouteTable routeTable, Policies previous, MeterRegistry meterRegistry) {
+            Map<String, RouteCoalescing> previousByRoute = previous != null ? previous.byRoute() : Map.of();
+            Map<String, RouteCoalescing> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                // Streaming routes are never buffered, see StreamingFilter
+                if (!Boolean.TRUE.equals(rc.getCoalesceEnabled()) || Boolean.TRUE.equals(rc.getStreamingEnabled())) {
+                    continue;
+                }
+                CoalescingScope scope = parseScope(rc);
+                if (scope == null) {
+                    continue;
+                }
+                String routeId = rc.getRouteId();
+                RouteCoalescing existing = previousByRoute.get(routeId);
+                byRoute.put(routeId, existing != null
+                        ? new RouteCoalescing(scope, existing.leaders(), existing.coalesced(), existing.fallbacks(),
+                                existing.collapseRatio())
+                        : register(routeId, scope, meterRegistry));
+            }
+            previousByRoute.forEach((routeId, stale) -> {
+                if (!byRoute.containsKey(routeId)) {
+                    stale.meters().forEach(meterRegistry::remove);
+                }
+            });
+            return new Policies(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+
+        private static RouteCoalescing register(String routeId, CoalescingScope scope, MeterRegistry meterRegistry) {
+            Counter leaders = counter(meterRegistry, routeId, "leader");
+            Counter coalesced = counter(meterRegistry, routeId, "coalesced");
+            Counter fallbacks = counter(meterRegistry, routeId, "fallback");
+            Gauge collapseRatio = Gauge.builder("gateway.coalescing.collapse.ratio",
+                            () -> collapseRatio(leaders.count(), coalesced.count(), fallbacks.count()))
+                    .description("Share of a route's coalescable GETs answered without an upstream call of their own")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            return new RouteCoalescing(scope, leaders, coalesced, fallbacks, collapseRatio);
+        }
+
+        private static double collapseRatio(double leaders, double coalesced, double fallbacks) {
+            double total = leaders + coalesced + fallbacks;
+            return total == 0 ? 0 : coalesced / total;
+        }
+
+        /**
+         * @return the route's scope, USER when unset, or null when the value is unknown and
+         * the route must not coalesce
+         */
+        private static CoalescingScope parseScope(RouteConfig rc) {
+            if (rc.getCoalesceScope() == null || rc.getCoalesceScope().isBlank()) {
+                return CoalescingScope.USER;
+            }
+            try {
+                return CoalescingScope.valueOf(rc.getCoalesceScope().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.error("Unknown coalesce_scope '{}' on route {}, not coalescing it",
+                        rc.getCoalesceScope(), rc.getRouteId());
+                return null;
+            }
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String routeId, String result) {
+            return Counter.builder("gateway.coalescing.requests")
+                    .description("GET requests of coalescing routes by how they were answered")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
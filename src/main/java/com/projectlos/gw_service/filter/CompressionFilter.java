@@ -0,0 +1,315 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.compression.ContentCoding;
+import com.projectlos.gw_service.compression.StreamingCompression;
+import com.projectlos.gw_service.config.CompressionProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.compression.DecompressionException;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compresses upstream responses and decompresses client request bodies for routes that opt
+ * in through route_config, streaming buffer by buffer through {@link StreamingCompression}.
+ * <p>
+ * A response is encoded with the client's preferred coding among {@code encodings} when its
+ * content type is allowed, it is not encoded already, it is at least
+ * {@code compression_min_size} long (or of unknown length) and the upstream did not send
+ * {@code Cache-Control: no-transform}. Its ETag, if strong, is weakened. Runs before
+ * {@link ResponseCacheFilter}, so the cache keeps identity bodies and cache hits are
+ * encoded per client as well.
+ * <p>
+ * A request body with a single decodable Content-Encoding and an allowed content type is
+ * decoded before forwarding; beyond {@code request_decompression_max_size} decoded bytes the
+ * request fails with 413, and malformed bodies with 400.
+ */
+@Component
+@Slf4j
+public class CompressionFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ResponseCacheFilter.ORDER - 1;
+
+    private final CustomRouteLocator customRouteLocator;
+    private final CompressionProperties properties;
+    private final List<ContentCoding> offered;
+    private final Map<ContentCoding, Counter[]> responseBytes = new EnumMap<>(ContentCoding.class);
+    private final Map<ContentCoding, Counter[]> requestBytes = new EnumMap<>(ContentCoding.class);
+
+    private volatile Policies policies = new Policies(RouteTable.EMPTY, Map.of());
+
+    public CompressionFilter(CustomRouteLocator customRouteLocator,
+                             CompressionProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+
+        List<ContentCoding> codings = new ArrayList<>();
+        for (String encoding : properties.getEncodings()) {
+            ContentCoding coding = ContentCoding.fromToken(encoding);
+            if (coding == null || !coding.canEncode()) {
+                log.warn("Response coding '{}' is unknown or its codec is not on the classpath, not offering it", encoding);
+            } else {
+                codings.add(coding);
+            }
+        }
+        this.offered = List.copyOf(codings);
+
+        for (ContentCoding coding : ContentCoding.values()) {
+            responseBytes.put(coding, bytesCounters(meterRegistry, "response", coding));
+            requestBytes.put(coding, bytesCounters(meterRegistry, "request", coding));
+        }
+    }
+
+    /**
+     * @return counters of the identity and the encoded bytes of one coding and direction
+     */
+    private static Counter[] bytesCounters(MeterRegistry meterRegistry, String direction, ContentCoding coding) {
+        Counter[] counters = new Counter[2];
+        String[] forms = {"identity", "encoded"};
+        for (int i = 0; i < forms.length; i++) {
+            counters[i] = Counter.builder("gateway.compression.bytes")
+                    .description("Body bytes run through a content coding at the gateway, before and after")
+                    .baseUnit("bytes")
+                    .tag("direction", direction)
+                    .tag("coding", coding.token())
+                    .tag("form", forms[i])
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCompressionPolicy policy = route != null ? currentPolicies().byRoute().get(route.getId()) : null;
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        ServerWebExchange filtered = exchange;
+        if (policy.decompressRequests()) {
+            ServerHttpRequest decoded = decodedRequest(exchange, policy);
+            if (decoded != null) {
+                filtered = filtered.mutate().request(decoded).build();
+            }
+        }
+        if (policy.compressResponses()) {
+            ContentCoding coding = ContentCoding.negotiate(
+                    exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT_ENCODING), offered);
+            filtered = filtered.mutate().response(new CompressingResponse(filtered.getResponse(), coding, policy)).build();
+        }
+        return chain.filter(filtered);
+    }
+
+    /**
+     * @return the request with its body decoded, or null to forward it as it is
+     */
+    private ServerHttpRequest decodedRequest(ServerWebExchange exchange, RouteCompressionPolicy policy) {
+        ServerHttpRequest request = exchange.getRequest();
+        List<String> contentEncoding = request.getHeaders().get(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null || contentEncoding.size() != 1 || contentEncoding.get(0).indexOf(',') >= 0) {
+            return null;
+        }
+        ContentCoding coding = ContentCoding.fromToken(contentEncoding.get(0));
+        if (coding == null || !coding.canDecode() || !policy.allows(request.getHeaders().getContentType())) {
+            return null;
+        }
+
+        Counter[] counters = requestBytes.get(coding);
+        Flux<DataBuffer> body = StreamingCompression.decode(
+                        request.getBody().doOnNext(buffer -> counters[1].increment(buffer.readableByteCount())),
+                        coding::newDecoder, exchange.getResponse().bufferFactory(), policy.maxDecompressedSize())
+                .doOnNext(buffer -> counters[0].increment(buffer.readableByteCount()))
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage(), e))
+                .onErrorMap(DecompressionException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed " + coding.token() + " request body", e));
+
+        ServerHttpRequest mutated = request.mutate().headers(headers -> {
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            // Keeps the request recognisable as one with a body, e.g. to the retry logic
+            headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        }).build();
+        return new ServerHttpRequestDecorator(mutated) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return body;
+            }
+        };
+    }
+
+    private Policies currentPolicies() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policies current = policies;
+        if (current.routeTable() != routeTable) {
+            current = Policies.compile(routeTable, properties);
+            policies = current;
+        }
+        return current;
+    }
+
+    /**
+     * Encodes the body on its way to the client when the response qualifies.
+     */
+    private class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final ContentCoding coding;
+        private final RouteCompressionPolicy policy;
+
+        /**
+         * @param coding negotiated coding, or null when the client accepts none of the offered ones
+         */
+        CompressingResponse(ServerHttpResponse delegate, ContentCoding coding, RouteCompressionPolicy policy) {
+            super(delegate);
+            this.coding = coding;
+            this.policy = policy;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!compressible()) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = getHeaders();
+            if (headers.getVary().stream().noneMatch(HttpHeaders.ACCEPT_ENCODING::equalsIgnoreCase)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (coding == null) {
+                return super.writeWith(body);
+            }
+
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, coding.token());
+            // The encoded bytes differ from the upstream's, so its ETag can only match weakly
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+            int level = coding == ContentCoding.ZSTD ? properties.getZstdLevel() : properties.getGzipLevel();
+            Counter[] counters = responseBytes.get(coding);
+            Flux<DataBuffer> encoded = StreamingCompression.encode(
+                            Flux.from(body).doOnNext(buffer -> counters[0].increment(buffer.readableByteCount())),
+                            () -> coding.newEncoder(level), bufferFactory())
+                    .doOnNext(buffer -> counters[1].increment(buffer.readableByteCount()));
+            return super.writeWith(encoded);
+        }
+
+        private boolean compressible() {
+            HttpStatusCode status = getStatusCode();
+            if (status != null && (status.is1xxInformational() || status == HttpStatus.NO_CONTENT
+                    || status == HttpStatus.NOT_MODIFIED || status == HttpStatus.PARTIAL_CONTENT)) {
+                return false;
+            }
+            HttpHeaders headers = getHeaders();
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_RANGE)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-transform")) {
+                return false;
+            }
+            long contentLength = headers.getContentLength();
+            return (contentLength < 0 || contentLength >= policy.minResponseSize())
+                    && policy.allows(headers.getContentType());
+        }
+    }
+
+    /**
+     * @param contentTypes media types, possibly with wildcards, eligible in both directions
+     */
+    record RouteCompressionPolicy(boolean compressResponses, long minResponseSize, List<MediaType> contentTypes,
+                                  boolean decompressRequests, long maxDecompressedSize) {
+
+        boolean allows(MediaType contentType) {
+            if (contentType == null) {
+                return false;
+            }
+            for (MediaType allowed : contentTypes) {
+                if (allowed.includes(contentType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Compression policies of the routes of one {@link RouteTable} snapshot that enable
+     * compression in either direction.
+     */
+    record Policies(RouteTable routeTable, Map<String, RouteCompressionPolicy> byRoute) {
+
+        static Policies compile(RouteTable routeTable, CompressionProperties properties) {
+            List<MediaType> defaultContentTypes = MediaType.parseMediaTypes(properties.getContentTypes());
+            Map<String, RouteCompressionPolicy> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                boolean compressResponses = Boolean.TRUE.equals(rc.getCompressionEnabled());
+                boolean decompressRequests = Boolean.TRUE.equals(rc.getRequestDecompressionEnabled());
+                // Streaming routes are passed through untouched, see StreamingFilter
+                if (!compressResponses && !decompressRequests || Boolean.TRUE.equals(rc.getStreamingEnabled())) {
+                    continue;
+                }
+                List<MediaType> contentTypes = defaultContentTypes;
+                if (rc.getCompressionContentTypes() != null && !rc.getCompressionContentTypes().isBlank()) {
+                    try {
+                        contentTypes = MediaType.parseMediaTypes(rc.getCompressionContentTypes());
+                    } catch (InvalidMediaTypeException e) {
+                        log.warn("Invalid compression_content_types '{}' on route {}, using the defaults",
+                                rc.getCompressionContentTypes(), rc.getRouteId());
+                    }
+                }
+                byRoute.put(rc.getRouteId(), new RouteCompressionPolicy(
+                        compressResponses,
+                        rc.getCompressionMinSize() != null
+                                ? rc.getCompressionMinSize() : properties.getMinResponseSize().toBytes(),
+                        contentTypes,
+                        decompressRequests,
+                        rc.getRequestDecompressionMaxSize() != null
+                                ? rc.getRequestDecompressionMaxSize() : properties.getMaxDecompressedRequestSize().toBytes()));
+            }
+            return new Policies(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.config.LoadBalancerProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstance;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstanceRegistry;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstances;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads the requests of routes with several upstream instances over those instances,
+ * by power of two choices: of two random instances in rotation, the one with the lower
+ * latency EWMA times requests in flight wins. Instances that fail
+ * {@code consecutive-failures} requests in a row are ejected for a while; when no
+ * instance is in rotation, all of them are used again rather than failing the request.
+ * <p>
+ * The choice is kept on the exchange as a {@link Selection}, through which the routing
+ * filter moves a retried request to another instance.
+ */
+@Component
+public class LoadBalancerFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+    public static final String SELECTION_ATTR = LoadBalancerFilter.class.getName() + ".selection";
+
+    private final CustomRouteLocator customRouteLocator;
+    private final UpstreamInstanceRegistry instanceRegistry;
+    private final LoadBalancerProperties properties;
+
+    private volatile Balancers balancers = new Balancers(RouteTable.EMPTY, Map.of());
+
+    public LoadBalancerFilter(CustomRouteLocator customRouteLocator,
+                              UpstreamInstanceRegistry instanceRegistry,
+                              LoadBalancerProperties properties) {
+        this.customRouteLocator = customRouteLocator;
+        this.instanceRegistry = instanceRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        UpstreamInstance[] pool = route != null ? currentBalancers().byRoute().get(route.getId()) : null;
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (pool == null || requestUrl == null) {
+            return chain.filter(exchange);
+        }
+
+        Selection selection = new Selection(pool, System.nanoTime());
+        exchange.getAttributes().put(SELECTION_ATTR, selection);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, selection.url(requestUrl));
+        return chain.filter(exchange)
+                .doFinally(signal -> selection.finish(signal, exchange.getResponse().getStatusCode()));
+    }
+
+    private void failed(UpstreamInstance instance, UpstreamInstance[] pool, long latencyNanos, long nowNanos) {
+        if (instance.requestFailed(latencyNanos, nowNanos, properties.getEjection().getConsecutiveFailures())) {
+            instanceRegistry.eject(instance, pool, nowNanos);
+        }
+    }
+
+    private static URI withInstance(URI requestUrl, UpstreamInstance instance) {
+        return UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(instance.uri().getScheme())
+                .host(instance.uri().getHost())
+                .port(instance.uri().getPort())
+                .build(true)
+                .toUri();
+    }
+
+    private Balancers currentBalancers() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Balancers current = balancers;
+        if (current.routeTable() != routeTable) {
+            current = Balancers.compile(routeTable, instanceRegistry);
+            balancers = current;
+        }
+        return current;
+    }
+
+    /**
+     * The instance one request is on. Each instance it was sent to is accounted for once:
+     * a retry counts as a failure of the instance it leaves, and of a hedge race the loser
+     * counts as cancelled.
+     */
+    public final class Selection {
+
+        private final UpstreamInstance[] pool;
+        private UpstreamInstance instance;
+        private long start;
+        private UpstreamInstance hedged;
+        private long hedgeStart;
+
+        private Selection(UpstreamInstance[] pool, long nowNanos) {
+            this.pool = pool;
+            this.instance = UpstreamInstances.choose(pool, nowNanos);
+            this.start = nowNanos;
+            instance.requestStarted();
+        }
+
+        public synchronized UpstreamInstance instance() {
+            return instance;
+        }
+
+        synchronized URI url(URI requestUrl) {
+            return withInstance(requestUrl, instance);
+        }
+
+        /**
+         * Gives up on the current instance and returns {@code requestUrl} pointed at another.
+         */
+        public synchronized URI retry(URI requestUrl) {
+            long now = System.nanoTime();
+            cancelHedge();
+            failed(instance, pool, now - start, now);
+            instance = UpstreamInstances.chooseOther(pool, instance, now);
+            start = now;
+            instance.requestStarted();
+            return withInstance(requestUrl, instance);
+        }
+
+        /**
+         * Returns {@code requestUrl} pointed at another instance for a hedge of the current
+         * attempt, which stays on its instance.
+         */
+        public synchronized URI hedge(URI requestUrl) {
+            long now = System.nanoTime();
+            cancelHedge();
+            hedged = UpstreamInstances.chooseOther(pool, instance, now);
+            hedgeStart = now;
+            hedged.requestStarted();
+            return withInstance(requestUrl, hedged);
+        }
+
+        /**
+         * The hedge answered first: the request moves to its instance and the attempt it
+         * raced is cancelled.
+         */
+        public synchronized void hedgeWon() {
+            if (hedged == null) {
+                return;
+            }
+            instance.requestCancelled();
+            instance = hedged;
+            start = hedgeStart;
+            hedged = null;
+        }
+
+        private void cancelHedge() {
+            if (hedged != null) {
+                hedged.requestCancelled();
+                hedged = null;
+            }
+        }
+
+        synchronized void finish(SignalType signal, HttpStatusCode status) {
+            long now = System.nanoTime();
+            cancelHedge();
+            switch (signal) {
+                case CANCEL -> instance.requestCancelled();
+                case ON_COMPLETE -> {
+                    if (status != null && status.is5xxServerError()) {
+                        failed(instance, pool, now - start, now);
+                    } else {
+                        instance.requestSucceeded(now - start, now);
+                    }
+                }
+                default -> failed(instance, pool, now - start, now);
+            }
+        }
+    }
+
+    /**
+     * Instance pools of the load-balanced routes of one {@link RouteTable} snapshot.
+     */
+    record Balancers(RouteTable routeTable, Map<String, UpstreamInstance[]> byRoute) {
+
+        static Balancers compile(RouteTable routeTable, UpstreamInstanceRegistry instanceRegistry) {
+            Map<String, UpstreamInstance[]> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                List<URI> uris = UpstreamInstances.parse(rc.getUri());
+                if (uris.size() > 1) {
+                    byRoute.put(rc.getRouteId(), uris.stream().map(instanceRegistry::instance).toArray(UpstreamInstance[]::new));
+                }
+            }
+            return new Balancers(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+    }
+}
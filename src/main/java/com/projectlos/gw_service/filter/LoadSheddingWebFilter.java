@@ -0,0 +1,181 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.config.LoadSheddingProperties;
+import com.projectlos.gw_service.config.SecurityConfig;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import com.projectlos.gw_service.router.RouteTrie;
+import com.projectlos.gw_service.shedding.EventLoopLagProbe;
+import com.projectlos.gw_service.shedding.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Admits requests by priority while the gateway itself is saturated.
+ * <p>
+ * As long as the {@link EventLoopLagProbe} reports no lag and the in-flight count is
+ * below its cap, every request passes without being classified. Under pressure each
+ * request gets a {@link RequestPriority}: {@code /auth} requests are AUTH, requests of a
+ * user holding one of the {@code priority-roles} or to a route with a route_config
+ * priority of at least {@code high-priority-min} are HIGH, routes at or below
+ * {@code low-priority-max} are LOW and everything else NORMAL. The probe's shed level
+ * decides how many classes, lowest first, are answered 503. The last
+ * {@code auth-reserved-share} of {@code max-in-flight} is kept for AUTH requests, so
+ * token refreshes still get through when everything else is turned away.
+ */
+@Component
+public class LoadSheddingWebFilter implements WebFilter, Ordered {
+
+    /**
+     * Right after Spring Security's WebFilterChainProxy. Priority roles come from the
+     * authenticated principal, which only exists once the security chain has run; running
+     * earlier would classify every request as anonymous and shed priority users with the rest.
+     */
+    public static final int ORDER = SecurityConfig.WEB_FILTER_CHAIN_FILTER_ORDER + 10;
+
+    private static final String AUTH_PATH = "/auth/";
+    private static final String ROLE = "ROLE_";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final CustomRouteLocator customRouteLocator;
+    private final EventLoopLagProbe lagProbe;
+    private final LoadSheddingProperties properties;
+    private final Set<String> priorityAuthorities;
+    private final int sharedInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<RequestPriority, Counter> shedCounters = new EnumMap<>(RequestPriority.class);
+
+    private volatile Priorities priorities;
+
+    public LoadSheddingWebFilter(CustomRouteLocator customRouteLocator, EventLoopLagProbe lagProbe,
+                                 LoadSheddingProperties properties, MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.lagProbe = lagProbe;
+        this.properties = properties;
+        this.priorityAuthorities = properties.getPriorityRoles().stream()
+                .map(role -> role.startsWith(ROLE) ? role : ROLE + role)
+                .collect(Collectors.toUnmodifiableSet());
+        this.sharedInFlight = (int) (properties.getMaxInFlight() * (1 - properties.getAuthReservedShare()));
+        this.priorities = Priorities.compile(RouteTable.EMPTY, properties.getHighPriorityMin(), properties.getLowPriorityMax());
+
+        for (RequestPriority priority : RequestPriority.values()) {
+            shedCounters.put(priority, Counter.builder("gateway.shedding.shed")
+                    .description("Requests answered 503 to protect higher-priority traffic")
+                    .tag("class", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("gateway.shedding.inflight", inFlight, AtomicInteger::get)
+                .description("Requests in flight through the gateway edge")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        if (exchange.getRequest().getPath().value().startsWith(AUTH_PATH)) {
+            return inFlight.get() < properties.getMaxInFlight()
+                    ? admit(exchange, chain)
+                    : shed(exchange, RequestPriority.AUTH);
+        }
+        int level = lagProbe.shedLevel();
+        if (level == 0 && inFlight.get() < sharedInFlight) {
+            return admit(exchange, chain);
+        }
+        return classify(exchange)
+                .flatMap(priority -> priority.ordinal() < level || inFlight.get() >= sharedInFlight
+                        ? shed(exchange, priority)
+                        : admit(exchange, chain));
+    }
+
+    private Mono<RequestPriority> classify(ServerWebExchange exchange) {
+        RouteTrie.Entry entry = customRouteLocator.resolve(exchange);
+        RequestPriority routePriority = entry != null
+                ? currentPriorities().byRoute().getOrDefault(entry.routeId(), RequestPriority.NORMAL)
+                : RequestPriority.NORMAL;
+        if (routePriority == RequestPriority.HIGH || priorityAuthorities.isEmpty()) {
+            return Mono.just(routePriority);
+        }
+        return exchange.getPrincipal()
+                .map(principal -> principal instanceof Authentication authentication && hasPriorityRole(authentication)
+                        ? RequestPriority.HIGH : routePriority)
+                .defaultIfEmpty(routePriority);
+    }
+
+    private boolean hasPriorityRole(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (priorityAuthorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> admit(ServerWebExchange exchange, WebFilterChain chain) {
+        inFlight.incrementAndGet();
+        return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange, RequestPriority priority) {
+        shedCounters.get(priority).increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return response.setComplete();
+    }
+
+    private Priorities currentPriorities() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Priorities current = priorities;
+        if (current.routeTable() != routeTable) {
+            current = Priorities.compile(routeTable, properties.getHighPriorityMin(), properties.getLowPriorityMax());
+            priorities = current;
+        }
+        return current;
+    }
+
+    /**
+     * The priority class of every route of one {@link RouteTable} snapshot.
+     */
+    record Priorities(RouteTable routeTable, Map<String, RequestPriority> byRoute) {
+
+        static Priorities compile(RouteTable routeTable, int highPriorityMin, int lowPriorityMax) {
+            Map<String, RequestPriority> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                int priority = rc.getPriority() != null ? rc.getPriority() : 0;
+                byRoute.put(rc.getRouteId(), priority >= highPriorityMin ? RequestPriority.HIGH
+                        : priority <= lowPriorityMax ? RequestPriority.LOW
+                        : RequestPriority.NORMAL);
+            }
+            return new Priorities(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+    }
+}
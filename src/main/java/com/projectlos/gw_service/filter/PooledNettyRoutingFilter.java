@@ -0,0 +1,407 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.client.ResiliencePolicy;
+import com.projectlos.gw_service.client.ServiceHttpClientRegistry;
+import com.projectlos.gw_service.client.UpstreamResilience;
+import com.projectlos.gw_service.client.UpstreamResponse;
+import com.projectlos.gw_service.metrics.RouteTiming;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+
+/**
+ * {@link NettyRoutingFilter} that forwards each route through the connection pool of its
+ * route_config service instead of the single shared gateway pool.
+ * <p>
+ * Routes with a {@link ResiliencePolicy} go through the base filter once per attempt:
+ * retries, hedged GETs and the service's circuit breaker all act on the upstream response
+ * headers, before anything is written to the client. Only idempotent requests without a
+ * body are retried or hedged; retries and hedges of a load-balanced route go to another
+ * instance.
+ * An open breaker fails fast with a 503.
+ */
+public class PooledNettyRoutingFilter extends NettyRoutingFilter {
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.TRACE);
+    private static final String NO_SERVICE = "none";
+
+    private final ServiceHttpClientRegistry serviceHttpClientRegistry;
+    private final UpstreamResilience upstreamResilience;
+    private final Map<String, ConnectTimeoutClient> connectTimeoutClients = new ConcurrentHashMap<>();
+
+    public PooledNettyRoutingFilter(HttpClient httpClient,
+                                    ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                    HttpClientProperties properties,
+                                    ServiceHttpClientRegistry serviceHttpClientRegistry,
+                                    UpstreamResilience upstreamResilience) {
+        super(RouteTiming.instrument(httpClient), headersFiltersProvider, properties);
+        this.serviceHttpClientRegistry = serviceHttpClientRegistry;
+        this.upstreamResilience = upstreamResilience;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RouteTiming timing = exchange.getAttribute(RouteTiming.ATTRIBUTE);
+        if (timing != null) {
+            timing.markRouting();
+        }
+
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route != null && route.getMetadata().get(CustomRouteLocator.RESILIENCE_METADATA) instanceof ResiliencePolicy policy) {
+            return filterResilient(exchange, chain, route, policy);
+        }
+        return super.filter(exchange, chain);
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        Object serviceName = route.getMetadata().get(CustomRouteLocator.SERVICE_NAME_METADATA);
+        HttpClient serviceClient = serviceHttpClientRegistry.getHttpClient((String) serviceName);
+        if (serviceClient == null) {
+            return super.getHttpClient(route, exchange);
+        }
+
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout == null) {
+            return serviceClient;
+        }
+        // Configuring the option copies the client, so the copy is kept per route
+        int connectTimeoutMillis = connectTimeout instanceof Number number
+                ? number.intValue() : Integer.parseInt(connectTimeout.toString());
+        ConnectTimeoutClient cached = connectTimeoutClients.get(route.getId());
+        if (cached == null || cached.serviceClient() != serviceClient || cached.connectTimeoutMillis() != connectTimeoutMillis) {
+            cached = new ConnectTimeoutClient(serviceClient, connectTimeoutMillis,
+                    serviceClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis));
+            connectTimeoutClients.put(route.getId(), cached);
+        }
+        return cached.client();
+    }
+
+    /**
+     * Forwards through the base filter once per attempt, each attempt on its own copy of the
+     * exchange, and hands the accepted attempt's upstream response to the real exchange.
+     * The breaker sees the logical request once, whatever retries and hedges it took.
+     */
+    private Mono<Void> filterResilient(ServerWebExchange exchange, GatewayFilterChain chain,
+                                       Route route, ResiliencePolicy policy) {
+        URI requestUrl = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+        String scheme = requestUrl.getScheme();
+        if (isAlreadyRouted(exchange) || (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme))) {
+            return chain.filter(exchange);
+        }
+
+        // A request body can be sent once only, so such requests get a single attempt
+        ServerHttpRequest request = exchange.getRequest();
+        boolean replayable = IDEMPOTENT_METHODS.contains(request.getMethod()) && !hasBody(request);
+        Mono<Attempt> attempt = send(exchange, replayable, Dispatch.FIRST);
+
+        Object serviceName = route.getMetadata().get(CustomRouteLocator.SERVICE_NAME_METADATA);
+        UpstreamResilience.ServiceCounters counters = upstreamResilience.counters(
+                serviceName != null ? serviceName.toString() : NO_SERVICE);
+        boolean hedging = replayable && policy.hedgeDelay() != null && request.getMethod() == HttpMethod.GET;
+        Mono<Attempt> hedge = send(exchange, true, Dispatch.HEDGE);
+        if (hedging) {
+            attempt = hedged(exchange, attempt, hedge, policy.hedgeDelay(), counters);
+        }
+        if (replayable && policy.retries() > 0) {
+            Mono<Attempt> retry = send(exchange, true, Dispatch.RETRY);
+            if (hedging) {
+                retry = hedged(exchange, retry, hedge, policy.hedgeDelay(), counters);
+            }
+            attempt = withRetries(attempt, retry, policy, counters, 0);
+        }
+        if (policy.circuitBreaker() != null) {
+            attempt = guarded(attempt, upstreamResilience.circuitBreaker(policy.circuitBreaker()));
+        }
+
+        return attempt
+                .flatMap(accepted -> {
+                    accepted.applyTo(exchange);
+                    return chain.filter(exchange);
+                })
+                .onErrorResume(CallNotPermittedException.class, e -> serviceUnavailable(exchange));
+    }
+
+    /**
+     * One upstream attempt through {@link NettyRoutingFilter#filter}. Retries and hedges
+     * first move the request to another instance when the route is load balanced.
+     */
+    private Mono<Attempt> send(ServerWebExchange exchange, boolean replayable, Dispatch dispatch) {
+        return Mono.defer(() -> {
+            URI requestUrl = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+            if (exchange.getAttribute(LoadBalancerFilter.SELECTION_ATTR) instanceof LoadBalancerFilter.Selection selection) {
+                requestUrl = switch (dispatch) {
+                    case FIRST -> requestUrl;
+                    case RETRY -> selection.retry(requestUrl);
+                    case HEDGE -> selection.hedge(requestUrl);
+                };
+            }
+            Attempt attempt = new Attempt(exchange, requestUrl, replayable);
+            return super.filter(attempt, routed -> Mono.empty())
+                    .doOnCancel(attempt::discard)
+                    .thenReturn(attempt);
+        });
+    }
+
+    /**
+     * Sends {@code hedge} when {@code attempt} has not answered within {@code delay}; the
+     * first response wins and the other attempt is cancelled. An arm that fails leaves the
+     * race to the other one, so the request only fails when both did.
+     */
+    private Mono<Attempt> hedged(ServerWebExchange exchange, Mono<Attempt> attempt, Mono<Attempt> hedge,
+                                 Duration delay, UpstreamResilience.ServiceCounters counters) {
+        return Mono.defer(() -> {
+            AtomicBoolean hedgeSent = new AtomicBoolean();
+            AtomicBoolean decided = new AtomicBoolean();
+            Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            Mono<Attempt> primary = attempt
+                    .flatMap(response -> {
+                        if (!decided.compareAndSet(false, true)) {
+                            response.discard();
+                            return Mono.empty();
+                        }
+                        if (hedgeSent.get()) {
+                            counters.primaryWins().increment();
+                        }
+                        return Mono.just(response);
+                    })
+                    .onErrorResume(e -> {
+                        failures.add(e);
+                        return Mono.empty();
+                    });
+            Mono<Attempt> second = Mono.delay(delay)
+                    .doOnNext(tick -> hedgeSent.set(true))
+                    .then(hedge)
+                    .flatMap(response -> {
+                        if (!decided.compareAndSet(false, true)) {
+                            response.discard();
+                            return Mono.empty();
+                        }
+                        counters.hedgeWins().increment();
+                        if (exchange.getAttribute(LoadBalancerFilter.SELECTION_ATTR) instanceof LoadBalancerFilter.Selection selection) {
+                            selection.hedgeWon();
+                        }
+                        return Mono.just(response);
+                    })
+                    .onErrorResume(e -> {
+                        failures.add(e);
+                        return Mono.empty();
+                    });
+            return Flux.merge(primary, second).next()
+                    .switchIfEmpty(Mono.defer(() -> {
+                        // Both arms failed; the first failure decides whether a retry follows
+                        Throwable first = failures.poll();
+                        if (first == null) {
+                            return Mono.empty();
+                        }
+                        failures.stream().filter(other -> other != first).forEach(first::addSuppressed);
+                        return Mono.error(first);
+                    }));
+        });
+    }
+
+    /**
+     * Retries failed attempts and 5xx responses with jittered exponential backoff. The
+     * last attempt's response is returned as is, whatever its status.
+     */
+    private Mono<Attempt> withRetries(Mono<Attempt> attempt, Mono<Attempt> retry, ResiliencePolicy policy,
+                                      UpstreamResilience.ServiceCounters counters, int retries) {
+        if (retries >= policy.retries()) {
+            return attempt;
+        }
+        Mono<Attempt> next = Mono.delay(upstreamResilience.backoff(policy.retryBackoff(), retries))
+                .doOnNext(tick -> counters.retries().increment())
+                .then(Mono.defer(() -> withRetries(retry, retry, policy, counters, retries + 1)));
+        return attempt
+                .map(response -> {
+                    if (response.upstream().status() >= 500) {
+                        response.discard();
+                        return next;
+                    }
+                    return Mono.just(response);
+                })
+                .onErrorResume(upstreamResilience::isRetryable, e -> Mono.just(next))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * Asks the breaker once for the whole logical request and records its final outcome:
+     * the accepted response, or the error left after retries.
+     */
+    private static Mono<Attempt> guarded(Mono<Attempt> attempt, CircuitBreaker circuitBreaker) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            long start = circuitBreaker.getCurrentTimestamp();
+            return attempt
+                    .doOnSuccess(accepted -> {
+                        if (accepted == null) {
+                            circuitBreaker.releasePermission();
+                        } else {
+                            circuitBreaker.onResult(circuitBreaker.getCurrentTimestamp() - start,
+                                    circuitBreaker.getTimestampUnit(), accepted.upstream());
+                        }
+                    })
+                    .doOnError(e -> circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+                            circuitBreaker.getTimestampUnit(), e))
+                    .doOnCancel(circuitBreaker::releasePermission);
+        });
+    }
+
+    private Mono<Void> serviceUnavailable(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(upstreamResilience.openStateWait().toSeconds()));
+        return response.setComplete();
+    }
+
+    private enum Dispatch {
+        FIRST, RETRY, HEDGE
+    }
+
+    private static boolean hasBody(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * The exchange as one attempt sees it: its own attributes, and response status and
+     * headers kept aside until the attempt is accepted. Replayed requests are sent without
+     * reading the inbound body, which can be subscribed to once only.
+     */
+    private static final class Attempt extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes;
+        private final ServerHttpRequest request;
+        private final AttemptResponse response;
+
+        Attempt(ServerWebExchange exchange, URI requestUrl, boolean replayable) {
+            super(exchange);
+            this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+            this.attributes.put(GATEWAY_REQUEST_URL_ATTR, requestUrl);
+            this.request = replayable
+                    ? new ServerHttpRequestDecorator(exchange.getRequest()) {
+                        @Override
+                        public Flux<DataBuffer> getBody() {
+                            return Flux.empty();
+                        }
+                    }
+                    : exchange.getRequest();
+            this.response = new AttemptResponse(exchange.getResponse());
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public ServerHttpRequest getRequest() {
+            return request;
+        }
+
+        @Override
+        public ServerHttpResponse getResponse() {
+            return response;
+        }
+
+        UpstreamResponse upstream() {
+            return new UpstreamResponse(getRequiredAttribute(CLIENT_RESPONSE_ATTR), getRequiredAttribute(CLIENT_RESPONSE_CONN_ATTR));
+        }
+
+        /**
+         * Drops an attempt that lost a hedge race or is about to be retried.
+         */
+        void discard() {
+            Connection connection = getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+
+        void applyTo(ServerWebExchange exchange) {
+            exchange.getAttributes().putAll(attributes);
+            ServerHttpResponse target = exchange.getResponse();
+            target.setStatusCode(HttpStatusCode.valueOf(upstream().status()));
+            target.getHeaders().clear();
+            target.getHeaders().putAll(response.getHeaders());
+        }
+    }
+
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode statusCode;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+            headers.putAll(delegate.getHeaders());
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.statusCode = status;
+            return true;
+        }
+
+        @Override
+        public boolean setRawStatusCode(Integer value) {
+            return setStatusCode(value != null ? HttpStatusCode.valueOf(value) : null);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    private record ConnectTimeoutClient(HttpClient serviceClient, int connectTimeoutMillis, HttpClient client) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.batch.BatchDispatcher;
+import com.projectlos.gw_service.config.RateLimitProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.ratelimit.RateLimitKey;
+import com.projectlos.gw_service.ratelimit.RateLimitRule;
+import com.projectlos.gw_service.ratelimit.RateLimitStore;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the rate limit of routes with a {@code rate_limit_replenish_rate}, counted per
+ * {@code rate_limit_key}. Requests over the limit get a 429 with {@code Retry-After} and
+ * never reach the upstream. Outcomes are counted per route as
+ * {@code gateway.ratelimit.requests{route, result}}.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    private static final String PREFERRED_USERNAME = "preferred_username";
+
+    private final RateLimitStore rateLimitStore;
+    private final CustomRouteLocator customRouteLocator;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Policies policies;
+
+    public RateLimitFilter(RateLimitStore rateLimitStore,
+                           CustomRouteLocator customRouteLocator,
+                           RateLimitProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.rateLimitStore = rateLimitStore;
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.policies = Policies.compile(RouteTable.EMPTY, meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteLimit limit = route != null ? currentPolicies().byRoute().get(route.getId()) : null;
+        if (limit == null) {
+            return chain.filter(exchange);
+        }
+
+        return bucketKey(exchange, route.getId(), limit.key())
+                .flatMap(key -> rateLimitStore.acquire(key, limit.rule()))
+                .flatMap(waitNanos -> {
+                    if (waitNanos == 0) {
+                        limit.allowed().increment();
+                        return chain.filter(exchange);
+                    }
+                    limit.rejected().increment();
+                    return tooManyRequests(exchange, waitNanos);
+                });
+    }
+
+    private Mono<String> bucketKey(ServerWebExchange exchange, String routeId, RateLimitKey key) {
+        return switch (key) {
+            case ROUTE -> Mono.just(routeId);
+            case IP -> Mono.just(routeId + ":ip:" + clientIp(exchange));
+            case PRINCIPAL -> exchange.getPrincipal()
+                    .map(principal -> routeId + ":user:" + (principal instanceof JwtAuthenticationToken jwt
+                            && jwt.getToken().hasClaim(PREFERRED_USERNAME)
+                            ? jwt.getToken().getClaimAsString(PREFERRED_USERNAME)
+                            : principal.getName()))
+                    .defaultIfEmpty(routeId + ":ip:" + clientIp(exchange));
+        };
+    }
+
+    public static String clientIp(ServerWebExchange exchange) {
+        // Batch sub-requests reach the gateway over loopback on behalf of the original client
+        String batchClient = exchange.getAttribute(BatchDispatcher.CLIENT_ADDRESS_ATTR);
+        if (batchClient != null) {
+            return batchClient;
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+
+    static Mono<Void> tooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private Policies currentPolicies() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policies current = policies;
+        if (current.routeTable() != routeTable) {
+            current = Policies.compile(routeTable, meterRegistry);
+            policies = current;
+        }
+        return current;
+    }
+
+    record RouteLimit(RateLimitRule rule, RateLimitKey key, Counter allowed, Counter rejected) {
+    }
+
+    /**
+     * Rate limits of the limited routes of one {@link RouteTable} snapshot.
+     */
+    record Policies(RouteTable routeTable, Map<String, RouteLimit> byRoute) {
+
+        static Policies compile(RouteTable routeTable, MeterRegistry meterRegistry) {
+            Map<String, RouteLimit> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                Integer replenishRate = rc.getRateLimitReplenishRate();
+                if (replenishRate == null || replenishRate <= 0) {
+                    continue;
+                }
+                int burstCapacity = rc.getRateLimitBurstCapacity() != null ? rc.getRateLimitBurstCapacity() : replenishRate;
+                RateLimitKey key = parseKey(rc);
+                byRoute.put(rc.getRouteId(), new RouteLimit(RateLimitRule.of(replenishRate, burstCapacity), key,
+                        counter(meterRegistry, rc.getRouteId(), "allowed"),
+                        counter(meterRegistry, rc.getRouteId(), "rejected")));
+            }
+            return new Policies(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+
+        private static RateLimitKey parseKey(RouteConfig rc) {
+            if (rc.getRateLimitKey() == null || rc.getRateLimitKey().isBlank()) {
+                return RateLimitKey.PRINCIPAL;
+            }
+            try {
+                return RateLimitKey.valueOf(rc.getRateLimitKey().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown rate_limit_key '{}' on route {}, limiting per principal",
+                        rc.getRateLimitKey(), rc.getRouteId());
+                return RateLimitKey.PRINCIPAL;
+            }
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String routeId, String result) {
+            return Counter.builder("gateway.ratelimit.requests")
+                    .description("Requests checked against a route rate limit")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.cache.CachedResponse;
+import com.projectlos.gw_service.cache.GatewayResponseCache;
+import com.projectlos.gw_service.config.ResponseCacheProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves GET requests of routes with a {@code cache_ttl_seconds} from the
+ * {@link GatewayResponseCache}.
+ * <p>
+ * The cache key is the route, raw path and query, plus the route's
+ * {@code cache_vary_headers} and, with {@code cache_vary_roles}, the caller's roles. Only
+ * complete 200 responses are stored, and only when the upstream allows it: no
+ * {@code no-store}, {@code no-cache} or {@code private}, no {@code Set-Cookie}, and a
+ * {@code Vary} naming only headers that are part of the key. As a shared cache
+ * (RFC 9111 section 3.5), responses to requests carrying {@code Authorization} are only stored
+ * when the upstream marks them {@code public} or gives an {@code s-maxage}. An upstream
+ * {@code s-maxage}, or else {@code max-age}, shorter than the route TTL wins. Expired
+ * entries with an {@code ETag} or {@code Last-Modified} are revalidated with a conditional
+ * request, and a 304 from the upstream renews them without transferring the body again.
+ * Clients sending a matching {@code If-None-Match} get a 304 from the cache.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = CoalescingFilter.ORDER - 1;
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final List<String> UNCACHED_HEADERS = List.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.DATE, HttpHeaders.AGE);
+
+    private final GatewayResponseCache responseCache;
+    private final CustomRouteLocator customRouteLocator;
+    private final ResponseCacheProperties properties;
+
+    private final Counter notModifiedCounter;
+    private final Counter modifiedCounter;
+
+    private volatile Policies policies = Policies.compile(RouteTable.EMPTY);
+
+    public ResponseCacheFilter(GatewayResponseCache responseCache,
+                               CustomRouteLocator customRouteLocator,
+                               ResponseCacheProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+
+        this.notModifiedCounter = Counter.builder("gateway.response.cache.revalidations")
+                .description("Conditional revalidations of expired cache entries")
+                .tag("result", "not_modified")
+                .register(meterRegistry);
+        this.modifiedCounter = Counter.builder("gateway.response.cache.revalidations")
+                .description("Conditional revalidations of expired cache entries")
+                .tag("result", "modified")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCachePolicy policy = route != null ? currentPolicies().byRoute().get(route.getId()) : null;
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        List<String> requestCacheControl = cacheControlDirectives(exchange.getRequest().getHeaders());
+        if (requestCacheControl.contains("no-store")) {
+            return chain.filter(exchange);
+        }
+        boolean noCache = requestCacheControl.contains("no-cache");
+
+        return cacheKey(exchange, route.getId(), policy).flatMap(key -> {
+            CachedResponse cached = responseCache.get(key);
+            long now = System.nanoTime();
+            if (cached != null && !noCache && cached.isFresh(now)) {
+                return writeCached(exchange.getResponse(), exchange.getRequest().getHeaders().getIfNoneMatch(),
+                        cached, "HIT", now);
+            }
+
+            // Read before the conditional request below, which rewrites the request headers in place
+            List<String> clientIfNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+            ServerWebExchange forwarded = exchange;
+            CachedResponse revalidating = null;
+            if (cached != null && cached.canRevalidate()) {
+                revalidating = cached;
+                forwarded = exchange.mutate().request(conditionalRequest(exchange.getRequest(), cached)).build();
+            }
+            boolean authorized = exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION);
+            CachingResponse response = new CachingResponse(exchange.getResponse(), clientIfNoneMatch, key, policy,
+                    authorized, revalidating);
+            return chain.filter(forwarded.mutate().response(response).build());
+        });
+    }
+
+    Mono<String> cacheKey(ServerWebExchange exchange, String routeId, RouteCachePolicy policy) {
+        ServerHttpRequest request = exchange.getRequest();
+        StringBuilder key = new StringBuilder(128)
+                .append(routeId).append('\n')
+                .append(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+        for (String header : policy.varyHeaders()) {
+            key.append('\n').append(header).append('=');
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        if (!policy.varyRoles()) {
+            return Mono.just(key.toString());
+        }
+        return exchange.getPrincipal()
+                .map(principal -> principal instanceof Authentication authentication
+                        ? authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().toList()
+                        : List.<String>of())
+                .defaultIfEmpty(List.of())
+                .map(roles -> key.append("\nroles=").append(String.join(",", roles)).toString());
+    }
+
+    private static ServerHttpRequest conditionalRequest(ServerHttpRequest request, CachedResponse cached) {
+        return request.mutate().headers(headers -> {
+            headers.remove(HttpHeaders.IF_NONE_MATCH);
+            headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+            if (cached.etag() != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, cached.etag());
+            } else {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+            }
+        }).build();
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, List<String> clientIfNoneMatch, CachedResponse cached,
+                                   String cacheStatus, long now) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(now)));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+
+        String etag = cached.etag();
+        if (etag != null && clientIfNoneMatch.contains(etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Policies currentPolicies() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policies current = policies;
+        if (current.routeTable() != routeTable) {
+            current = Policies.compile(routeTable);
+            policies = current;
+        }
+        return current;
+    }
+
+    private static List<String> cacheControlDirectives(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return List.of();
+        }
+        return Arrays.stream(cacheControl.toLowerCase(Locale.ROOT).split(","))
+                .map(String::trim)
+                .toList();
+    }
+
+    /**
+     * TTL for a response of a route, or 0 when the upstream forbids storing it.
+     *
+     * @param authorized whether the request carried {@code Authorization}
+     */
+    static long ttlNanos(HttpHeaders upstreamHeaders, RouteCachePolicy policy, boolean authorized) {
+        if (upstreamHeaders.containsKey(HttpHeaders.SET_COOKIE)) {
+            return 0;
+        }
+        for (String vary : upstreamHeaders.getVary()) {
+            if (Arrays.stream(policy.varyHeaders()).noneMatch(vary::equalsIgnoreCase)) {
+                // "*" or a header the key does not distinguish
+                return 0;
+            }
+        }
+        boolean shared = false;
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        try {
+            for (String directive : cacheControlDirectives(upstreamHeaders)) {
+                // Also covers the qualified forms, e.g. private="Set-Cookie"
+                if (directive.equals("no-store") || directive.startsWith("no-cache") || directive.startsWith("private")) {
+                    return 0;
+                }
+                if (directive.equals("public")) {
+                    shared = true;
+                } else if (directive.startsWith("max-age=")) {
+                    maxAge = Long.parseLong(directive.substring("max-age=".length()));
+                } else if (directive.startsWith("s-maxage=")) {
+                    sharedMaxAge = Long.parseLong(directive.substring("s-maxage=".length()));
+                    shared = true;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        if (authorized && !shared) {
+            return 0;
+        }
+        // s-maxage overrides max-age in a shared cache
+        Long upstreamTtl = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        long ttlSeconds = upstreamTtl != null ? Math.min(policy.ttlSeconds(), upstreamTtl) : policy.ttlSeconds();
+        return TimeUnit.SECONDS.toNanos(Math.max(ttlSeconds, 0));
+    }
+
+    /**
+     * Captures a cacheable response on its way to the client, or answers a successful
+     * revalidation from the cached entry.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final List<String> clientIfNoneMatch;
+        private final String key;
+        private final RouteCachePolicy policy;
+        private final boolean authorized;
+        private final CachedResponse revalidating;
+
+        CachingResponse(ServerHttpResponse delegate, List<String> clientIfNoneMatch, String key,
+                        RouteCachePolicy policy, boolean authorized, CachedResponse revalidating) {
+            super(delegate);
+            this.clientIfNoneMatch = clientIfNoneMatch;
+            this.key = key;
+            this.policy = policy;
+            this.authorized = authorized;
+            this.revalidating = revalidating;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long now = System.nanoTime();
+            if (revalidating != null && getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                notModifiedCounter.increment();
+                CachedResponse renewed = revalidating.revalidated(now, ttlNanos(getHeaders(), policy, authorized));
+                responseCache.put(key, renewed);
+                return Flux.from(body).doOnNext(DataBufferUtils::release)
+                        .then(writeCached(getDelegate(), clientIfNoneMatch, renewed, "REVALIDATED", now));
+            }
+            if (revalidating != null) {
+                modifiedCounter.increment();
+            }
+
+            long ttlNanos = getStatusCode() == HttpStatus.OK ? ttlNanos(getHeaders(), policy, authorized) : 0;
+            if (ttlNanos <= 0) {
+                return super.writeWith(body);
+            }
+
+            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            // Taken before writing, as outer decorators such as CompressionFilter rewrite the headers
+            HttpHeaders storedHeaders = storedHeaders(getHeaders());
+            int maxEntrySize = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+            ByteArrayOutputStream[] captured = {new ByteArrayOutputStream(1024)};
+            Flux<? extends DataBuffer> teed = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        ByteArrayOutputStream out = captured[0];
+                        if (out == null) {
+                            return;
+                        }
+                        if (out.size() + buffer.readableByteCount() > maxEntrySize) {
+                            captured[0] = null;
+                            return;
+                        }
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            while (iterator.hasNext()) {
+                                ByteBuffer byteBuffer = iterator.next();
+                                if (byteBuffer.hasArray()) {
+                                    out.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+                                            byteBuffer.remaining());
+                                } else {
+                                    byte[] bytes = new byte[byteBuffer.remaining()];
+                                    byteBuffer.get(bytes);
+                                    out.write(bytes, 0, bytes.length);
+                                }
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (captured[0] != null) {
+                            responseCache.put(key, new CachedResponse(getStatusCode(), storedHeaders,
+                                    captured[0].toByteArray(), now, ttlNanos));
+                        }
+                    });
+            return super.writeWith(teed);
+        }
+
+        private HttpHeaders storedHeaders(HttpHeaders upstreamHeaders) {
+            HttpHeaders headers = new HttpHeaders();
+            upstreamHeaders.forEach((name, values) -> {
+                if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase) && !name.equalsIgnoreCase(CACHE_STATUS_HEADER)) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            return HttpHeaders.readOnlyHttpHeaders(headers);
+        }
+    }
+
+    /**
+     * @param varyHeaders request headers added to the cache key, in route_config order
+     */
+    record RouteCachePolicy(long ttlSeconds, String[] varyHeaders, boolean varyRoles) {
+    }
+
+    /**
+     * Cache policies of the caching routes of one {@link RouteTable} snapshot.
+     */
+    record Policies(RouteTable routeTable, Map<String, RouteCachePolicy> byRoute) {
+
+        static Policies compile(RouteTable routeTable) {
+            Map<String, RouteCachePolicy> byRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                // Streaming routes are never buffered, see StreamingFilter
+                if (rc.getCacheTtlSeconds() == null || rc.getCacheTtlSeconds() <= 0
+                        || Boolean.TRUE.equals(rc.getStreamingEnabled())) {
+                    continue;
+                }
+                String[] varyHeaders = rc.getCacheVaryHeaders() == null ? new String[0]
+                        : Arrays.stream(rc.getCacheVaryHeaders().split(","))
+                                .map(String::trim)
+                                .filter(header -> !header.isEmpty())
+                                .toArray(String[]::new);
+                byRoute.put(rc.getRouteId(), new RouteCachePolicy(
+                        rc.getCacheTtlSeconds(), varyHeaders, Boolean.TRUE.equals(rc.getCacheVaryRoles())));
+            }
+            return new Policies(routeTable, Collections.unmodifiableMap(byRoute));
+        }
+    }
+}
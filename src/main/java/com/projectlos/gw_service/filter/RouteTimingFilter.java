@@ -0,0 +1,50 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.config.RouteTimingProperties;
+import com.projectlos.gw_service.metrics.RouteLatencyMetrics;
+import com.projectlos.gw_service.metrics.RouteTiming;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every routed request from the first global filter to the end of the response
+ * and records it in {@link RouteLatencyMetrics}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteTimingFilter implements GlobalFilter, Ordered {
+
+    private static final String NO_SERVICE = "none";
+
+    private final RouteLatencyMetrics routeLatencyMetrics;
+    private final RouteTimingProperties properties;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        RouteTiming timing = new RouteTiming(System.nanoTime());
+        exchange.getAttributes().put(RouteTiming.ATTRIBUTE, timing);
+        Object serviceName = route.getMetadata().get(CustomRouteLocator.SERVICE_NAME_METADATA);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(RouteTiming.class, timing))
+                .doFinally(signal -> routeLatencyMetrics.record(route.getId(),
+                        serviceName != null ? serviceName.toString() : NO_SERVICE, timing, System.nanoTime()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.config.StreamingProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import com.projectlos.gw_service.streaming.InFlightBytes;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Passes the bodies of routes with {@code streaming_enabled} through as pooled direct
+ * buffers, one buffer at a time under the backpressure of the receiving side, and counts
+ * them in {@link InFlightBytes} until Netty has written them out.
+ * <p>
+ * Request bodies are limited to {@code streaming_max_size}: a larger Content-Length is
+ * rejected with 413 before anything is forwarded, and a chunked body fails with 413 as soon
+ * as it grows past the limit. {@link ResponseCacheFilter} and {@link CompressionFilter}
+ * leave streaming routes alone, so nothing aggregates their bodies on the heap.
+ */
+@Component
+public class StreamingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = CompressionFilter.ORDER - 1;
+
+    private final CustomRouteLocator customRouteLocator;
+    private final InFlightBytes inFlightBytes;
+    private final StreamingProperties properties;
+
+    private volatile Policies policies = new Policies(RouteTable.EMPTY, Map.of());
+
+    public StreamingFilter(CustomRouteLocator customRouteLocator,
+                           InFlightBytes inFlightBytes,
+                           StreamingProperties properties) {
+        this.customRouteLocator = customRouteLocator;
+        this.inFlightBytes = inFlightBytes;
+        this.properties = properties;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Long maxSize = route != null ? currentPolicies().maxSizeByRoute().get(route.getId()) : null;
+        if (maxSize == null) {
+            return chain.filter(exchange);
+        }
+        if (exchange.getRequest().getHeaders().getContentLength() > maxSize) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+            return response.setComplete();
+        }
+
+        InFlightBytes.Transfer transfer = inFlightBytes.open();
+        ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return inFlightBytes.track(super.getBody(), transfer, maxSize)
+                        .onErrorMap(DataBufferLimitException.class,
+                                e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage(), e));
+            }
+        };
+        ServerHttpResponse response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(inFlightBytes.track(Flux.from(body), transfer, Long.MAX_VALUE));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(Flux.from(body)
+                        .map(part -> inFlightBytes.track(Flux.from(part), transfer, Long.MAX_VALUE)));
+            }
+        };
+        return chain.filter(exchange.mutate().request(request).response(response).build())
+                .doFinally(signal -> transfer.close());
+    }
+
+    private Policies currentPolicies() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policies current = policies;
+        if (current.routeTable() != routeTable) {
+            current = Policies.compile(routeTable, properties);
+            policies = current;
+        }
+        return current;
+    }
+
+    /**
+     * Request body limits of the streaming routes of one {@link RouteTable} snapshot.
+     */
+    record Policies(RouteTable routeTable, Map<String, Long> maxSizeByRoute) {
+
+        static Policies compile(RouteTable routeTable, StreamingProperties properties) {
+            Map<String, Long> maxSizeByRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                if (Boolean.TRUE.equals(rc.getStreamingEnabled())) {
+                    maxSizeByRoute.put(rc.getRouteId(), rc.getStreamingMaxSize() != null
+                            ? rc.getStreamingMaxSize() : properties.getMaxSize().toBytes());
+                }
+            }
+            return new Policies(routeTable, Collections.unmodifiableMap(maxSizeByRoute));
+        }
+    }
+}
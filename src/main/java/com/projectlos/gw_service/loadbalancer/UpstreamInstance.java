@@ -0,0 +1,121 @@
+package com.projectlos.gw_service.loadbalancer;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live state of one upstream instance, shared by every route that lists it: requests in
+ * flight, a peak-sensitive latency EWMA, passive ejection and the last health probe.
+ */
+public final class UpstreamInstance {
+
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final URI uri;
+    private final double decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    // Guarded by this
+    private double latencyEwmaNanos;
+    private long lastObservedNanos;
+    private int consecutiveFailures;
+    private int ejections;
+
+    private volatile long ejectedUntilNanos;
+    private volatile boolean healthy = true;
+
+    UpstreamInstance(URI uri, long decayNanos) {
+        this.uri = uri;
+        this.decayNanos = decayNanos;
+    }
+
+    public URI uri() {
+        return uri;
+    }
+
+    public boolean isAvailable(long nowNanos) {
+        return healthy && nowNanos - ejectedUntilNanos >= 0;
+    }
+
+    boolean isEjected(long nowNanos) {
+        return nowNanos - ejectedUntilNanos < 0;
+    }
+
+    /**
+     * Selection cost: expected latency scaled by the requests already waiting on the instance.
+     */
+    double cost() {
+        double latency;
+        synchronized (this) {
+            latency = latencyEwmaNanos;
+        }
+        return (latency + 1) * (outstanding.get() + 1);
+    }
+
+    public void requestStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    public void requestCancelled() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Records a completed request. Latency spikes are taken in full and decay slowly, so a
+     * degrading instance loses traffic at once.
+     */
+    public synchronized void requestSucceeded(long latencyNanos, long nowNanos) {
+        outstanding.decrementAndGet();
+        observe(latencyNanos, nowNanos);
+        consecutiveFailures = 0;
+        ejections = 0;
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @return whether the failure crossed {@code consecutiveFailureThreshold}, i.e. the instance should be ejected
+     */
+    public synchronized boolean requestFailed(long latencyNanos, long nowNanos, int consecutiveFailureThreshold) {
+        outstanding.decrementAndGet();
+        observe(latencyNanos, nowNanos);
+        return ++consecutiveFailures >= consecutiveFailureThreshold && !isEjected(nowNanos);
+    }
+
+    synchronized void eject(long baseEjectionNanos, long nowNanos) {
+        ejections = Math.min(ejections + 1, MAX_EJECTION_MULTIPLIER);
+        consecutiveFailures = 0;
+        ejectedUntilNanos = nowNanos + baseEjectionNanos * ejections;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    synchronized double latencyEwmaNanos() {
+        return latencyEwmaNanos;
+    }
+
+    private void observe(long latencyNanos, long nowNanos) {
+        if (latencyNanos > latencyEwmaNanos || lastObservedNanos == 0) {
+            latencyEwmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-Math.max(0, nowNanos - lastObservedNanos) / decayNanos);
+            latencyEwmaNanos = latencyEwmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastObservedNanos = nowNanos;
+    }
+
+    @Override
+    public String toString() {
+        return uri.toString();
+    }
+}
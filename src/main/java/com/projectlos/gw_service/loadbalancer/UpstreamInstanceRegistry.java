@@ -0,0 +1,177 @@
+package com.projectlos.gw_service.loadbalancer;
+
+import com.projectlos.gw_service.config.LoadBalancerProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.netty.channel.ChannelOption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps one {@link UpstreamInstance} per instance URI listed by a load-balanced route, so
+ * routes sharing an instance share its load and health. Instances are probed every
+ * {@code gateway.load-balancer.health-check.interval}; unhealthy ones stay out of rotation
+ * until a probe succeeds again. State is published as {@code gateway.upstream.instance.*}.
+ */
+@Component
+@Slf4j
+public class UpstreamInstanceRegistry {
+
+    private final CustomRouteLocator customRouteLocator;
+    private final LoadBalancerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient probeClient;
+
+    private final Map<URI, RegisteredInstance> instances = new ConcurrentHashMap<>();
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    public UpstreamInstanceRegistry(CustomRouteLocator customRouteLocator,
+                                    LoadBalancerProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Duration timeout = properties.getHealthCheck().getTimeout();
+        this.probeClient = HttpClient.newConnection()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeout.toMillis())
+                .responseTimeout(timeout);
+    }
+
+    public UpstreamInstance instance(URI uri) {
+        return instances.computeIfAbsent(uri, this::register).instance();
+    }
+
+    /**
+     * Ejects a failing instance unless that would take more than
+     * {@code max-ejection-percent} of its pool out of rotation.
+     */
+    public void eject(UpstreamInstance instance, UpstreamInstance[] pool, long nowNanos) {
+        int ejected = 0;
+        for (UpstreamInstance member : pool) {
+            if (member.isEjected(nowNanos)) {
+                ejected++;
+            }
+        }
+        if ((ejected + 1) * 100 > pool.length * properties.getEjection().getMaxEjectionPercent()) {
+            return;
+        }
+        instance.eject(properties.getEjection().getBaseEjectionTime().toNanos(), nowNanos);
+        RegisteredInstance registered = instances.get(instance.uri());
+        if (registered != null) {
+            registered.ejections().increment();
+        }
+        log.warn("Ejected upstream instance {} after {} consecutive failures",
+                instance, properties.getEjection().getConsecutiveFailures());
+    }
+
+    /**
+     * Drops the instances no active route lists anymore.
+     */
+    @EventListener(RefreshRoutesEvent.class)
+    public void reconcile() {
+        Set<URI> listed = new HashSet<>();
+        for (RouteConfig rc : customRouteLocator.getRouteTable().getRouteConfigs()) {
+            List<URI> uris = UpstreamInstances.parse(rc.getUri());
+            if (uris.size() > 1) {
+                listed.addAll(uris);
+            }
+        }
+        instances.entrySet().removeIf(entry -> {
+            if (listed.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().meters().forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    /**
+     * Starts a probe round unless the previous one is still running. Each probe is bounded
+     * by the health check timeout, and any failure marks its instance unhealthy.
+     */
+    @Scheduled(fixedDelayString = "${gateway.load-balancer.health-check.interval:PT10S}",
+            initialDelayString = "${gateway.load-balancer.health-check.interval:PT10S}")
+    public void probe() {
+        if (!properties.isEnabled() || !properties.getHealthCheck().isEnabled() || instances.isEmpty()
+                || !probing.compareAndSet(false, true)) {
+            return;
+        }
+        probeAll()
+                .doFinally(signal -> probing.set(false))
+                .subscribe();
+    }
+
+    Mono<Void> probeAll() {
+        return Flux.fromIterable(List.copyOf(instances.values()))
+                .flatMap(registered -> probe(registered.instance())
+                        .doOnNext(healthy -> {
+                            UpstreamInstance instance = registered.instance();
+                            if (healthy != instance.isHealthy()) {
+                                log.warn("Upstream instance {} is now {}", instance, healthy ? "healthy" : "unhealthy");
+                            }
+                            instance.setHealthy(healthy);
+                        }))
+                .then();
+    }
+
+    private Mono<Boolean> probe(UpstreamInstance instance) {
+        return probeClient.get()
+                .uri(instance.uri().resolve(properties.getHealthCheck().getPath()))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code() < 500)))
+                .timeout(properties.getHealthCheck().getTimeout())
+                .onErrorResume(e -> {
+                    log.debug("Health probe of upstream instance {} failed: {}", instance, e.toString());
+                    return Mono.just(false);
+                });
+    }
+
+    private RegisteredInstance register(URI uri) {
+        UpstreamInstance instance = new UpstreamInstance(uri, properties.getDecayTime().toNanos());
+        Tags tags = Tags.of("instance", uri.toString());
+        List<Meter> meters = new ArrayList<>();
+        meters.add(Gauge.builder("gateway.upstream.instance.available", instance,
+                        i -> i.isAvailable(System.nanoTime()) ? 1 : 0)
+                .description("Whether the instance is in rotation: healthy and not ejected")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("gateway.upstream.instance.outstanding", instance, UpstreamInstance::outstanding)
+                .description("Requests in flight to the instance")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder("gateway.upstream.instance.latency", instance, i -> i.latencyEwmaNanos() / 1e9)
+                .description("Peak-sensitive moving average of the instance's response time")
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(meterRegistry));
+        Counter ejections = Counter.builder("gateway.upstream.instance.ejections")
+                .description("Times the instance was taken out of rotation for consecutive failures")
+                .tags(tags)
+                .register(meterRegistry);
+        meters.add(ejections);
+        return new RegisteredInstance(instance, ejections, meters);
+    }
+
+    private record RegisteredInstance(UpstreamInstance instance, Counter ejections, List<Meter> meters) {
+    }
+}
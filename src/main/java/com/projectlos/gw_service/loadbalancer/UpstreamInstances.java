@@ -0,0 +1,96 @@
+package com.projectlos.gw_service.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Parsing of the route_config {@code uri} column, which holds one upstream URL or a
+ * comma-separated list of instances of the same service, and the choice between instances.
+ */
+public final class UpstreamInstances {
+
+    private UpstreamInstances() {
+    }
+
+    public static List<URI> parse(String uri) {
+        if (uri.indexOf(',') < 0) {
+            return List.of(URI.create(uri.trim()));
+        }
+        List<URI> instances = new ArrayList<>();
+        for (String instance : uri.split(",")) {
+            if (!instance.isBlank()) {
+                instances.add(URI.create(instance.trim()));
+            }
+        }
+        return List.copyOf(instances);
+    }
+
+    /**
+     * The URI a route is built with; requests go there when load balancing is off.
+     */
+    public static URI primary(String uri) {
+        return parse(uri).get(0);
+    }
+
+    /**
+     * Power of two choices: of two random instances in rotation, the one with the lower
+     * {@link UpstreamInstance#cost()} wins. When neither is in rotation any instance that is
+     * gets picked, and when none is, the two picks are compared anyway.
+     */
+    public static UpstreamInstance choose(UpstreamInstance[] pool, long nowNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(pool.length);
+        int second = random.nextInt(pool.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        UpstreamInstance a = pool[first];
+        UpstreamInstance b = pool[second];
+        boolean aAvailable = a.isAvailable(nowNanos);
+        boolean bAvailable = b.isAvailable(nowNanos);
+        if (aAvailable != bAvailable) {
+            return aAvailable ? a : b;
+        }
+        if (!aAvailable) {
+            // Neither pick is in rotation: take any instance that is, or fall back to the picks
+            for (int i = 0; i < pool.length; i++) {
+                UpstreamInstance candidate = pool[(first + i) % pool.length];
+                if (candidate.isAvailable(nowNanos)) {
+                    return candidate;
+                }
+            }
+        }
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    /**
+     * The instance a retry goes to: another one than {@code excluded}, preferably in
+     * rotation. A pool of one instance has no other, so that instance is returned.
+     */
+    public static UpstreamInstance chooseOther(UpstreamInstance[] pool, UpstreamInstance excluded, long nowNanos) {
+        if (pool.length == 1) {
+            return pool[0];
+        }
+        UpstreamInstance chosen = choose(pool, nowNanos);
+        if (chosen != excluded) {
+            return chosen;
+        }
+        int offset = ThreadLocalRandom.current().nextInt(pool.length);
+        UpstreamInstance fallback = null;
+        for (int i = 0; i < pool.length; i++) {
+            UpstreamInstance candidate = pool[(offset + i) % pool.length];
+            if (candidate == excluded) {
+                continue;
+            }
+            if (candidate.isAvailable(nowNanos)) {
+                return candidate;
+            }
+            if (fallback == null) {
+                fallback = candidate;
+            }
+        }
+        return fallback != null ? fallback : excluded;
+    }
+}
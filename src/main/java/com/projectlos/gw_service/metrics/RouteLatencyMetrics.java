@@ -0,0 +1,77 @@
+package com.projectlos.gw_service.metrics;
+
+import com.projectlos.gw_service.config.RouteTimingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link RouteTiming}s as {@code gateway.route.latency{route, service, phase}}
+ * timers with client-side percentiles:
+ * <ul>
+ *     <li>{@code overhead} - gateway filters up to the hand-over to the routing filter</li>
+ *     <li>{@code connect} - upstream connection acquisition, including a TCP connect when the pool has none idle</li>
+ *     <li>{@code ttfb} - request sent until upstream response headers arrived</li>
+ *     <li>{@code total} - the whole exchange, including streaming the response body</li>
+ * </ul>
+ * Timers are created once per route, so recording is allocation free.
+ */
+@Component
+public class RouteLatencyMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final Map<String, RouteTimers> timersByRoute = new ConcurrentHashMap<>();
+
+    public RouteLatencyMetrics(MeterRegistry meterRegistry, RouteTimingProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    public void record(String routeId, String serviceName, RouteTiming timing, long endNanos) {
+        RouteTimers timers = timersByRoute.get(routeId);
+        if (timers == null || !timers.serviceName().equals(serviceName)) {
+            timers = timersByRoute.compute(routeId, (id, existing) ->
+                    existing != null && existing.serviceName().equals(serviceName) ? existing : createTimers(id, serviceName));
+        }
+
+        long start = timing.startNanos();
+        timers.total().record(endNanos - start, TimeUnit.NANOSECONDS);
+        if (timing.routingNanos() == 0) {
+            timers.overhead().record(endNanos - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        timers.overhead().record(timing.routingNanos() - start, TimeUnit.NANOSECONDS);
+        if (timing.requestSentNanos() != 0) {
+            timers.connect().record(timing.requestSentNanos() - timing.routingNanos(), TimeUnit.NANOSECONDS);
+            if (timing.firstByteNanos() != 0) {
+                timers.ttfb().record(timing.firstByteNanos() - timing.requestSentNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private RouteTimers createTimers(String routeId, String serviceName) {
+        return new RouteTimers(serviceName,
+                timer(routeId, serviceName, "overhead"),
+                timer(routeId, serviceName, "connect"),
+                timer(routeId, serviceName, "ttfb"),
+                timer(routeId, serviceName, "total"));
+    }
+
+    private Timer timer(String routeId, String serviceName, String phase) {
+        return Timer.builder("gateway.route.latency")
+                .description("Latency of proxied requests per route and phase")
+                .tag("route", routeId)
+                .tag("service", serviceName)
+                .tag("phase", phase)
+                .publishPercentiles(percentiles)
+                .register(meterRegistry);
+    }
+
+    private record RouteTimers(String serviceName, Timer overhead, Timer connect, Timer ttfb, Timer total) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.projectlos.gw_service.metrics;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.util.context.ContextView;
+
+/**
+ * Timestamps of one proxied request, in {@link System#nanoTime()} units. A mark stays 0
+ * when the request never reached that point, e.g. a cache hit is never routed.
+ * <p>
+ * The timing travels in the exchange attributes and in the Reactor context, where the
+ * upstream {@link HttpClient} hooks installed by {@link #instrument(HttpClient)} find it.
+ */
+public final class RouteTiming {
+
+    public static final String ATTRIBUTE = RouteTiming.class.getName();
+
+    private final long startNanos;
+    private long routingNanos;
+    private long requestSentNanos;
+    private long firstByteNanos;
+
+    public RouteTiming(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Adds the connect and time-to-first-byte marks to an upstream client.
+     */
+    public static HttpClient instrument(HttpClient httpClient) {
+        return httpClient
+                .doOnRequest((request, connection) -> {
+                    RouteTiming timing = from(request.currentContextView());
+                    if (timing != null) {
+                        timing.requestSentNanos = System.nanoTime();
+                    }
+                })
+                .doOnResponse((response, connection) -> {
+                    RouteTiming timing = from(response.currentContextView());
+                    if (timing != null) {
+                        timing.firstByteNanos = System.nanoTime();
+                    }
+                });
+    }
+
+    private static RouteTiming from(ContextView context) {
+        return context.getOrDefault(RouteTiming.class, null);
+    }
+
+    /**
+     * Marks the hand-over to the routing filter, the end of the gateway's own filter work.
+     */
+    public void markRouting() {
+        routingNanos = System.nanoTime();
+    }
+
+    public long startNanos() {
+        return startNanos;
+    }
+
+    public long routingNanos() {
+        return routingNanos;
+    }
+
+    public long requestSentNanos() {
+        return requestSentNanos;
+    }
+
+    public long firstByteNanos() {
+        return firstByteNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package com.projectlos.gw_service.model.request;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class BatchRequest {
+    private List<SubRequest> requests;
+
+    @Getter
+    @Setter
+    public static class SubRequest {
+        // Echoed on the matching response part
+        private String id;
+        private String method = "GET";
+        // Gateway path including the query string, e.g. /api/loans/7?expand=true
+        private String path;
+        private Map<String, String> headers;
+        private JsonNode body;
+    }
+}
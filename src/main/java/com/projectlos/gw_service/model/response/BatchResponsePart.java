@@ -0,0 +1,24 @@
+package com.projectlos.gw_service.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResponsePart {
+    private String id;
+    private int status;
+    private Map<String, String> headers;
+    private JsonNode body;
+    // Set when the gateway answered the sub-request itself
+    private String error;
+}
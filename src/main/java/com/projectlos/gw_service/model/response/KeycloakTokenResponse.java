@@ -0,0 +1,16 @@
+package com.projectlos.gw_service.model.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The fields of Keycloak's token endpoint response that the gateway hands back to clients.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record KeycloakTokenResponse(
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("token_type") String tokenType,
+        @JsonProperty("refresh_token") String refreshToken,
+        @JsonProperty("expires_in") Long expiresIn,
+        @JsonProperty("scope") String scope) {
+}
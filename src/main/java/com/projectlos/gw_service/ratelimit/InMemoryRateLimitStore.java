@@ -0,0 +1,54 @@
+package com.projectlos.gw_service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projectlos.gw_service.config.RateLimitProperties;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets in local memory.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the GCRA theoretical arrival time, so
+ * taking a permit is one compare-and-set with no lock and no timer. Buckets live in a
+ * Caffeine map, which stripes concurrent access across its hash bins and drops buckets
+ * that stayed idle for {@code gateway.rate-limit.key-idle-timeout}.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final Mono<Long> GRANTED = Mono.just(0L);
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public InMemoryRateLimitStore(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getKeyIdleTimeout())
+                .maximumSize(properties.getMaxKeys())
+                .build();
+    }
+
+    @Override
+    public Mono<Long> acquire(String key, RateLimitRule rule) {
+        long waitNanos = tryAcquire(key, rule, System.nanoTime());
+        return waitNanos == 0 ? GRANTED : Mono.just(waitNanos);
+    }
+
+    /**
+     * @return 0 when the permit was granted, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(String key, RateLimitRule rule, long nowNanos) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(nowNanos - rule.burstToleranceNanos()));
+        while (true) {
+            long arrival = bucket.get();
+            long nextArrival = Math.max(arrival, nowNanos) + rule.emissionIntervalNanos();
+            long allowedAt = nextArrival - rule.burstToleranceNanos();
+            if (allowedAt > nowNanos) {
+                return allowedAt - nowNanos;
+            }
+            if (bucket.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.projectlos.gw_service.ratelimit;
+
+/**
+ * What a route's rate limit is counted per.
+ */
+public enum RateLimitKey {
+    /** The JWT {@code preferred_username}; anonymous requests fall back to the client IP. */
+    PRINCIPAL,
+    /** The client IP address. */
+    IP,
+    /** One bucket shared by all callers of the route. */
+    ROUTE
+}
@@ -0,0 +1,18 @@
+package com.projectlos.gw_service.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket in GCRA form: one permit is earned every {@code emissionIntervalNanos},
+ * and up to {@code burstCapacity} permits can be spent at once.
+ */
+public record RateLimitRule(long emissionIntervalNanos, long burstToleranceNanos) {
+
+    public static RateLimitRule of(int replenishRate, int burstCapacity) {
+        if (replenishRate <= 0) {
+            throw new IllegalArgumentException("replenishRate must be positive: " + replenishRate);
+        }
+        long emissionIntervalNanos = TimeUnit.SECONDS.toNanos(1) / replenishRate;
+        return new RateLimitRule(emissionIntervalNanos, emissionIntervalNanos * Math.max(burstCapacity, 1));
+    }
+}
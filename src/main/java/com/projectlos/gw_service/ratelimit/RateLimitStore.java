@@ -0,0 +1,17 @@
+package com.projectlos.gw_service.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds the token buckets. The default {@link InMemoryRateLimitStore} limits per gateway
+ * node; declare another {@code RateLimitStore} bean to share the buckets across replicas.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one permit from the bucket of {@code key}.
+     *
+     * @return 0 when the permit was granted, otherwise the nanoseconds until one is available
+     */
+    Mono<Long> acquire(String key, RateLimitRule rule);
+}
@@ -0,0 +1,44 @@
+package com.projectlos.gw_service.repository;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads route_config with plain JDBC queries, mapping each column to the
+ * {@link RouteConfig} property of the same name, so the gateway can run without Hibernate.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.route-source", name = "reader", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcRouteConfigSource implements RouteConfigSource {
+
+    private static final RowMapper<RouteConfig> ROW_MAPPER = new BeanPropertyRowMapper<>(RouteConfig.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<RouteConfig> findActiveRoutes() {
+        return jdbcTemplate.query("select * from route_config where is_active = true order by priority desc", ROW_MAPPER);
+    }
+
+    @Override
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from route_config", Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLatestUpdatedAt() {
+        return Optional.ofNullable(
+                jdbcTemplate.queryForObject("select max(updated_at) from route_config", LocalDateTime.class));
+    }
+}
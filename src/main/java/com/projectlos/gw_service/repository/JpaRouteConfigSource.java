@@ -0,0 +1,36 @@
+package com.projectlos.gw_service.repository;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads route_config through {@link RouteConfigRepository}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.route-source", name = "reader", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaRouteConfigSource implements RouteConfigSource {
+
+    private final RouteConfigRepository routeConfigRepository;
+
+    @Override
+    public List<RouteConfig> findActiveRoutes() {
+        return routeConfigRepository.findByIsActiveTrueOrderByPriorityDesc();
+    }
+
+    @Override
+    public long count() {
+        return routeConfigRepository.count();
+    }
+
+    @Override
+    public Optional<LocalDateTime> findLatestUpdatedAt() {
+        return routeConfigRepository.findLatestUpdatedAt();
+    }
+}
@@ -2,8 +2,10 @@ package com.projectlos.gw_service.repository;
 
 import com.projectlos.gw_service.entity.RouteConfig;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +19,7 @@ public interface RouteConfigRepository extends JpaRepository<RouteConfig, Long>
     List<RouteConfig> findByServiceName(String serviceName);
     
     List<RouteConfig> findByRequiresAuthTrue();
+
+    @Query("select max(r.updatedAt) from RouteConfig r")
+    Optional<LocalDateTime> findLatestUpdatedAt();
 }
@@ -0,0 +1,23 @@
+package com.projectlos.gw_service.repository;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to route_config for building and refreshing the route table, selected with
+ * {@code gateway.route-source.reader}.
+ */
+public interface RouteConfigSource {
+
+    /**
+     * Active routes, highest priority first.
+     */
+    List<RouteConfig> findActiveRoutes();
+
+    long count();
+
+    Optional<LocalDateTime> findLatestUpdatedAt();
+}
@@ -0,0 +1,236 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The path and header rewrites of one route_config row, compiled when the route is built:
+ * {@code strip_prefix}, then {@code rewrite_path_regex}, then header removals and
+ * additions on the request and the response.
+ * <p>
+ * Regexes are compiled and header lists split here, once per route. A request costs one
+ * path scan, at most one regex match, and one request mutation when anything changes.
+ * <p>
+ * The names of the response headers a route adds are left on the exchange under
+ * {@link #ADDED_RESPONSE_HEADERS_ATTR}, so filters that replay a response to other
+ * requests, such as {@code CoalescingFilter}, can replay them too.
+ */
+public final class CompiledRouteFilter implements GatewayFilter, Ordered {
+
+    // Path changes have to land before RouteToRequestUrlFilter builds the upstream URL
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+    public static final String ADDED_RESPONSE_HEADERS_ATTR = CompiledRouteFilter.class.getName() + ".addedResponseHeaders";
+
+    private static final Set<HttpMethod> STANDARD_METHODS = Set.of(HttpMethod.values());
+
+    private final int stripPrefix;
+    private final Pattern rewritePattern;
+    private final String rewriteReplacement;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders;
+    private final Set<String> addedResponseHeaderNames;
+    private final Consumer<HttpHeaders> requestHeaderRewrite;
+
+    private CompiledRouteFilter(int stripPrefix, Pattern rewritePattern, String rewriteReplacement,
+                                Headers requestHeaders, Headers responseHeaders) {
+        this.stripPrefix = stripPrefix;
+        this.rewritePattern = rewritePattern;
+        this.rewriteReplacement = rewriteReplacement;
+        this.requestHeaders = requestHeaders;
+        this.responseHeaders = responseHeaders;
+        this.addedResponseHeaderNames = responseHeaders.addedNames();
+        this.requestHeaderRewrite = requestHeaders::applyTo;
+    }
+
+    /**
+     * @return the rewrites of the row, or {@code null} when it has none
+     * @throws IllegalArgumentException when the regex or a header line of the row is malformed
+     */
+    public static CompiledRouteFilter compile(RouteConfig rc) {
+        int stripPrefix = rc.getStripPrefix() != null ? rc.getStripPrefix() : 0;
+        if (stripPrefix < 0) {
+            throw new IllegalArgumentException("strip_prefix must not be negative: " + stripPrefix);
+        }
+        Pattern rewritePattern = null;
+        String rewriteReplacement = null;
+        if (rc.getRewritePathRegex() != null && !rc.getRewritePathRegex().isBlank()) {
+            rewritePattern = Pattern.compile(rc.getRewritePathRegex());
+            rewriteReplacement = rc.getRewritePathReplacement() != null ? rc.getRewritePathReplacement() : "";
+        }
+        Headers requestHeaders = Headers.parse(rc.getRemoveRequestHeaders(), rc.getAddRequestHeaders());
+        Headers responseHeaders = Headers.parse(rc.getRemoveResponseHeaders(), rc.getAddResponseHeaders());
+
+        if (stripPrefix == 0 && rewritePattern == null && requestHeaders.isEmpty() && responseHeaders.isEmpty()) {
+            return null;
+        }
+        return new CompiledRouteFilter(stripPrefix, rewritePattern, rewriteReplacement, requestHeaders, responseHeaders);
+    }
+
+    /**
+     * The methods a route accepts, from its {@code methods} column.
+     *
+     * @return the methods, or {@code null} for any method
+     * @throws IllegalArgumentException when the column lists anything but standard methods
+     */
+    public static Set<HttpMethod> methods(RouteConfig rc) {
+        if (rc.getMethods() == null || rc.getMethods().isBlank()) {
+            return null;
+        }
+        Set<HttpMethod> methods = new LinkedHashSet<>();
+        for (String method : rc.getMethods().split(",")) {
+            if (!method.isBlank()) {
+                // valueOf takes any token, so a typo would make a route that never matches
+                HttpMethod parsed = HttpMethod.valueOf(method.trim().toUpperCase(Locale.ROOT));
+                if (!STANDARD_METHODS.contains(parsed)) {
+                    throw new IllegalArgumentException("Unknown HTTP method in methods: " + method.trim());
+                }
+                methods.add(parsed);
+            }
+        }
+        return methods.isEmpty() ? null : Set.copyOf(methods);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerWebExchange forwarded = exchange;
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getRawPath();
+        String rewrittenPath = rewritePath(path);
+        boolean pathChanged = !rewrittenPath.equals(path);
+        if (pathChanged || !requestHeaders.isEmpty()) {
+            ServerHttpRequest.Builder builder = request.mutate();
+            if (pathChanged) {
+                ServerWebExchangeUtils.addOriginalRequestUrl(exchange, request.getURI());
+                builder.path(rewrittenPath);
+            }
+            if (!requestHeaders.isEmpty()) {
+                builder.headers(requestHeaderRewrite);
+            }
+            forwarded = exchange.mutate().request(builder.build()).build();
+        }
+
+        if (responseHeaders.isEmpty()) {
+            return chain.filter(forwarded);
+        }
+        // Runs once the upstream headers are in, before NettyWriteResponseFilter commits them
+        return chain.filter(forwarded)
+                .then(Mono.fromRunnable(() -> {
+                    responseHeaders.applyTo(exchange.getResponse().getHeaders());
+                    if (!addedResponseHeaderNames.isEmpty()) {
+                        exchange.getAttributes().put(ADDED_RESPONSE_HEADERS_ATTR, addedResponseHeaderNames);
+                    }
+                }));
+    }
+
+    String rewritePath(String path) {
+        String rewritten = stripPrefix > 0 ? stripPrefix(path, stripPrefix) : path;
+        if (rewritePattern != null) {
+            Matcher matcher = rewritePattern.matcher(rewritten);
+            if (matcher.find()) {
+                rewritten = matcher.replaceAll(rewriteReplacement);
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * Drops the first {@code segments} segments of a path, keeping a trailing separator, the
+     * same way Spring Cloud Gateway's StripPrefix filter does.
+     */
+    static String stripPrefix(String path, int segments) {
+        int index = 0;
+        for (int i = 0; i < segments; i++) {
+            if (index < path.length() && path.charAt(index) == '/') {
+                index++;
+            }
+            int next = path.indexOf('/', index);
+            if (next < 0) {
+                return "/";
+            }
+            index = next;
+        }
+        return path.substring(index);
+    }
+
+    /**
+     * Header names to remove and name/value pairs to add, in route_config order.
+     */
+    private record Headers(String[] removals, String[] names, String[] values) {
+
+        private static final Headers NONE = new Headers(new String[0], new String[0], new String[0]);
+
+        static Headers parse(String removals, String additions) {
+            String[] removed = removals == null ? new String[0] : Arrays.stream(removals.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .toArray(String[]::new);
+            List<String> names = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            if (additions != null) {
+                for (String line : additions.split("\\R")) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    int colon = line.indexOf(':');
+                    if (colon <= 0) {
+                        throw new IllegalArgumentException("Header line must be \"Name: value\": " + line);
+                    }
+                    names.add(line.substring(0, colon).trim());
+                    values.add(line.substring(colon + 1).trim());
+                }
+            }
+            if (removed.length == 0 && names.isEmpty()) {
+                return NONE;
+            }
+            return new Headers(removed, names.toArray(String[]::new), values.toArray(String[]::new));
+        }
+
+        boolean isEmpty() {
+            return removals.length == 0 && names.length == 0;
+        }
+
+        /**
+         * @return the names of the added headers, matched case-insensitively like HTTP header names
+         */
+        Set<String> addedNames() {
+            Set<String> added = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            added.addAll(Arrays.asList(names));
+            return Collections.unmodifiableSet(added);
+        }
+
+        void applyTo(HttpHeaders headers) {
+            for (String name : removals) {
+                headers.remove(name);
+            }
+            for (int i = 0; i < names.length; i++) {
+                headers.add(names[i], values[i]);
+            }
+        }
+    }
+}
@@ -1,73 +1,241 @@
 package com.projectlos.gw_service.router;
 
+import com.projectlos.gw_service.client.ResiliencePolicy;
+import com.projectlos.gw_service.config.RouteMatcherProperties;
+import com.projectlos.gw_service.config.RouteSourceProperties;
+import com.projectlos.gw_service.config.UpstreamResilienceProperties;
 import com.projectlos.gw_service.entity.RouteConfig;
-import com.projectlos.gw_service.repository.RouteConfigRepository;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstances;
+import com.projectlos.gw_service.repository.RouteConfigSource;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.BooleanSpec;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
-@Configuration
+/**
+ * Builds gateway routes from the active route_config rows.
+ * <p>
+ * The table is reloaded through {@link #refresh()}, which rebuilds only the routes whose
+ * row changed and swaps the whole {@link RouteTable} in one step. Spring Cloud Gateway's
+ * caching locator picks the new table up on the next {@code RefreshRoutesEvent}.
+ * <p>
+ * With {@code gateway.route-source.snapshot.enabled} the first table is built from the
+ * {@link RouteSnapshotStore} instead of the database, and every change loaded from the
+ * database rewrites the snapshot; {@link RouteSnapshotReconciler} does the first load.
+ * <p>
+ * In {@link RouteMatcherProperties.Mode#TRIE} mode every route shares one lookup in the
+ * table's {@link RouteTrie}; the result is cached on the exchange, so the per-route
+ * predicates only compare route ids.
+ */
+@Component
 @Slf4j
 @RequiredArgsConstructor
-public class CustomRouteLocator {
-    private final RouteConfigRepository routeConfigRepository;
-    
-    @Bean
-    public RouteLocator dynamicRoutes(RouteLocatorBuilder builder) {
-        List<RouteConfig> routeConfigs = routeConfigRepository.findByIsActiveTrueOrderByPriorityDesc();
-        log.info("Route from DB: {}", routeConfigs);
-        log.info("Building static routes for services...");
-        
-        RouteLocatorBuilder.Builder routes = builder.routes();
-        // Add dynamic routes from database
-        routeConfigs.forEach(rc -> {
-            if (rc.getIsActive()) {
-                log.info("Adding dynamic route: {} -> {} ({})", rc.getPathPattern(), rc.getUri(), rc.getRouteId());
-                routes.route(rc.getRouteId(), r -> {
-                    var route = r.path(rc.getPathPattern());
-                    
-                    // Add method filters if specified
-                    if (rc.getPathPattern().contains("POST")) {
-                        route.and().method(HttpMethod.POST);
-                    } else if (rc.getPathPattern().contains("GET")) {
-                        route.and().method(HttpMethod.GET);
-                    } else if (rc.getPathPattern().contains("PUT")) {
-                        route.and().method(HttpMethod.PUT);
-                    } else if (rc.getPathPattern().contains("DELETE")) {
-                        route.and().method(HttpMethod.DELETE);
-                    }
-                    
-                    return route.uri(rc.getUri());
-                });
+public class CustomRouteLocator implements RouteLocator {
+    public static final String SERVICE_NAME_METADATA = "service-name";
+    public static final String RESILIENCE_METADATA = "resilience";
+
+    private static final String RESOLVED_ROUTE_ATTR = CustomRouteLocator.class.getName() + ".resolvedRoute";
+    private static final Object NO_ROUTE = new Object();
+
+    private final RouteConfigSource routeConfigSource;
+    private final RouteSnapshotStore routeSnapshotStore;
+    private final RouteLocatorBuilder builder;
+    private final RouteMatcherProperties routeMatcherProperties;
+    private final RouteSourceProperties routeSourceProperties;
+    private final UpstreamResilienceProperties upstreamResilienceProperties;
+
+    private final AtomicReference<RouteTable> routeTable = new AtomicReference<>(RouteTable.EMPTY);
+    private volatile boolean servingSnapshot;
+
+    @PostConstruct
+    void loadRoutes() {
+        if (!routeSourceProperties.getSnapshot().isEnabled()) {
+            refresh();
+            return;
+        }
+        List<RouteConfig> snapshot = routeSnapshotStore.read().orElse(null);
+        if (snapshot == null) {
+            log.warn("No route snapshot at {}, serving no routes until the database is reachable",
+                    routeSourceProperties.getSnapshot().getPath());
+            snapshot = List.of();
+        }
+        synchronized (this) {
+            apply(snapshot);
+            servingSnapshot = true;
+        }
+    }
+
+    @Override
+    public Flux<Route> getRoutes() {
+        return Flux.fromIterable(routeTable.get().getRoutes());
+    }
+
+    public RouteTable getRouteTable() {
+        return routeTable.get();
+    }
+
+    /**
+     * Reloads the active routes from the database.
+     *
+     * @return the number of routes that were added, changed or removed; 0 when the table is unchanged
+     */
+    public synchronized int refresh() {
+        List<RouteConfig> routeConfigs = routeConfigSource.findActiveRoutes();
+        log.debug("Route from DB: {}", routeConfigs);
+
+        int changed = apply(routeConfigs);
+        if (routeSourceProperties.getSnapshot().isEnabled() && (changed > 0 || servingSnapshot)) {
+            routeSnapshotStore.write(routeConfigs);
+        }
+        servingSnapshot = false;
+        return changed;
+    }
+
+    /**
+     * Whether the route table still comes from the snapshot, with no database load since startup.
+     */
+    public boolean isServingSnapshot() {
+        return servingSnapshot;
+    }
+
+    private int apply(List<RouteConfig> routeConfigs) {
+        RouteTable current = routeTable.get();
+        Map<String, RouteConfig> previousConfigs = current.getConfigsById();
+        List<Route> routes = new ArrayList<>(routeConfigs.size());
+        Set<String> activeRouteIds = new HashSet<>();
+        int changed = 0;
+
+        List<RouteConfig> installed = new ArrayList<>(routeConfigs.size());
+        for (RouteConfig rc : routeConfigs) {
+            if (rc.equals(previousConfigs.get(rc.getRouteId()))) {
+                activeRouteIds.add(rc.getRouteId());
+                installed.add(rc);
+                routes.add(current.getRoutesById().get(rc.getRouteId()));
+                continue;
+            }
+            log.info("Building dynamic route: {} -> {} ({})", rc.getPathPattern(), rc.getUri(), rc.getRouteId());
+            Route route;
+            try {
+                route = buildRoute(rc);
+            } catch (IllegalArgumentException e) {
+                // A half-applied rewrite would forward to the wrong place, so the route stays out
+                log.error("Skipping route {}: invalid route_config: {}", rc.getRouteId(), e.getMessage());
+                continue;
             }
+            activeRouteIds.add(rc.getRouteId());
+            installed.add(rc);
+            routes.add(route);
+            changed++;
+        }
+
+        for (String routeId : previousConfigs.keySet()) {
+            if (!activeRouteIds.contains(routeId)) {
+                log.info("Removing dynamic route: {}", routeId);
+                changed++;
+            }
+        }
+
+        if (changed > 0) {
+            routeTable.set(new RouteTable(installed, routes));
+            log.info("Route table updated: {} active routes, {} changed", routes.size(), changed);
+        }
+        return changed;
+    }
+
+    private Route buildRoute(RouteConfig rc) {
+        Set<HttpMethod> methods = CompiledRouteFilter.methods(rc);
+        CompiledRouteFilter filter = CompiledRouteFilter.compile(rc);
+        if (routeMatcherProperties.getMode() == RouteMatcherProperties.Mode.TRIE) {
+            // The Path predicate is not built in this mode, so a malformed pattern would
+            // otherwise only fail in RouteTrie.compile and take the whole table with it
+            RouteTrie.parse(rc.getPathPattern());
+        }
+        return builder.routes()
+                .route(rc.getRouteId(), r -> {
+                    BooleanSpec route;
+                    if (routeMatcherProperties.getMode() == RouteMatcherProperties.Mode.TRIE) {
+                        route = r.predicate(exchange -> isResolvedTo(exchange, rc.getRouteId()));
+                    } else {
+                        route = r.path(rc.getPathPattern());
+                        if (methods != null) {
+                            route.and().method(methods.toArray(HttpMethod[]::new));
+                        }
+                    }
+
+                    if (rc.getServiceName() != null) {
+                        route.metadata(SERVICE_NAME_METADATA, rc.getServiceName());
+                    }
+                    ResiliencePolicy resiliencePolicy = ResiliencePolicy.of(rc, upstreamResilienceProperties);
+                    if (resiliencePolicy != null) {
+                        route.metadata(RESILIENCE_METADATA, resiliencePolicy);
+                    }
+                    if (rc.getConnectTimeoutMs() != null) {
+                        route.metadata(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, rc.getConnectTimeoutMs());
+                    }
+                    if (rc.getResponseTimeoutMs() != null) {
+                        route.metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, rc.getResponseTimeoutMs());
+                    }
+                    if (filter != null) {
+                        route.filters(f -> f.filter(filter));
+                    }
+                    return route.uri(UpstreamInstances.primary(rc.getUri()));
+                })
+                .build()
+                .getRoutes()
+                .blockFirst();
+    }
+
+    /**
+     * Resolves the route an exchange will be routed to through the table's {@link RouteTrie}.
+     * The result is cached on the exchange, so callers before and during routing share one lookup.
+     * The path is parsed the way the Path predicate parses it, so security and admission
+     * decisions made on the result apply to the route the request is actually sent to.
+     *
+     * @return the matching entry, or {@code null} when no active route matches
+     */
+    public RouteTrie.Entry resolve(ServerWebExchange exchange) {
+        Object resolved = exchange.getAttributes().computeIfAbsent(RESOLVED_ROUTE_ATTR, key -> {
+            RouteTrie.Entry entry = getRouteTable().getTrie().match(
+                    PathContainer.parsePath(exchange.getRequest().getURI().getRawPath()), exchange.getRequest().getMethod());
+            return entry != null ? entry : NO_ROUTE;
         });
+        return resolved instanceof RouteTrie.Entry entry ? entry : null;
+    }
 
-//        // Static routes for core services
-//        routes
-//            // Customer Service
-//            .route("customer-service", r -> r
-//                .path("/api/customers/**")
-//                .uri("http://localhost:8081"))
-//
-//            // Loan Service - Strip /api/loan prefix before forwarding
-//            .route("loan-service", r -> {
-//                log.info("Configuring loan-service route: /api/loan/** -> http://localhost:8082 with stripPrefix(2)");
-//                return r.path("/api/loan/**")
-//                    .filters(f -> f.stripPrefix(2))
-//                    .uri("http://localhost:8082");
-//            })
-//
-//            // Document Service
-//            .route("document-service", r -> r
-//                .path("/api/documents/**")
-//                .uri("http://localhost:8083"));
-        
-        return routes.build();
+    private boolean isResolvedTo(ServerWebExchange exchange, String routeId) {
+        RouteTrie.Entry entry = resolve(exchange);
+        if (entry == null || !entry.routeId().equals(routeId)) {
+            return false;
+        }
+
+        // Expose the same attributes the path predicate would have set
+        PathPattern pattern = entry.pattern();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_PREDICATE_MATCHED_PATH_ATTR, pattern.getPatternString());
+        if (pattern.getPatternString().indexOf('{') >= 0) {
+            PathPattern.PathMatchInfo matchInfo = pattern.matchAndExtract(
+                    PathContainer.parsePath(exchange.getRequest().getURI().getRawPath()));
+            if (matchInfo != null) {
+                ServerWebExchangeUtils.putUriTemplateVariables(exchange, matchInfo.getUriVariables());
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,89 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.repository.RouteConfigSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Polls route_config for changes and refreshes {@link CustomRouteLocator} only when the
+ * row count or the latest {@code updated_at} moved, so an idle table costs two cheap
+ * queries per interval and never triggers a gateway route reload.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "gateway.route-refresh", name = "enabled", matchIfMissing = true)
+public class RouteRefreshScheduler {
+
+    private final RouteConfigSource routeConfigSource;
+    private final CustomRouteLocator customRouteLocator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Timer refreshTimer;
+    private final Counter changedRoutesCounter;
+    private final Counter failureCounter;
+
+    private volatile TableVersion lastVersion;
+
+    public RouteRefreshScheduler(RouteConfigSource routeConfigSource,
+                                 CustomRouteLocator customRouteLocator,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry) {
+        this.routeConfigSource = routeConfigSource;
+        this.customRouteLocator = customRouteLocator;
+        this.eventPublisher = eventPublisher;
+
+        this.refreshTimer = Timer.builder("gateway.routes.refresh")
+                .description("Time taken to reload and rebuild changed routes")
+                .register(meterRegistry);
+        this.changedRoutesCounter = Counter.builder("gateway.routes.changed")
+                .description("Routes added, changed or removed by refreshes")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("gateway.routes.refresh.failures")
+                .description("Route refresh attempts that failed")
+                .register(meterRegistry);
+        Gauge.builder("gateway.routes.active", customRouteLocator, locator -> locator.getRouteTable().size())
+                .description("Active routes in the current route table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.route-refresh.interval:PT10S}",
+            initialDelayString = "${gateway.route-refresh.interval:PT10S}")
+    public void pollForChanges() {
+        if (customRouteLocator.isServingSnapshot()) {
+            // RouteSnapshotReconciler owns the first database load after a snapshot start
+            return;
+        }
+        try {
+            TableVersion version = new TableVersion(
+                    routeConfigSource.count(),
+                    routeConfigSource.findLatestUpdatedAt().orElse(null));
+            if (version.equals(lastVersion)) {
+                return;
+            }
+
+            int changed = refreshTimer.record(customRouteLocator::refresh);
+            lastVersion = version;
+            if (changed > 0) {
+                changedRoutesCounter.increment(changed);
+                log.info("Detected {} route change(s), publishing route refresh", changed);
+                eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+            }
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.warn("Route refresh failed, keeping current route table", e);
+        }
+    }
+
+    private record TableVersion(long rowCount, LocalDateTime latestUpdate) {
+    }
+}
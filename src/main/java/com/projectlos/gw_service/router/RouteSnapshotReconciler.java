@@ -0,0 +1,98 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.config.RouteSourceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the snapshot routes {@link CustomRouteLocator} started with by the database's
+ * once the gateway is up, retrying with backoff for as long as the database is unreachable.
+ * With {@code deferred-migrations} the Liquibase changelog runs first, in the same retried
+ * step, instead of during startup.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "gateway.route-source.snapshot", name = "enabled")
+public class RouteSnapshotReconciler {
+
+    private final CustomRouteLocator customRouteLocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSource dataSource;
+    private final RouteSourceProperties.Snapshot properties;
+    private final String changeLog;
+    private final Counter failureCounter;
+
+    private volatile boolean migrated;
+    private volatile Disposable reconciliation;
+
+    public RouteSnapshotReconciler(CustomRouteLocator customRouteLocator,
+                                   ApplicationEventPublisher eventPublisher,
+                                   DataSource dataSource,
+                                   RouteSourceProperties properties,
+                                   @Value("${spring.liquibase.change-log:classpath:/db/changelog/db.changelog-master.yaml}") String changeLog,
+                                   MeterRegistry meterRegistry) {
+        this.customRouteLocator = customRouteLocator;
+        this.eventPublisher = eventPublisher;
+        this.dataSource = dataSource;
+        this.properties = properties.getSnapshot();
+        this.changeLog = changeLog;
+        this.failureCounter = Counter.builder("gateway.routes.refresh.failures")
+                .description("Route refresh attempts that failed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        reconciliation = Mono.fromCallable(this::migrateAndRefresh)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> {
+                    failureCounter.increment();
+                    log.warn("Route reconcile failed, still serving the snapshot routes: {}", e.toString());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.getMinRetryBackoff())
+                        .maxBackoff(properties.getMaxRetryBackoff()))
+                .subscribe(changed -> {
+                    log.info("Reconciled snapshot routes with the database, {} changed", changed);
+                    if (changed > 0) {
+                        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+                    }
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        Disposable current = reconciliation;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    private int migrateAndRefresh() throws Exception {
+        if (properties.isDeferredMigrations() && !migrated) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setChangeLog(changeLog);
+            liquibase.setResourceLoader(new DefaultResourceLoader());
+            liquibase.afterPropertiesSet();
+            migrated = true;
+        }
+        return customRouteLocator.refresh();
+    }
+}
@@ -0,0 +1,68 @@
+package com.projectlos.gw_service.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.config.RouteSourceProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The last-known active route_config rows as a JSON file at
+ * {@code gateway.route-source.snapshot.path}, so the gateway can build its routes without
+ * the database. Each write goes to a temporary file that is then moved over the snapshot,
+ * so readers never see a partly written one.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RouteSnapshotStore {
+
+    private final ObjectMapper objectMapper;
+    private final RouteSourceProperties properties;
+
+    /**
+     * @return the routes of the snapshot, or empty when there is none or it cannot be read
+     */
+    public Optional<List<RouteConfig>> read() {
+        Path path = properties.getSnapshot().getPath();
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            RouteSnapshot snapshot = objectMapper.readValue(path.toFile(), RouteSnapshot.class);
+            log.info("Read {} routes from snapshot {} written at {}", snapshot.routes().size(), path, snapshot.writtenAt());
+            return Optional.of(snapshot.routes());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable route snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the snapshot. Failures are logged, the running route table does not depend on it.
+     */
+    public void write(List<RouteConfig> routeConfigs) {
+        Path path = properties.getSnapshot().getPath().toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            objectMapper.writeValue(temporary.toFile(), new RouteSnapshot(Instant.now(), routeConfigs));
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote {} routes to snapshot {}", routeConfigs.size(), path);
+        } catch (IOException e) {
+            log.warn("Failed to write route snapshot {}", path, e);
+        }
+    }
+
+    record RouteSnapshot(Instant writtenAt, List<RouteConfig> routes) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import lombok.Getter;
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the active routes, in priority order, together with the
+ * route_config rows they were built from. A new snapshot is swapped in as a whole
+ * on every refresh, so readers never observe a partially rebuilt table.
+ */
+@Getter
+public final class RouteTable {
+
+    public static final RouteTable EMPTY = new RouteTable(List.of(), List.of());
+
+    private final List<RouteConfig> routeConfigs;
+    private final List<Route> routes;
+    private final Map<String, RouteConfig> configsById;
+    private final Map<String, Route> routesById;
+    private final RouteTrie trie;
+
+    RouteTable(List<RouteConfig> routeConfigs, List<Route> routes) {
+        this.routeConfigs = List.copyOf(routeConfigs);
+        this.routes = List.copyOf(routes);
+
+        Map<String, RouteConfig> configs = new LinkedHashMap<>();
+        routeConfigs.forEach(rc -> configs.put(rc.getRouteId(), rc));
+        this.configsById = Collections.unmodifiableMap(configs);
+
+        Map<String, Route> byId = new LinkedHashMap<>();
+        routes.forEach(route -> byId.put(route.getId(), route));
+        this.routesById = Collections.unmodifiableMap(byId);
+
+        this.trie = RouteTrie.compile(this.routeConfigs);
+    }
+
+    public int size() {
+        return routes.size();
+    }
+}
@@ -0,0 +1,246 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Segment trie over the active route path patterns.
+ * <p>
+ * Literal segments, single-segment wildcards ({@code *}, {@code {var}}) and trailing
+ * catch-alls ({@code **}, {@code {*var}}) are compiled into the trie, so resolving a
+ * request costs a walk over its path segments instead of one {@link PathPattern} match
+ * per route. Patterns using other syntax (e.g. {@code *.json} or regex variables) are
+ * kept in a short fallback list and matched the usual way. When several routes match,
+ * the one that comes first in priority order wins, as with the predicate chain.
+ * <p>
+ * Requests are matched on the segments of their {@link PathContainer}, decoded and with
+ * matrix parameters removed, exactly as the gateway's Path predicate sees them; otherwise
+ * {@code /api/lo%61n} or {@code /api/loan;x=1} would be routed to a route the trie misses.
+ */
+public final class RouteTrie {
+
+    private static final PathPatternParser PARSER = parser();
+
+    public static final RouteTrie EMPTY = compile(List.of());
+
+    private final Node root;
+    private final List<Entry> fallback;
+
+    private RouteTrie(Node root, List<Entry> fallback) {
+        this.root = root;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Parses a route's path pattern the way the trie and the Path predicate do.
+     *
+     * @throws IllegalArgumentException when the pattern is malformed
+     */
+    public static PathPattern parse(String pathPattern) {
+        return PARSER.parse(pathPattern);
+    }
+
+    /**
+     * Compiles the given route configs, which must already be in priority order.
+     */
+    public static RouteTrie compile(List<RouteConfig> routeConfigs) {
+        Node root = new Node();
+        List<Entry> fallback = new ArrayList<>();
+
+        for (int rank = 0; rank < routeConfigs.size(); rank++) {
+            RouteConfig rc = routeConfigs.get(rank);
+            PathPattern pattern = PARSER.parse(rc.getPathPattern());
+            Entry entry = new Entry(rc.getRouteId(), rank, CompiledRouteFilter.methods(rc), pattern);
+            if (!insert(root, rc.getPathPattern(), entry)) {
+                fallback.add(entry);
+            }
+        }
+        return new RouteTrie(root, List.copyOf(fallback));
+    }
+
+    /**
+     * Resolves the highest-priority route whose pattern and method match the request.
+     *
+     * @param path the raw request path
+     * @return the matching entry, or {@code null} when no route matches
+     */
+    public Entry match(String path, HttpMethod method) {
+        return match(PathContainer.parsePath(path), method);
+    }
+
+    /**
+     * Resolves the highest-priority route whose pattern and method match the request.
+     *
+     * @param path the parsed request path
+     * @return the matching entry, or {@code null} when no route matches
+     */
+    public Entry match(PathContainer path, HttpMethod method) {
+        String[] segments = segments(path);
+        Entry best = search(root, segments, 0, method, null);
+        if (fallback.isEmpty()) {
+            return best;
+        }
+
+        for (Entry entry : fallback) {
+            if (best != null && entry.rank() > best.rank()) {
+                break;
+            }
+            if (entry.accepts(method) && entry.pattern().matches(path)) {
+                return entry;
+            }
+        }
+        return best;
+    }
+
+    // Deprecated in Spring 6.1, but it is what the Path predicate still sets from its
+    // matchTrailingSlash, which defaults to true
+    @SuppressWarnings("deprecation")
+    private static PathPatternParser parser() {
+        PathPatternParser parser = new PathPatternParser();
+        parser.setMatchOptionalTrailingSeparator(true);
+        return parser;
+    }
+
+    private static Entry search(Node node, String[] segments, int index, HttpMethod method, Entry best) {
+        best = pick(best, node.catchAll, method);
+        if (index == segments.length) {
+            return pick(best, node.terminal, method);
+        }
+
+        Node literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            best = search(literal, segments, index + 1, method, best);
+        }
+        if (node.wildcard != null && !segments[index].isEmpty()) {
+            best = search(node.wildcard, segments, index + 1, method, best);
+        }
+        return best;
+    }
+
+    private static Entry pick(Entry best, List<Entry> candidates, HttpMethod method) {
+        for (Entry candidate : candidates) {
+            if (best != null && candidate.rank() > best.rank()) {
+                return best;
+            }
+            if (candidate.accepts(method)) {
+                return candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean insert(Node root, String pattern, Entry entry) {
+        String[] segments = splitPattern(pattern);
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (isCatchAll(segment)) {
+                if (i != segments.length - 1) {
+                    return false;
+                }
+                node.catchAll.add(entry);
+                return true;
+            }
+            if (isWildcard(segment)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else if (isLiteral(segment)) {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            } else {
+                return false;
+            }
+        }
+        node.terminal.add(entry);
+        return true;
+    }
+
+    private static boolean isCatchAll(String segment) {
+        return segment.equals("**") || (segment.startsWith("{*") && segment.endsWith("}"));
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.equals("*")
+                || (segment.startsWith("{") && segment.endsWith("}") && segment.indexOf(':') < 0);
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The values the Path predicate matches a request path on: decoded segments without
+     * matrix parameters, ignoring the leading separator and one optional trailing separator.
+     * Two separators in a row stand for an empty segment.
+     */
+    static String[] segments(PathContainer path) {
+        List<PathContainer.Element> elements = path.elements();
+        int start = !elements.isEmpty() && elements.get(0) instanceof PathContainer.Separator ? 1 : 0;
+        int end = elements.size();
+        if (end > start && elements.get(end - 1) instanceof PathContainer.Separator) {
+            end--;
+        }
+        List<String> segments = new ArrayList<>();
+        boolean expectSegment = true;
+        for (int i = start; i < end; i++) {
+            if (elements.get(i) instanceof PathContainer.PathSegment segment) {
+                segments.add(segment.valueToMatch());
+                expectSegment = false;
+            } else {
+                if (expectSegment) {
+                    segments.add("");
+                }
+                expectSegment = true;
+            }
+        }
+        if (expectSegment && end > start) {
+            segments.add("");
+        }
+        return segments.toArray(String[]::new);
+    }
+
+    /**
+     * Splits a path pattern into segments, ignoring the leading separator and one optional
+     * trailing separator.
+     */
+    private static String[] splitPattern(String pattern) {
+        int start = pattern.startsWith("/") ? 1 : 0;
+        int end = pattern.endsWith("/") && pattern.length() > start ? pattern.length() - 1 : pattern.length();
+        if (start >= end) {
+            return new String[0];
+        }
+        return pattern.substring(start, end).split("/", -1);
+    }
+
+    /**
+     * @param methods the methods the route accepts, or {@code null} for any
+     */
+    public record Entry(String routeId, int rank, Set<HttpMethod> methods, PathPattern pattern) {
+        boolean accepts(HttpMethod requestMethod) {
+            return methods == null || methods.contains(requestMethod);
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Entry> terminal = new ArrayList<>();
+        private final List<Entry> catchAll = new ArrayList<>();
+        private Node wildcard;
+    }
+}
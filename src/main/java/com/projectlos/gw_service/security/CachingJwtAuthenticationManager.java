@@ -0,0 +1,76 @@
+package com.projectlos.gw_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Caches the authentication built from a bearer token, keyed by the token's SHA-256 hash
+ * and evicted when the token expires. Replaying a token skips signature verification and
+ * the role conversion; unknown or invalid tokens always go through the delegate.
+ */
+public class CachingJwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private final ReactiveAuthenticationManager delegate;
+    private final Cache<TokenKey, JwtAuthenticationToken> cache;
+
+    public CachingJwtAuthenticationManager(ReactiveAuthenticationManager delegate, long maxSize,
+                                           MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<TokenKey, JwtAuthenticationToken>() {
+                    @Override
+                    public long expireAfterCreate(TokenKey key, JwtAuthenticationToken value, long currentTime) {
+                        Instant expiresAt = value.getToken().getExpiresAt();
+                        if (expiresAt == null) {
+                            return 0;
+                        }
+                        return Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenKey key, JwtAuthenticationToken value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenKey key, JwtAuthenticationToken value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.jwt");
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+            return delegate.authenticate(authentication);
+        }
+
+        TokenKey key = TokenKey.of(bearer.getToken());
+        JwtAuthenticationToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return delegate.authenticate(authentication)
+                .doOnNext(result -> {
+                    if (result instanceof JwtAuthenticationToken jwtAuthentication) {
+                        cache.put(key, jwtAuthentication);
+                    }
+                });
+    }
+}
@@ -0,0 +1,115 @@
+package com.projectlos.gw_service.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.projectlos.gw_service.config.JwtCacheProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps Keycloak's JWK set in memory and refreshes it in the background, so verifying a
+ * token never waits on a JWKS download. A token signed with a key id that is not in the
+ * current set triggers one shared refresh, rate-limited by
+ * {@code gateway.jwt-cache.jwk-min-refresh-interval}, which covers key rollovers that
+ * happen between two scheduled refreshes.
+ */
+@Component
+@Slf4j
+public class JwkSetCache {
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final JwtCacheProperties jwtCacheProperties;
+
+    private final AtomicReference<Mono<JWKSet>> inFlightRefresh = new AtomicReference<>();
+    private volatile JWKSet jwkSet = new JWKSet();
+    private volatile long lastRefreshNanos;
+
+    public JwkSetCache(WebClient webClient,
+                       OAuth2ResourceServerProperties resourceServerProperties,
+                       JwtCacheProperties jwtCacheProperties) {
+        this.webClient = webClient;
+        this.jwkSetUri = resourceServerProperties.getJwt().getJwkSetUri();
+        this.jwtCacheProperties = jwtCacheProperties;
+    }
+
+    @PostConstruct
+    void prefetch() {
+        refresh().subscribe();
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.jwt-cache.jwk-refresh-interval:PT5M}",
+            initialDelayString = "${gateway.jwt-cache.jwk-refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        refresh().subscribe();
+    }
+
+    /**
+     * JWK source for the token decoder: the keys of the current set that match the token header.
+     */
+    public Flux<JWK> select(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        List<JWK> keys = selector.select(jwkSet);
+        if (!keys.isEmpty()) {
+            return Flux.fromIterable(keys);
+        }
+
+        boolean refreshedRecently = System.nanoTime() - lastRefreshNanos
+                < jwtCacheProperties.getJwkMinRefreshInterval().toNanos();
+        if (refreshedRecently && inFlightRefresh.get() == null) {
+            return Flux.empty();
+        }
+        log.debug("No JWK matches key id {}, refreshing JWK set", jwt.getHeader().getKeyID());
+        return refresh().flatMapIterable(selector::select);
+    }
+
+    Mono<JWKSet> refresh() {
+        Mono<JWKSet> refresh = inFlightRefresh.get();
+        if (refresh != null) {
+            return refresh;
+        }
+
+        Mono<JWKSet> fetch = webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .<JWKSet>handle((body, sink) -> {
+                    try {
+                        sink.next(JWKSet.parse(body));
+                    } catch (ParseException e) {
+                        sink.error(e);
+                    }
+                })
+                .doOnNext(keys -> {
+                    jwkSet = keys;
+                    log.debug("Loaded {} JWK(s) from {}", keys.getKeys().size(), jwkSetUri);
+                })
+                .onErrorResume(throwable -> {
+                    log.warn("Failed to refresh JWK set from {}, keeping {} cached key(s): {}",
+                            jwkSetUri, jwkSet.getKeys().size(), throwable.getMessage());
+                    return Mono.just(jwkSet);
+                })
+                .doFinally(signal -> inFlightRefresh.set(null))
+                .cache();
+
+        if (!inFlightRefresh.compareAndSet(null, fetch)) {
+            Mono<JWKSet> concurrent = inFlightRefresh.get();
+            return concurrent != null ? concurrent : Mono.just(jwkSet);
+        }
+        lastRefreshNanos = System.nanoTime();
+        return fetch;
+    }
+}
@@ -0,0 +1,173 @@
+package com.projectlos.gw_service.security;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import com.projectlos.gw_service.router.RouteTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Authorizes gateway requests against the {@code requires_auth} and {@code roles} columns
+ * of the route they resolve to.
+ * <p>
+ * Every role named by an active route gets a bit in a shared dictionary and each route's
+ * roles are compiled into an immutable mask, once per route table. A request then costs
+ * one route lookup plus one hash lookup per granted authority; nothing is split or parsed
+ * on the request path. Requests that match no route must be authenticated.
+ */
+@Component
+@Slf4j
+public class RouteAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+    private static final String ROLE = "ROLE_";
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final CustomRouteLocator customRouteLocator;
+
+    private volatile Policy policy = Policy.compile(RouteTable.EMPTY);
+
+    public RouteAuthorizationManager(CustomRouteLocator customRouteLocator) {
+        this.customRouteLocator = customRouteLocator;
+    }
+
+    @EventListener(RefreshRoutesEvent.class)
+    public void recompile() {
+        currentPolicy();
+    }
+
+    @Override
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+        Policy current = currentPolicy();
+        RouteTrie.Entry entry = customRouteLocator.resolve(context.getExchange());
+        RouteRule rule = entry != null ? current.rules().get(entry.routeId()) : null;
+
+        if (rule != null && !rule.requiresAuth()) {
+            return Mono.just(GRANTED);
+        }
+        return authentication
+                .filter(Authentication::isAuthenticated)
+                .map(auth -> rule == null || rule.roles() == null || current.roleMask(auth).intersects(rule.roles())
+                        ? GRANTED : DENIED)
+                .defaultIfEmpty(DENIED);
+    }
+
+    private Policy currentPolicy() {
+        RouteTable routeTable = customRouteLocator.getRouteTable();
+        Policy current = policy;
+        if (current.routeTable() != routeTable) {
+            current = Policy.compile(routeTable);
+            policy = current;
+            log.debug("Compiled route authorization for {} routes over {} roles",
+                    current.rules().size(), current.roleBits().size());
+        }
+        return current;
+    }
+
+    /**
+     * Compiled authorization rules for one {@link RouteTable} snapshot.
+     */
+    record Policy(RouteTable routeTable, Map<String, Integer> roleBits, Map<String, RouteRule> rules) {
+
+        static Policy compile(RouteTable routeTable) {
+            Map<String, Integer> roleBits = new HashMap<>();
+            Map<String, String[]> authoritiesByRoute = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                String[] authorities = parseRoles(rc.getRoles());
+                authoritiesByRoute.put(rc.getRouteId(), authorities);
+                for (String authority : authorities) {
+                    roleBits.putIfAbsent(authority, roleBits.size());
+                }
+            }
+
+            Map<String, RouteRule> rules = new HashMap<>();
+            for (RouteConfig rc : routeTable.getRouteConfigs()) {
+                String[] authorities = authoritiesByRoute.get(rc.getRouteId());
+                RoleMask roles = null;
+                if (authorities.length > 0) {
+                    long[] words = new long[RoleMask.wordCount(roleBits.size())];
+                    for (String authority : authorities) {
+                        RoleMask.set(words, roleBits.get(authority));
+                    }
+                    roles = new RoleMask(words);
+                }
+                rules.put(rc.getRouteId(), new RouteRule(!Boolean.FALSE.equals(rc.getRequiresAuth()), roles));
+            }
+            return new Policy(routeTable, Collections.unmodifiableMap(roleBits), Collections.unmodifiableMap(rules));
+        }
+
+        RoleMask roleMask(Authentication authentication) {
+            long[] words = new long[RoleMask.wordCount(roleBits.size())];
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                Integer bit = roleBits.get(authority.getAuthority());
+                if (bit != null) {
+                    RoleMask.set(words, bit);
+                }
+            }
+            return new RoleMask(words);
+        }
+
+        private static String[] parseRoles(String roles) {
+            if (roles == null || roles.isBlank()) {
+                return new String[0];
+            }
+            return Arrays.stream(roles.split(","))
+                    .map(String::trim)
+                    .filter(role -> !role.isEmpty())
+                    .map(role -> role.startsWith(ROLE) ? role : ROLE + role)
+                    .distinct()
+                    .toArray(String[]::new);
+        }
+    }
+
+    /**
+     * @param roles the roles allowed on the route, or {@code null} when any authenticated user is
+     */
+    record RouteRule(boolean requiresAuth, RoleMask roles) {
+    }
+
+    /**
+     * Fixed-size bitset over the role dictionary of one {@link Policy}.
+     */
+    static final class RoleMask {
+
+        private final long[] words;
+
+        RoleMask(long[] words) {
+            this.words = words;
+        }
+
+        boolean intersects(RoleMask other) {
+            int length = Math.min(words.length, other.words.length);
+            for (int i = 0; i < length; i++) {
+                if ((words[i] & other.words[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static int wordCount(int bits) {
+            return Math.max(1, (bits + 63) >>> 6);
+        }
+
+        static void set(long[] words, int bit) {
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+}
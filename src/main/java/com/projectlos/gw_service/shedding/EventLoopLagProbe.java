@@ -0,0 +1,123 @@
+package com.projectlos.gw_service.shedding;
+
+import com.projectlos.gw_service.config.LoadSheddingProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures how long tasks queue on the server's Netty event loops. Every loop runs a
+ * probe task every {@code probe-interval}; the lag is how late it runs, smoothed per
+ * loop over the last few probes so that a single GC pause does not shed a whole class.
+ */
+@Component
+@Slf4j
+public class EventLoopLagProbe {
+
+    private static final int MAX_SHED_LEVEL = RequestPriority.AUTH.ordinal();
+    // Weight of the newest probe in the smoothed lag, as a shift: 1/8
+    private static final int SMOOTHING_SHIFT = 3;
+
+    private final LoadSheddingProperties properties;
+    private final ObjectProvider<ReactorResourceFactory> resourceFactory;
+    private final long intervalNanos;
+    private final long targetLagNanos;
+
+    private volatile EventExecutor[] loops = new EventExecutor[0];
+    private volatile AtomicLongArray lagNanos = new AtomicLongArray(0);
+    private volatile boolean running;
+
+    public EventLoopLagProbe(LoadSheddingProperties properties, ObjectProvider<ReactorResourceFactory> resourceFactory,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.resourceFactory = resourceFactory;
+        this.intervalNanos = properties.getProbeInterval().toNanos();
+        this.targetLagNanos = properties.getTargetLag().toNanos();
+        TimeGauge.builder("gateway.shedding.event-loop.lag", this, TimeUnit.NANOSECONDS, EventLoopLagProbe::lagNanos)
+                .description("Delay of tasks queued on the busiest server event loop")
+                .register(meterRegistry);
+        Gauge.builder("gateway.shedding.level", this, EventLoopLagProbe::shedLevel)
+                .description("Number of priority classes currently shed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ReactorResourceFactory factory = resourceFactory.getIfAvailable();
+        LoopResources loopResources = factory != null ? factory.getLoopResources() : HttpResources.get();
+        EventLoopGroup group = loopResources.onServer(true);
+        List<EventExecutor> executors = new ArrayList<>();
+        group.forEach(executors::add);
+
+        loops = executors.toArray(EventExecutor[]::new);
+        lagNanos = new AtomicLongArray(loops.length);
+        running = true;
+        for (int i = 0; i < loops.length; i++) {
+            schedule(i);
+        }
+        log.info("Probing {} event loops every {}", loops.length, properties.getProbeInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * @return the smoothed lag of the busiest event loop
+     */
+    public long lagNanos() {
+        AtomicLongArray lag = lagNanos;
+        long max = 0;
+        for (int i = 0; i < lag.length(); i++) {
+            max = Math.max(max, lag.get(i));
+        }
+        return max;
+    }
+
+    /**
+     * @return 0 below the target lag, then one more class per doubling of it, up to all but {@link RequestPriority#AUTH}
+     */
+    public int shedLevel() {
+        long lag = lagNanos();
+        int level = 0;
+        long threshold = targetLagNanos;
+        while (level < MAX_SHED_LEVEL && lag > threshold) {
+            level++;
+            threshold <<= 1;
+        }
+        return level;
+    }
+
+    private void schedule(int loop) {
+        if (!running) {
+            return;
+        }
+        long dueNanos = System.nanoTime() + intervalNanos;
+        loops[loop].schedule(() -> {
+            long lag = Math.max(0, System.nanoTime() - dueNanos);
+            long smoothed = lagNanos.get(loop);
+            lagNanos.lazySet(loop, smoothed + ((lag - smoothed) >> SMOOTHING_SHIFT));
+            schedule(loop);
+        }, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+}
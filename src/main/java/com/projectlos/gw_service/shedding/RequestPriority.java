@@ -0,0 +1,12 @@
+package com.projectlos.gw_service.shedding;
+
+/**
+ * Admission classes, lowest first. Shed level {@code n} sheds the first {@code n} classes.
+ */
+public enum RequestPriority {
+    LOW,
+    NORMAL,
+    HIGH,
+    // The /auth endpoints; never shed for lag, and only they may use the reserved in-flight share
+    AUTH
+}
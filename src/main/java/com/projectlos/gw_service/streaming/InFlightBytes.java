@@ -0,0 +1,121 @@
+package com.projectlos.gw_service.streaming;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes of streamed bodies the gateway has read from one side but not yet written to the
+ * other, published as {@code gateway.streaming.inflight.bytes}.
+ * <p>
+ * Each body buffer is counted when it is read and uncounted when Netty releases it after
+ * writing it out. Whatever a transfer still counts when it ends, e.g. buffers Netty split
+ * and released piecewise, is uncounted then, so the gauge cannot drift.
+ */
+@Component
+public class InFlightBytes {
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private final NettyDataBufferFactory directBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    public InFlightBytes(MeterRegistry meterRegistry) {
+        Gauge.builder("gateway.streaming.inflight.bytes", inFlight, AtomicLong::get)
+                .description("Body bytes of streaming routes read by the gateway and not yet written out")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public long get() {
+        return inFlight.get();
+    }
+
+    public Transfer open() {
+        return new Transfer();
+    }
+
+    /**
+     * Passes a body through as pooled direct buffers counted against {@code transfer}; heap
+     * buffers are copied once, buffers Reactor Netty read off the socket go through as they are.
+     *
+     * @param maxBytes body size beyond which the body fails with a {@link DataBufferLimitException}
+     */
+    public Flux<DataBuffer> track(Flux<? extends DataBuffer> body, Transfer transfer, long maxBytes) {
+        long[] total = {0};
+        return body.map(buffer -> {
+            total[0] += buffer.readableByteCount();
+            if (total[0] > maxBytes) {
+                DataBufferUtils.release(buffer);
+                throw new DataBufferLimitException("Streamed body exceeds " + maxBytes + " bytes");
+            }
+            ByteBuf byteBuf = direct(buffer);
+            transfer.read(byteBuf.readableBytes());
+            return directBufferFactory.wrap(new TrackedByteBuf(byteBuf, transfer));
+        });
+    }
+
+    private ByteBuf direct(DataBuffer buffer) {
+        if (buffer instanceof NettyDataBuffer nettyBuffer && nettyBuffer.getNativeBuffer().isDirect()) {
+            return nettyBuffer.getNativeBuffer();
+        }
+        ByteBuf copy = PooledByteBufAllocator.DEFAULT.directBuffer(buffer.readableByteCount());
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                copy.writeBytes(iterator.next());
+            }
+        }
+        DataBufferUtils.release(buffer);
+        return copy;
+    }
+
+    /**
+     * In-flight bytes of one exchange, both directions.
+     */
+    public final class Transfer {
+
+        private static final long CLOSED = Long.MIN_VALUE;
+
+        private final AtomicLong pending = new AtomicLong();
+
+        private Transfer() {
+        }
+
+        void read(long bytes) {
+            adjust(bytes);
+        }
+
+        void released(long bytes) {
+            adjust(-bytes);
+        }
+
+        private void adjust(long delta) {
+            long current;
+            do {
+                current = pending.get();
+                if (current == CLOSED) {
+                    return;
+                }
+            } while (!pending.compareAndSet(current, current + delta));
+            inFlight.addAndGet(delta);
+        }
+
+        /**
+         * Uncounts what is still pending; releases after this are no longer tracked.
+         */
+        public void close() {
+            long remaining = pending.getAndSet(CLOSED);
+            if (remaining != CLOSED) {
+                inFlight.addAndGet(-remaining);
+            }
+        }
+    }
+}
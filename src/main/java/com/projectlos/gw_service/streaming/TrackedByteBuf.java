@@ -0,0 +1,28 @@
+package com.projectlos.gw_service.streaming;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * Body buffer of a streamed transfer that reports its bytes as no longer in flight once
+ * the last reference to it is released, i.e. once Netty has written it to the socket.
+ * A single-component composite: it has a reference count of its own, shared by any slices
+ * Netty derives from it, while reads and writes go straight to the wrapped buffer.
+ */
+final class TrackedByteBuf extends CompositeByteBuf {
+
+    private final InFlightBytes.Transfer transfer;
+    private final int size;
+
+    TrackedByteBuf(ByteBuf buf, InFlightBytes.Transfer transfer) {
+        super(buf.alloc(), buf.isDirect(), 1, buf);
+        this.transfer = transfer;
+        this.size = buf.readableBytes();
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+        transfer.released(size);
+    }
+}
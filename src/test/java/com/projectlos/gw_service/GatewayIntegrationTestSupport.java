@@ -0,0 +1,61 @@
+package com.projectlos.gw_service;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.repository.RouteConfigRepository;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Base of the tests that send requests through a started gateway. They all run with the
+ * {@code test} profile and the same mocks, so the suite boots one context on one H2
+ * database; each class installs its own routes under ids no other class uses.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"prod", "test"})
+public abstract class GatewayIntegrationTestSupport {
+
+    @MockBean
+    protected ReactiveJwtDecoder jwtDecoder;
+    @Autowired
+    protected RouteConfigRepository repository;
+    @Autowired
+    protected CustomRouteLocator customRouteLocator;
+    @Autowired
+    protected ApplicationEventPublisher eventPublisher;
+    @LocalServerPort
+    protected int port;
+
+    /**
+     * Saves the routes that are not in route_config yet and refreshes the gateway once if
+     * any was, so it can run before every test.
+     */
+    protected void installRoutes(RouteConfig... routes) {
+        boolean added = false;
+        for (RouteConfig route : routes) {
+            if (repository.findByRouteId(route.getRouteId()).isEmpty()) {
+                repository.save(route);
+                added = true;
+            }
+        }
+        if (added) {
+            customRouteLocator.refresh();
+            eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+        }
+    }
+
+    /**
+     * @return an active route without authentication, served by {@code <routeId>-service}
+     */
+    protected static RouteConfig.RouteConfigBuilder route(String routeId, String pathPattern, String uri) {
+        return RouteConfig.builder()
+                .routeId(routeId).pathPattern(pathPattern).uri(uri)
+                .serviceName(routeId + "-service").requiresAuth(false).isActive(true).priority(10);
+    }
+}
@@ -0,0 +1,82 @@
+package com.projectlos.gw_service.accesslog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogRingBufferTest {
+
+    @Test
+    void dropsEntriesWhileFullAndAcceptsThemAgainOnceDrained() {
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(offer(ringBuffer, "loan-service-routes", i)).isTrue();
+        }
+        assertThat(offer(ringBuffer, "loan-service-routes", 8)).isFalse();
+
+        ByteBuffer target = ByteBuffer.allocate(16 * AccessLogRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(ringBuffer.drainTo(target, 16)).isEqualTo(8);
+        assertThat(offer(ringBuffer, "loan-service-routes", 9)).isTrue();
+        assertThat(ringBuffer.drainTo(target, 16)).isEqualTo(1);
+
+        assertThat(AccessLogRecord.read(target, 0)).isEqualTo(new AccessLogRecord(1_000, 0, 1, 2, 3, 4,
+                AccessLogRecord.principalHash("officer"), 200, HttpMethod.GET, "loan-service-routes"));
+        assertThat(AccessLogRecord.read(target, 8 * AccessLogRecord.SIZE).totalNanos()).isEqualTo(9);
+        assertThat(AccessLogRecord.read(target, 9 * AccessLogRecord.SIZE)).isNull();
+    }
+
+    @Test
+    void concurrentProducersNeitherLoseNorTearEntries() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(1024);
+        AtomicInteger dropped = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            String routeId = "route-" + p;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (!offer(ringBuffer, routeId, i)) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+
+        List<AccessLogRecord> drained = new ArrayList<>();
+        ByteBuffer target = ByteBuffer.allocate(256 * AccessLogRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (done.getCount() > 0 || ringBuffer.size() > 0) {
+            target.clear();
+            int count = ringBuffer.drainTo(target, 256);
+            for (int i = 0; i < count; i++) {
+                drained.add(AccessLogRecord.read(target, i * AccessLogRecord.SIZE));
+            }
+        }
+
+        assertThat(drained.size() + dropped.get()).isEqualTo(producers * perProducer);
+        long[] lastSequence = {-1, -1, -1, -1};
+        for (AccessLogRecord entry : drained) {
+            int producer = entry.routeId().charAt(entry.routeId().length() - 1) - '0';
+            assertThat(entry.routeId()).isEqualTo("route-" + producer);
+            assertThat(entry.requestBytes()).isEqualTo(entry.totalNanos() + 3);
+            // Each producer's entries come out in the order it appended them
+            assertThat(entry.totalNanos()).isGreaterThan(lastSequence[producer]);
+            lastSequence[producer] = entry.totalNanos();
+        }
+    }
+
+    private static boolean offer(AccessLogRingBuffer ringBuffer, String routeId, long sequence) {
+        return ringBuffer.offer(1_000, sequence, 1, 2, sequence + 3, 4,
+                AccessLogRecord.principalHash("officer"), 200, HttpMethod.GET, routeId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.projectlos.gw_service.accesslog;
+
+import com.projectlos.gw_service.config.AccessLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesEntriesToRotatingSegmentsAndKeepsTheNewest() throws Exception {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setDirectory(directory.toString());
+        properties.setBufferSize(64);
+        // A header slot plus ten entries per segment
+        properties.setSegmentSize(DataSize.ofBytes(11 * AccessLogRecord.SIZE));
+        properties.setMaxSegments(2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AccessLogWriter writer = new AccessLogWriter(properties, meterRegistry);
+        writer.start();
+
+        for (int i = 0; i < 35; i++) {
+            writer.append(1_700_000_000_000L + i, i, 1_000, 2_000, -1, 512,
+                    AccessLogRecord.principalHash("officer"), 200, HttpMethod.POST, "loan-service-routes");
+            // Stay below the ring capacity so nothing is dropped
+            while (meterRegistry.get("gateway.accesslog.backlog").gauge().value() > 32) {
+                Thread.onSpinWait();
+            }
+        }
+        writer.stop();
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.sorted().toList();
+        }
+        assertThat(segments).hasSize(2);
+        List<AccessLogRecord> entries = new ArrayList<>();
+        for (Path segment : segments) {
+            byte[] bytes = Files.readAllBytes(segment);
+            assertThat(Arrays.copyOf(bytes, AccessLogFiles.MAGIC.length)).isEqualTo(AccessLogFiles.MAGIC);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int offset = AccessLogRecord.SIZE; offset < buffer.capacity(); offset += AccessLogRecord.SIZE) {
+                AccessLogRecord entry = AccessLogRecord.read(buffer, offset);
+                if (entry == null) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        assertThat(entries).extracting(AccessLogRecord::totalNanos)
+                .containsExactlyElementsOf(Stream.iterate(20L, i -> i + 1).limit(15).toList());
+        assertThat(entries.get(0)).isEqualTo(new AccessLogRecord(1_700_000_000_020L, 20, 1_000, 2_000, -1, 512,
+                AccessLogRecord.principalHash("officer"), 200, HttpMethod.POST, "loan-service-routes"));
+        assertThat(meterRegistry.get("gateway.accesslog.dropped").counter().count()).isZero();
+    }
+}
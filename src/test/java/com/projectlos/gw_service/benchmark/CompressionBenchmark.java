@@ -0,0 +1,113 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.projectlos.gw_service.compression.ContentCoding;
+import com.projectlos.gw_service.compression.StreamingCompression;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost against bytes saved of the response codings of
+ * {@link com.projectlos.gw_service.filter.CompressionFilter}, encoding a loan list JSON body
+ * streamed in 8 KB buffers the way it arrives from an upstream. {@code inputBytes} is the
+ * number of body bytes one core encodes per second; {@code savedBytes} over
+ * {@code inputBytes} is the fraction of the transfer saved.
+ * <p>
+ * br only runs with brotli4j on the classpath: {@code -p coding=br}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"gzip", "zstd"})
+    public String coding;
+
+    @Param({"1", "6"})
+    public int level;
+
+    @Param({"16384", "262144"})
+    public int payloadSize;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private ContentCoding contentCoding;
+    private byte[] payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long inputBytes;
+        public long savedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            inputBytes = 0;
+            savedBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        contentCoding = ContentCoding.fromToken(coding);
+        if (contentCoding == null || !contentCoding.canEncode()) {
+            throw new IllegalStateException("Coding " + coding + " is not available");
+        }
+        StringBuilder json = new StringBuilder(payloadSize + 256).append('[');
+        for (int i = 0; json.length() < payloadSize; i++) {
+            json.append("{\"loanId\":\"LN-").append(100000 + i)
+                    .append("\",\"applicant\":\"Applicant ").append(i % 997)
+                    .append("\",\"status\":\"").append(i % 3 == 0 ? "APPROVED" : "UNDER_REVIEW")
+                    .append("\",\"amount\":").append(5_000_000 + (i * 7919L) % 95_000_000)
+                    .append(",\"documents\":[\"KTP\",\"NPWP\",\"SLIP_GAJI\"]},");
+        }
+        payload = json.substring(0, payloadSize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long encode(Bytes bytes) {
+        int level = this.level;
+        long encodedBytes = StreamingCompression.encode(chunks(), () -> contentCoding.newEncoder(level), bufferFactory)
+                .map(buffer -> {
+                    int size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) size;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+        bytes.inputBytes += payload.length;
+        bytes.savedBytes += payload.length - encodedBytes;
+        return encodedBytes;
+    }
+
+    private Flux<DataBuffer> chunks() {
+        return Flux.range(0, (payload.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> {
+                    int offset = i * CHUNK_SIZE;
+                    int length = Math.min(CHUNK_SIZE, payload.length - offset);
+                    return bufferFactory.allocateBuffer(length).write(payload, offset, length);
+                });
+    }
+}
@@ -0,0 +1,240 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.projectlos.gw_service.GwServiceApplication;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.repository.RouteConfigRepository;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end load test: boots the gateway on an in-memory H2 database against an embedded
+ * stub upstream and a stub Keycloak (token + JWKS endpoints), drives each scenario with a
+ * fixed number of closed-loop connections and writes RPS and latency percentiles to
+ * {@code target/load-result.json}.
+ * <p>
+ * {@code mvn -Pbenchmark test-compile exec:exec@load [-Dload.duration=PT30S -Dload.concurrency=128]}
+ */
+public final class GatewayLoadHarness {
+
+    private static final String REALM_PATH = "/realms/benchmark/protocol/openid-connect";
+    private static final String UPSTREAM_BODY = "{\"id\":42,\"status\":\"APPROVED\",\"amount\":125000000}";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private GatewayLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT10S"));
+        int concurrency = Integer.getInteger("load.concurrency", 64);
+        Path output = Path.of(System.getProperty("load.output", "target/load-result.json"));
+
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        DisposableServer upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response
+                        .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                        .sendString(Mono.just(UPSTREAM_BODY)))
+                .bindNow();
+        AtomicReference<String> tokenResponse = new AtomicReference<>();
+        DisposableServer keycloak = startKeycloakStub(rsaKey, tokenResponse);
+        String issuer = "http://localhost:" + keycloak.port() + "/realms/benchmark";
+        String accessToken = accessToken(rsaKey, issuer);
+        tokenResponse.set("{\"access_token\":\"" + accessToken + "\",\"expires_in\":300,\"refresh_expires_in\":1800,"
+                + "\"refresh_token\":\"refresh\",\"token_type\":\"Bearer\",\"scope\":\"profile email\"}");
+
+        ConfigurableApplicationContext gateway = new SpringApplicationBuilder(GwServiceApplication.class)
+                .profiles("prod")
+                .run(gatewayArguments(issuer));
+        try {
+            installRoutes(gateway, "http://localhost:" + upstream.port());
+            int port = Integer.parseInt(gateway.getEnvironment().getRequiredProperty("local.server.port"));
+
+            HttpClient client = HttpClient.create(ConnectionProvider.builder("load")
+                            .maxConnections(concurrency)
+                            .pendingAcquireMaxCount(-1)
+                            .build())
+                    .baseUrl("http://localhost:" + port);
+
+            List<Scenario> scenarios = List.of(
+                    new Scenario("public-route", () -> status(client.get().uri("/api/bench/public/loans/42"))),
+                    new Scenario("authenticated-route", () -> status(client
+                            .headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + accessToken))
+                            .get().uri("/api/bench/secure/loans/42"))),
+                    new Scenario("auth-login", () -> status(client
+                            .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                            .post().uri("/auth/login")
+                            .send(ByteBufFlux.fromString(Mono.just("{\"username\":\"benchmark-user\",\"password\":\"secret\"}"))))));
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                run(scenario, concurrency, warmup, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+                Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+                Map<String, Object> result = run(scenario, concurrency, duration, histogram);
+                results.add(result);
+                System.out.printf("%-22s %10.0f rps  p50 %8d us  p99 %8d us  p999 %8d us  errors %d%n",
+                        scenario.name(), result.get("rps"), histogram.getValueAtPercentile(50) / 1000,
+                        histogram.getValueAtPercentile(99) / 1000, histogram.getValueAtPercentile(99.9) / 1000,
+                        result.get("errors"));
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("timestamp", Instant.now().toString());
+            report.put("concurrency", concurrency);
+            report.put("durationSeconds", duration.toSeconds());
+            report.put("scenarios", results);
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+            System.out.println("Results written to " + output.toAbsolutePath());
+        } finally {
+            gateway.close();
+            upstream.disposeNow();
+            keycloak.disposeNow();
+        }
+    }
+
+    private static Map<String, Object> run(Scenario scenario, int concurrency, Duration duration, Histogram histogram) {
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        Mono<Void> request = Mono.defer(() -> {
+            long sent = System.nanoTime();
+            return scenario.request().get()
+                    .onErrorReturn(-1)
+                    .doOnNext(status -> {
+                        histogram.recordValue(Math.min(System.nanoTime() - sent, HIGHEST_TRACKABLE_NANOS));
+                        if (status < 200 || status >= 300) {
+                            errors.increment();
+                        }
+                    })
+                    .then();
+        });
+        Flux.range(0, concurrency)
+                .flatMap(connection -> request.repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", histogram.getValueAtPercentile(50) / 1000);
+        latency.put("p99", histogram.getValueAtPercentile(99) / 1000);
+        latency.put("p999", histogram.getValueAtPercentile(99.9) / 1000);
+        latency.put("max", histogram.getMaxValue() / 1000);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", scenario.name());
+        result.put("requests", histogram.getTotalCount());
+        result.put("errors", errors.sum());
+        result.put("rps", histogram.getTotalCount() / elapsedSeconds);
+        result.put("latencyMicros", latency);
+        return result;
+    }
+
+    private static Mono<Integer> status(HttpClient.ResponseReceiver<?> request) {
+        return request.responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    private static DisposableServer startKeycloakStub(RSAKey rsaKey, AtomicReference<String> tokenResponse) {
+        String jwkSet = new JWKSet(rsaKey.toPublicJWK()).toString();
+        return HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get(REALM_PATH + "/certs", (request, response) -> response
+                                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                                .sendString(Mono.just(jwkSet)))
+                        .post(REALM_PATH + "/token", (request, response) -> response
+                                .header(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                                .sendString(Mono.fromSupplier(tokenResponse::get))))
+                .bindNow();
+    }
+
+    private static String accessToken(RSAKey rsaKey, String issuer) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("benchmark-user")
+                .issuer(issuer)
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .claim("preferred_username", "benchmark-user")
+                .claim("realm_access", Map.of("roles", List.of("MAKER", "CHECKER", "offline_access")))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(rsaKey));
+        return jwt.serialize();
+    }
+
+    /**
+     * Command line arguments rather than default properties, which application.yml would override.
+     */
+    private static String[] gatewayArguments(String issuer) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer);
+        properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer + "/protocol/openid-connect/certs");
+        properties.put("keycloak.token-uri", issuer + "/protocol/openid-connect/token");
+        properties.put("keycloak.login-max-attempts", Integer.MAX_VALUE);
+        // Measure the gateway, not the limiters in front of it
+        properties.put("gateway.rate-limit.auth.enabled", false);
+        properties.put("gateway.route-refresh.enabled", false);
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static void installRoutes(ConfigurableApplicationContext gateway, String upstreamUri) {
+        RouteConfigRepository repository = gateway.getBean(RouteConfigRepository.class);
+        repository.save(RouteConfig.builder()
+                .routeId("bench-public").pathPattern("/api/bench/public/**").uri(upstreamUri)
+                .serviceName("bench-upstream").requiresAuth(false).isActive(true).priority(10)
+                .build());
+        repository.save(RouteConfig.builder()
+                .routeId("bench-secure").pathPattern("/api/bench/secure/**").uri(upstreamUri)
+                .serviceName("bench-upstream").requiresAuth(true).roles("MAKER").isActive(true).priority(10)
+                .build());
+        gateway.getBean(CustomRouteLocator.class).refresh();
+        gateway.publishEvent(new RefreshRoutesEvent(GatewayLoadHarness.class));
+    }
+
+    private record Scenario(String name, Supplier<Mono<Integer>> request) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.projectlos.gw_service.config.SecurityConfig;
+import com.projectlos.gw_service.security.CachingJwtAuthenticationManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request bearer token authentication cost with and without the token cache, for a
+ * working set of replayed Keycloak-style access tokens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationBenchmark {
+
+    private static final int TOKEN_COUNT = 256;
+
+    private ReactiveAuthenticationManager uncached;
+    private ReactiveAuthenticationManager cached;
+    private BearerTokenAuthenticationToken[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        RSASSASigner signer = new RSASSASigner(rsaKey);
+
+        tokens = new BearerTokenAuthenticationToken[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .subject("user-" + i)
+                    .issuer("http://localhost:8080/realms/projectlos")
+                    .issueTime(new Date())
+                    .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                    .claim("preferred_username", "user-" + i)
+                    .claim("realm_access", Map.of("roles", List.of("MAKER", "CHECKER", "offline_access", "uma_authorization")))
+                    .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(), claims);
+            jwt.sign(signer);
+            tokens[i] = new BearerTokenAuthenticationToken(jwt.serialize());
+        }
+
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withPublicKey(rsaKey.toRSAPublicKey()).build();
+        JwtReactiveAuthenticationManager delegate = new JwtReactiveAuthenticationManager(decoder);
+        delegate.setJwtAuthenticationConverter(new SecurityConfig().jwtAuthenticationConverter());
+
+        uncached = delegate;
+        cached = new CachingJwtAuthenticationManager(delegate, 10_000, new SimpleMeterRegistry());
+    }
+
+    private BearerTokenAuthenticationToken nextToken() {
+        next = (next + 1) & (TOKEN_COUNT - 1);
+        return tokens[next];
+    }
+
+    @Benchmark
+    public Authentication cacheOff() {
+        return uncached.authenticate(nextToken()).block();
+    }
+
+    @Benchmark
+    public Authentication cacheOn() {
+        return cached.authenticate(nextToken()).block();
+    }
+}
@@ -0,0 +1,151 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.projectlos.gw_service.client.TokenResponseRelay;
+import com.projectlos.gw_service.model.response.KeycloakTokenResponse;
+import com.projectlos.gw_service.model.response.LoginResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a Keycloak token response into the gateway's login response: the former
+ * String + JsonNode tree path, typed record decoding straight from the buffers, and the
+ * pass-through relay. Run with the benchmark profile, which enables {@code -prof gc};
+ * {@code gc.alloc.rate.norm} is the bytes allocated per login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginResponseBenchmark {
+
+    private static final ResolvableType TOKEN_RESPONSE_TYPE = ResolvableType.forClass(KeycloakTokenResponse.class);
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private ObjectMapper objectMapper;
+    private Jackson2JsonDecoder jsonDecoder;
+    private StringDecoder stringDecoder;
+    private byte[] firstChunk;
+    private byte[] secondChunk;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        jsonDecoder = new Jackson2JsonDecoder(objectMapper);
+        stringDecoder = StringDecoder.allMimeTypes();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", fakeJwt(1400));
+        response.put("expires_in", 300);
+        response.put("refresh_expires_in", 1800);
+        response.put("refresh_token", fakeJwt(700));
+        response.put("token_type", "Bearer");
+        response.put("not-before-policy", 0);
+        response.put("session_state", "3f1c7a52-6d0e-4a55-9a8b-2b1d4f0c9e11");
+        response.put("scope", "profile email");
+        byte[] body = objectMapper.writeValueAsBytes(response);
+
+        // Two network reads, as Reactor Netty typically delivers a response of this size
+        int split = body.length / 2;
+        firstChunk = Arrays.copyOfRange(body, 0, split);
+        secondChunk = Arrays.copyOfRange(body, split, body.length);
+    }
+
+    private Flux<DataBuffer> body() {
+        return Flux.just(bufferFactory.wrap(firstChunk), bufferFactory.wrap(secondChunk));
+    }
+
+    @Benchmark
+    public byte[] stringAndTree() throws Exception {
+        String json = stringDecoder.decodeToMono(body(), STRING_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .block();
+        JsonNode jsonNode = objectMapper.readTree(json);
+        LoginResponse loginResponse = LoginResponse.builder()
+                .accessToken(jsonNode.get("access_token").asText())
+                .tokenType(jsonNode.get("token_type").asText())
+                .refreshToken(jsonNode.get("refresh_token").asText())
+                .expiresIn(jsonNode.get("expires_in").asLong())
+                .scope(jsonNode.get("scope").asText())
+                .build();
+        return withGatewayFields(loginResponse);
+    }
+
+    @Benchmark
+    public byte[] typedRecord() throws Exception {
+        KeycloakTokenResponse token = (KeycloakTokenResponse) jsonDecoder
+                .decodeToMono(body(), TOKEN_RESPONSE_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .block();
+        LoginResponse loginResponse = LoginResponse.builder()
+                .accessToken(token.accessToken())
+                .tokenType(token.tokenType())
+                .refreshToken(token.refreshToken())
+                .expiresIn(token.expiresIn())
+                .scope(token.scope())
+                .build();
+        return withGatewayFields(loginResponse);
+    }
+
+    @Benchmark
+    public void passThrough(Blackhole blackhole) throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("username", "maker01");
+        fields.put("loginTime", LocalDateTime.now());
+        fields.put("message", "Login successful");
+        TokenResponseRelay.relay(body(), objectMapper.writeValueAsBytes(fields), bufferFactory)
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    private byte[] withGatewayFields(LoginResponse loginResponse) throws Exception {
+        loginResponse.setUsername("maker01");
+        loginResponse.setLoginTime(LocalDateTime.now());
+        loginResponse.setMessage("Login successful");
+        return objectMapper.writeValueAsBytes(loginResponse);
+    }
+
+    private static String fakeJwt(int length) {
+        byte[] bytes = new byte[length * 3 / 4];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes).replace('_', '.');
+    }
+}
@@ -0,0 +1,67 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.projectlos.gw_service.config.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link SecurityConfig#jwtAuthenticationConverter()} turning an already decoded
+ * Keycloak token into an authentication, i.e. the per-request work left once the token
+ * cache misses, for growing {@code realm_access.roles} claims.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoleConverterBenchmark {
+
+    @Param({"2", "8", "32"})
+    public int roleCount;
+
+    private ReactiveJwtAuthenticationConverter converter;
+    private Jwt jwt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = new SecurityConfig().jwtAuthenticationConverter();
+
+        List<String> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roles.add("ROLE_NAME_" + i);
+        }
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("benchmark-user")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .claim("preferred_username", "benchmark-user")
+                .claim("realm_access", Map.of("roles", roles))
+                .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt).block();
+    }
+}
@@ -0,0 +1,99 @@
+package com.projectlos.gw_service.benchmark;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.RouteTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolution cost of the default per-route path predicate chain versus the
+ * compiled {@link RouteTrie}, for growing route tables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteMatchingBenchmark {
+
+    private static final String[] SERVICES = {"customers", "loan", "documents", "collaterals", "tasks"};
+
+    @Param({"10", "100", "1000"})
+    public int routeCount;
+
+    private List<PathPattern> predicateChain;
+    private RouteTrie trie;
+    private String[] requestPaths;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<RouteConfig> routeConfigs = new ArrayList<>(routeCount);
+        for (int i = 0; i < routeCount; i++) {
+            String service = SERVICES[i % SERVICES.length];
+            String pattern = switch (i % 3) {
+                case 0 -> "/api/" + service + "/v" + i + "/**";
+                case 1 -> "/api/" + service + "/v" + i + "/{id}/status";
+                default -> "/api/" + service + "/v" + i + "/items/*";
+            };
+            routeConfigs.add(RouteConfig.builder().routeId("route-" + i).pathPattern(pattern).build());
+        }
+
+        PathPatternParser parser = new PathPatternParser();
+        predicateChain = routeConfigs.stream().map(rc -> parser.parse(rc.getPathPattern())).toList();
+        trie = RouteTrie.compile(routeConfigs);
+
+        Random random = new Random(42);
+        requestPaths = new String[1024];
+        for (int i = 0; i < requestPaths.length; i++) {
+            int route = random.nextInt(routeCount);
+            String service = SERVICES[route % SERVICES.length];
+            requestPaths[i] = switch (route % 3) {
+                case 0 -> "/api/" + service + "/v" + route + "/applications/" + i;
+                case 1 -> "/api/" + service + "/v" + route + "/" + i + "/status";
+                default -> "/api/" + service + "/v" + route + "/items/" + i;
+            };
+        }
+    }
+
+    private String nextPath() {
+        next = (next + 1) & (requestPaths.length - 1);
+        return requestPaths[next];
+    }
+
+    @Benchmark
+    public PathPattern predicateChain() {
+        PathContainer path = PathContainer.parsePath(nextPath());
+        for (PathPattern pattern : predicateChain) {
+            if (pattern.matches(path)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public RouteTrie.Entry trie() {
+        return trie.match(nextPath(), HttpMethod.GET);
+    }
+}
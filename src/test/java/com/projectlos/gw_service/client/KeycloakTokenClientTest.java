@@ -0,0 +1,82 @@
+package com.projectlos.gw_service.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.config.KeycloakProperties;
+import com.projectlos.gw_service.model.response.KeycloakTokenResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeycloakTokenClientTest {
+
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+    private final KeycloakProperties properties = new KeycloakProperties();
+    private HttpStatus tokenStatus = HttpStatus.OK;
+    private KeycloakTokenClient client;
+
+    @BeforeEach
+    void setUp() {
+        properties.setTokenUri("http://keycloak/token");
+        properties.setLoginMaxAttempts(2);
+
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.delay(Duration.ofMillis(50))
+                        .map(tick -> ClientResponse.create(tokenStatus)
+                                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                                .body("{\"access_token\":\"token-" + tokenCalls.incrementAndGet() + "\"}")
+                                .build()))
+                .build();
+        ReactiveResilience4JCircuitBreakerFactory circuitBreakerFactory = new ReactiveResilience4JCircuitBreakerFactory(
+                CircuitBreakerRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), new Resilience4JConfigurationProperties());
+        client = new KeycloakTokenClient(webClient, properties, new ObjectMapper(), circuitBreakerFactory, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrentIdenticalRefreshesShareOneCall() {
+        List<String> accessTokens = Flux.range(0, 20)
+                .flatMap(i -> client.refreshGrant("refresh-1"))
+                .map(KeycloakTokenResponse::accessToken)
+                .collectList()
+                .block();
+
+        assertThat(accessTokens).hasSize(20).containsOnly("token-1");
+        assertThat(tokenCalls).hasValue(1);
+    }
+
+    @Test
+    void failedRefreshIsNotReplayed() {
+        tokenStatus = HttpStatus.BAD_REQUEST;
+        assertThatThrownBy(() -> client.refreshGrant("refresh-1").block());
+
+        tokenStatus = HttpStatus.OK;
+        assertThat(client.refreshGrant("refresh-1").block().accessToken()).isEqualTo("token-2");
+    }
+
+    @Test
+    void loginAttemptsAreLimitedPerUsername() {
+        client.passwordGrant("alice", "secret").block();
+        client.passwordGrant("Alice", "secret").block();
+
+        assertThatThrownBy(() -> client.passwordGrant("alice", "secret").block())
+                .isInstanceOf(LoginRateLimitedException.class);
+        assertThat(client.passwordGrant("bob", "secret").block()).isNotNull();
+        assertThat(tokenCalls).hasValue(3);
+    }
+}
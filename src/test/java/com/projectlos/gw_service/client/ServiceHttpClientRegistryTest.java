@@ -0,0 +1,169 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamPoolProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciles the per-service pools with a route table the test replaces between refreshes.
+ * A pool without connections reports itself disposed, so every pool whose state is checked
+ * first sends a request to a stub upstream.
+ */
+class ServiceHttpClientRegistryTest {
+
+    private static final Duration GRACE_PERIOD = Duration.ofMillis(100);
+
+    private final DisposableServer upstream = HttpServer.create().port(0)
+            .handle((request, response) -> response.sendString(Mono.just("ok")))
+            .bindNow();
+    private final String loansUri = "http://localhost:" + upstream.port();
+    private final String auditUri = "http://127.0.0.1:" + upstream.port();
+
+    private final RouteTable routeTable = mock(RouteTable.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServiceHttpClientRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    ServiceHttpClientRegistryTest() {
+        routes(route("loans", "loan-service", loansUri, 50),
+                route("loan-documents", "loan-service", loansUri, null),
+                route("audit", "audit-service", auditUri + ",http://audit-2:8080", null));
+        CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+        when(customRouteLocator.getRouteTable()).thenAnswer(invocation -> routeTable);
+        UpstreamPoolProperties poolProperties = new UpstreamPoolProperties();
+        poolProperties.setDisposeGracePeriod(GRACE_PERIOD);
+        HttpClientProperties httpClientProperties = new HttpClientProperties();
+        ServerProperties serverProperties = new ServerProperties();
+        ObjectProvider<HttpClientCustomizer> customizers = mock(ObjectProvider.class);
+        when(customizers.orderedStream()).thenAnswer(invocation -> Stream.empty());
+        registry = new ServiceHttpClientRegistry(customRouteLocator, poolProperties, httpClientProperties,
+                serverProperties, new HttpClientSslConfigurer(httpClientProperties.getSsl(), serverProperties),
+                customizers, meterRegistry);
+    }
+
+    @AfterEach
+    void dispose() {
+        registry.dispose();
+        upstream.disposeNow();
+    }
+
+    @Test
+    void createsOnePoolPerServiceWithItsRouteSettings() {
+        HttpClient loans = registry.getHttpClient("loan-service");
+        HttpClient audit = registry.getHttpClient("audit-service");
+
+        assertThat(loans).isNotNull().isNotSameAs(audit);
+        assertThat(pool(loans)).isNotSameAs(pool(audit));
+        assertThat(pool(loans).maxConnections()).isEqualTo(50);
+        assertThat(pool(audit).maxConnections()).isEqualTo(new UpstreamPoolProperties().getMaxConnections());
+        assertThat(registry.getHttpClient("unknown-service")).isNull();
+
+        assertThat(registry.getConnector(URI.create("http://AUDIT-2:8080/api/audit")))
+                .isSameAs(registry.getConnector(URI.create(auditUri + "/api/audit")))
+                .isNotSameAs(registry.getConnector(URI.create(loansUri + "/api/loans")))
+                .isNotSameAs(registry.getConnector(URI.create("http://elsewhere:8080/")));
+    }
+
+    @Test
+    void replacesOnlyPoolsWhoseSettingsChangedAndClosesTheOldOneAfterTheGracePeriod() throws InterruptedException {
+        HttpClient loans = call(registry.getHttpClient("loan-service"), loansUri);
+        HttpClient audit = call(registry.getHttpClient("audit-service"), auditUri);
+
+        routes(route("loans", "loan-service", loansUri, 80),
+                route("loan-documents", "loan-service", loansUri, null),
+                route("audit", "audit-service", auditUri + ",http://audit-2:8080", null));
+        registry.reconcile();
+
+        HttpClient replaced = call(registry.getHttpClient("loan-service"), loansUri);
+        assertThat(replaced).isNotSameAs(loans);
+        assertThat(pool(replaced).maxConnections()).isEqualTo(80);
+        assertThat(registry.getHttpClient("audit-service")).isSameAs(audit);
+        // In-flight requests keep the old pool until the grace period is over
+        assertThat(pool(loans).isDisposed()).isFalse();
+
+        awaitDisposed(pool(loans));
+        assertThat(pool(replaced).isDisposed()).isFalse();
+        assertThat(pool(audit).isDisposed()).isFalse();
+        assertThat(meterRegistry.find("gateway.upstream.pool.active").tag("service", "loan-service").gauge()).isNotNull();
+    }
+
+    @Test
+    void closesThePoolAndDropsTheGaugesOfRemovedServices() throws InterruptedException {
+        HttpClient loans = call(registry.getHttpClient("loan-service"), loansUri);
+        HttpClient audit = call(registry.getHttpClient("audit-service"), auditUri);
+        assertThat(meterRegistry.find("gateway.upstream.pool.active").tag("service", "audit-service").gauge()).isNotNull();
+
+        routes(route("loans", "loan-service", loansUri, 50),
+                route("loan-documents", "loan-service", loansUri, null));
+        registry.reconcile();
+
+        assertThat(registry.getHttpClient("audit-service")).isNull();
+        assertThat(registry.getConnector(URI.create(auditUri + "/api/audit")))
+                .isSameAs(registry.getConnector(URI.create("http://elsewhere:8080/")));
+
+        awaitDisposed(pool(audit));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!meterRegistry.find("gateway.upstream.pool.active").tag("service", "audit-service").gauges().isEmpty()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(meterRegistry.find("gateway.upstream.pool.active").tag("service", "audit-service").gauges()).isEmpty();
+        assertThat(meterRegistry.find("gateway.upstream.pool.utilisation").tag("service", "audit-service").gauges()).isEmpty();
+        assertThat(registry.getHttpClient("loan-service")).isSameAs(loans);
+        assertThat(pool(loans).isDisposed()).isFalse();
+    }
+
+    private void routes(RouteConfig... routes) {
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(routes));
+    }
+
+    private static HttpClient call(HttpClient httpClient, String uri) {
+        httpClient.get().uri(uri + "/api/ping")
+                .responseSingle((response, body) -> body.asString())
+                .block(Duration.ofSeconds(5));
+        return httpClient;
+    }
+
+    private static ConnectionProvider pool(HttpClient httpClient) {
+        return httpClient.configuration().connectionProvider();
+    }
+
+    private static void awaitDisposed(ConnectionProvider pool) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!pool.isDisposed() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(pool.isDisposed()).isTrue();
+    }
+
+    private static RouteConfig route(String routeId, String serviceName, String uri, Integer maxConnections) {
+        return RouteConfig.builder()
+                .routeId(routeId).pathPattern("/api/" + routeId + "/**").uri(uri).serviceName(serviceName)
+                .poolMaxConnections(maxConnections)
+                .requiresAuth(false).isActive(true).priority(10)
+                .build();
+    }
+}
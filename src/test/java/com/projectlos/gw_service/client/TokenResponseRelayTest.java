@@ -0,0 +1,74 @@
+package com.projectlos.gw_service.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenResponseRelayTest {
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    @Test
+    void splicesGatewayFieldsAfterOpeningBrace() {
+        Flux<DataBuffer> body = Flux.just(buffer(" {\"access_token\":\"a"), buffer("bc\",\"expires_in\":300}"));
+
+        String relayed = join(TokenResponseRelay.relay(body, bytes("{\"username\":\"maker01\"}"), bufferFactory));
+
+        assertThat(relayed).isEqualTo("{\"username\":\"maker01\",\"access_token\":\"abc\",\"expires_in\":300}");
+    }
+
+    @Test
+    void leavesNonObjectBodyUntouched() {
+        String relayed = join(TokenResponseRelay.relay(Flux.just(buffer("[1,2]")), bytes("{\"a\":1}"), bufferFactory));
+
+        assertThat(relayed).isEqualTo("[1,2]");
+    }
+
+    @Test
+    void emptyObjectBecomesTheGatewayFields() {
+        Flux<DataBuffer> body = Flux.just(buffer("{ \n"), buffer(" }\n"));
+
+        String relayed = join(TokenResponseRelay.relay(body, bytes("{\"username\":\"maker01\"}"), bufferFactory));
+
+        assertThat(relayed).isEqualTo("{\"username\":\"maker01\"}");
+    }
+
+    @Test
+    void bodyFailingHalfwayEmitsNothingBeforeTheError() {
+        Flux<DataBuffer> body = Flux.concat(Flux.just(buffer("{\"access_token\":\"a")),
+                Flux.error(new IllegalStateException("connection reset")));
+
+        StepVerifier.create(TokenResponseRelay.relay(body, bytes("{\"a\":1}"), bufferFactory))
+                .expectErrorMessage("connection reset")
+                .verify();
+    }
+
+    @Test
+    void truncatedObjectIsAnErrorNotAPartialBody() {
+        Flux<DataBuffer> body = Flux.just(buffer("{\"access_token\":\"abc\""));
+
+        StepVerifier.create(TokenResponseRelay.relay(body, bytes("{\"a\":1}"), bufferFactory))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    private DataBuffer buffer(String text) {
+        return bufferFactory.wrap(bytes(text));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String join(Flux<DataBuffer> buffers) {
+        DataBuffer joined = DataBufferUtils.join(buffers).block();
+        return joined.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.projectlos.gw_service.client;
+
+import com.projectlos.gw_service.config.UpstreamResilienceProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamResilienceTest {
+
+    private final UpstreamResilienceProperties properties = new UpstreamResilienceProperties();
+    private final UpstreamResilience resilience = new UpstreamResilience(
+            CircuitBreakerRegistry.ofDefaults(), properties, new SimpleMeterRegistry());
+
+    @Test
+    void backoffIsJitteredBelowTheExponentialCeiling() {
+        Duration base = Duration.ofMillis(50);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(resilience.backoff(base, 0)).isBetween(Duration.ZERO, base);
+            assertThat(resilience.backoff(base, 2)).isBetween(Duration.ZERO, Duration.ofMillis(200));
+            assertThat(resilience.backoff(base, 30)).isBetween(Duration.ZERO, properties.getMaxRetryBackoff());
+        }
+    }
+
+    @Test
+    void onlyConnectionFailuresAndTimeoutsAreRetried() {
+        assertThat(resilience.isRetryable(new ConnectException("refused"))).isTrue();
+        assertThat(resilience.isRetryable(new TimeoutException())).isTrue();
+        assertThat(resilience.isRetryable(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "timeout",
+                new org.springframework.cloud.gateway.support.TimeoutException("timeout")))).isTrue();
+        assertThat(resilience.isRetryable(new ResponseStatusException(HttpStatus.BAD_GATEWAY))).isFalse();
+        assertThat(resilience.isRetryable(new IllegalStateException())).isFalse();
+    }
+
+    @Test
+    void policyIsCompiledOnlyForRoutesThatUseIt() {
+        RouteConfig plain = RouteConfig.builder().routeId("plain").serviceName("loan-service").build();
+        assertThat(ResiliencePolicy.of(plain, properties)).isNull();
+
+        RouteConfig resilient = RouteConfig.builder().routeId("loans").serviceName("loan-service")
+                .retryAttempts(2).hedgeDelayMs(150L).circuitBreakerEnabled(true).build();
+        assertThat(ResiliencePolicy.of(resilient, properties)).isEqualTo(new ResiliencePolicy(
+                2, properties.getRetryBackoff(), Duration.ofMillis(150), "loan-service"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.projectlos.gw_service.compression;
+
+import com.github.luben.zstd.Zstd;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.compression.DecompressionException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingCompressionTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void gzipEncodesChunkByChunk() throws IOException {
+        byte[] payload = payload(200_000);
+
+        byte[] encoded = join(StreamingCompression.encode(chunks(payload, 8192), () -> ContentCoding.GZIP.newEncoder(6),
+                bufferFactory));
+
+        assertThat(encoded.length).isLessThan(payload.length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(in.readAllBytes()).isEqualTo(payload);
+        }
+    }
+
+    @Test
+    void zstdEncodesWhenAvailable() {
+        assertThat(ContentCoding.ZSTD.canEncode()).isTrue();
+        byte[] payload = payload(100_000);
+
+        byte[] encoded = join(StreamingCompression.encode(chunks(payload, 16384), () -> ContentCoding.ZSTD.newEncoder(3),
+                bufferFactory));
+
+        assertThat(encoded.length).isLessThan(payload.length / 4);
+        assertThat(Zstd.decompress(encoded, payload.length)).isEqualTo(payload);
+    }
+
+    @Test
+    void decodesGzipRequestBodies() throws IOException {
+        byte[] payload = payload(50_000);
+
+        byte[] decoded = join(StreamingCompression.decode(chunks(gzip(payload), 1024), ContentCoding.GZIP::newDecoder,
+                bufferFactory, payload.length));
+
+        assertThat(decoded).isEqualTo(payload);
+    }
+
+    @Test
+    void decodesZstdRequestBodiesAcrossChunksAndFrames() {
+        assertThat(ContentCoding.ZSTD.canDecode()).isTrue();
+        byte[] first = payload(120_000);
+        byte[] second = payload(30_000);
+        byte[] encoded = concat(Zstd.compress(first, 3), Zstd.compress(second, 3));
+
+        byte[] decoded = join(StreamingCompression.decode(chunks(encoded, 700), ContentCoding.ZSTD::newDecoder,
+                bufferFactory, first.length + second.length));
+
+        assertThat(decoded).isEqualTo(concat(first, second));
+    }
+
+    @Test
+    void rejectsTruncatedAndMalformedZstdBodies() {
+        byte[] encoded = Zstd.compress(payload(50_000), 3);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+        StepVerifier.create(StreamingCompression.decode(chunks(truncated, 1024), ContentCoding.ZSTD::newDecoder,
+                        bufferFactory, 1_000_000).doOnNext(DataBufferUtils::release))
+                .verifyError(DecompressionException.class);
+        StepVerifier.create(StreamingCompression.decode(chunks(payload(5_000), 1024), ContentCoding.ZSTD::newDecoder,
+                        bufferFactory, 1_000_000).doOnNext(DataBufferUtils::release))
+                .verifyError(DecompressionException.class);
+    }
+
+    @Test
+    void failsOnceDecodedBodyExceedsTheLimit() throws IOException {
+        byte[] bomb = gzip(new byte[10_000_000]);
+
+        StepVerifier.create(StreamingCompression.decode(chunks(bomb, 1024), ContentCoding.GZIP::newDecoder,
+                        bufferFactory, 1_000_000).doOnNext(DataBufferUtils::release))
+                .verifyError(DataBufferLimitException.class);
+    }
+
+    @Test
+    void negotiatesByQualityThenServerPreference() {
+        List<ContentCoding> offered = List.of(ContentCoding.ZSTD, ContentCoding.BROTLI, ContentCoding.GZIP);
+
+        assertThat(ContentCoding.negotiate(List.of("gzip, deflate, br, zstd"), offered)).isEqualTo(ContentCoding.ZSTD);
+        assertThat(ContentCoding.negotiate(List.of("gzip;q=1.0, zstd;q=0.5"), offered)).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate(List.of("*;q=0.3", "zstd;q=0"), offered)).isEqualTo(ContentCoding.BROTLI);
+        assertThat(ContentCoding.negotiate(List.of("identity"), offered)).isNull();
+        assertThat(ContentCoding.negotiate(null, offered)).isNull();
+    }
+
+    private static byte[] payload(int size) {
+        StringBuilder json = new StringBuilder(size + 128).append('[');
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"loanId\":").append(i)
+                    .append(",\"status\":\"UNDER_REVIEW\",\"amount\":").append(1000 + i * 37 % 9000)
+                    .append(",\"documents\":[\"ktp\",\"npwp\",\"salary-slip\"]},");
+        }
+        return json.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Flux<DataBuffer> chunks(byte[] bytes, int chunkSize) {
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(i -> {
+                    int offset = i * chunkSize;
+                    DataBuffer buffer = bufferFactory.allocateBuffer(chunkSize);
+                    buffer.write(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+                    return buffer;
+                });
+    }
+
+    private static byte[] join(Flux<DataBuffer> body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.doOnNext(buffer -> {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            out.writeBytes(bytes);
+            DataBufferUtils.release(buffer);
+        }).blockLast();
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.projectlos.gw_service.concurrency;
+
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveConcurrencyLimitersTest {
+
+    private final RouteTable routeTable = mock(RouteTable.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiters limiters;
+
+    AdaptiveConcurrencyLimitersTest() {
+        CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+        when(customRouteLocator.getRouteTable()).thenAnswer(invocation -> routeTable);
+        limiters = new AdaptiveConcurrencyLimiters(new AdaptiveConcurrencyProperties(), customRouteLocator, meterRegistry);
+    }
+
+    @Test
+    void dropsTheLimitersAndMetersOfRemovedServices() {
+        routes(route("loans", "loan-service"), route("audit", "audit-service"));
+        AdaptiveLimiter loans = limiters.limiter("loan-service");
+        AdaptiveLimiter audit = limiters.limiter("audit-service");
+        assertThat(limiters.limiter("audit-service")).isSameAs(audit);
+        assertThat(meterRegistry.find("gateway.concurrency.limit").tag("service", "audit-service").gauge()).isNotNull();
+
+        routes(route("loans", "loan-service"), route("audit", null));
+        limiters.reconcile();
+
+        assertThat(meterRegistry.find("gateway.concurrency.limit").tag("service", "audit-service").gauges()).isEmpty();
+        assertThat(meterRegistry.find("gateway.concurrency.inflight").tag("service", "audit-service").gauges()).isEmpty();
+        assertThat(meterRegistry.find("gateway.concurrency.rejected").tag("service", "audit-service").functionCounters()).isEmpty();
+        assertThat(meterRegistry.find("gateway.concurrency.limit").tag("service", "loan-service").gauge()).isNotNull();
+        assertThat(limiters.limiter("loan-service")).isSameAs(loans);
+        // A service that comes back starts over
+        assertThat(limiters.limiter("audit-service")).isNotSameAs(audit);
+        assertThat(meterRegistry.find("gateway.concurrency.limit").tag("service", "audit-service").gauges()).hasSize(1);
+    }
+
+    private void routes(RouteConfig... routes) {
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(routes));
+    }
+
+    private static RouteConfig route(String routeId, String serviceName) {
+        return RouteConfig.builder()
+                .routeId(routeId).pathPattern("/api/" + routeId + "/**").uri("http://" + routeId + ":8080")
+                .serviceName(serviceName).requiresAuth(false).isActive(true).priority(10)
+                .build();
+    }
+}
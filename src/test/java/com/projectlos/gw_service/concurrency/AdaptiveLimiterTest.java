@@ -0,0 +1,83 @@
+package com.projectlos.gw_service.concurrency;
+
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTest {
+
+    private static final long WINDOW = Duration.ofMillis(100).toNanos();
+    private static final long RTT = Duration.ofMillis(20).toNanos();
+
+    @Test
+    void rejectsOverTheLimitAndBacksOffAfterOverload() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties(10), 0);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.rejected()).isEqualTo(1);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.complete(RTT, i == 0, WINDOW);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(9);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void growsWhileRoundTripsHoldAndShrinksWhenTheyDegrade() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties(10), 0);
+        long now = 0;
+        for (int window = 0; window < 20; window++) {
+            now = saturatedWindow(limiter, RTT, now);
+        }
+        int healthyLimit = limiter.limit();
+        assertThat(healthyLimit).isGreaterThan(10);
+
+        // Each slow window takes about a tenth off the limit
+        for (int window = 0; window < 20; window++) {
+            now = saturatedWindow(limiter, RTT * 5, now);
+        }
+        assertThat(limiter.limit()).isLessThan(healthyLimit / 2);
+    }
+
+    @Test
+    void doesNotGrowTheLimitWhileDemandStaysBelowHalfOfIt() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties(40), 0);
+        for (int window = 1; window <= 20; window++) {
+            for (int i = 0; i < 10; i++) {
+                limiter.tryAcquire();
+                limiter.complete(RTT, false, window * WINDOW);
+            }
+        }
+
+        assertThat(limiter.limit()).isEqualTo(40);
+    }
+
+    /**
+     * Keeps the limiter full for one window, completing every call after {@code rttNanos}.
+     */
+    private static long saturatedWindow(AdaptiveLimiter limiter, long rttNanos, long now) {
+        int calls = 0;
+        while (limiter.tryAcquire()) {
+            calls++;
+        }
+        long end = now + WINDOW;
+        for (int i = 0; i < calls; i++) {
+            limiter.complete(rttNanos, false, end);
+        }
+        return end;
+    }
+
+    private static AdaptiveConcurrencyProperties properties(int initialLimit) {
+        AdaptiveConcurrencyProperties properties = new AdaptiveConcurrencyProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinWindowSamples(1);
+        return properties;
+    }
+}
@@ -0,0 +1,146 @@
+package com.projectlos.gw_service.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.entity.RouteConfig;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Sends batches through the gateway to a slow stub upstream and checks that the
+ * sub-requests run concurrently and are routed and authorized one by one.
+ */
+class BatchControllerTest extends GatewayIntegrationTestSupport {
+
+    private static final Duration UPSTREAM_DELAY = Duration.ofMillis(500);
+    private static final String BEARER = "Bearer officer-token";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static DisposableServer upstream;
+
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .sendString(Mono.just("{\"uri\":\"" + request.uri() + "\"}")
+                                .delayElement(request.uri().contains("slow") ? Duration.ofSeconds(3) : UPSTREAM_DELAY)))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void signInAndInstallRoutes() {
+        given(jwtDecoder.decode(anyString())).willReturn(Mono.just(Jwt.withTokenValue("officer-token")
+                .header("alg", "RS256")
+                .claim("preferred_username", "officer")
+                .claim("realm_access", Map.of("roles", List.of("LOAN_OFFICER")))
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build()));
+        installRoutes(securedRoute("batch-loans", "/api/batch-loans/**", null),
+                securedRoute("batch-audit", "/api/batch-audit/**", "AUDITOR"));
+    }
+
+    @Test
+    void runsSubRequestsConcurrently() throws Exception {
+        String batch = batch(IntStream.rangeClosed(1, 6).mapToObj(i -> "/api/batch-loans/" + i).toList());
+        post(batch, BEARER);
+
+        long start = System.nanoTime();
+        Response response = post(batch, BEARER);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(response.status()).isEqualTo(200);
+        List<Map<String, Object>> parts = objectMapper.readValue(response.body(), new TypeReference<>() {
+        });
+        assertThat(parts).hasSize(6).allSatisfy(part -> {
+            assertThat(part.get("status")).isEqualTo(200);
+            assertThat(part.get("body")).isEqualTo(Map.of("uri", "/api/batch-loans/" + part.get("id")));
+        });
+        // Six sequential calls would take 3s
+        assertThat(elapsed).isLessThan(UPSTREAM_DELAY.multipliedBy(3));
+    }
+
+    @Test
+    void routesAndAuthorizesEachSubRequest() throws Exception {
+        Response response = post(batch(List.of("/api/batch-loans/7", "/api/batch-audit/8",
+                "/api/batch-nowhere/9", "/api/batch-loans/slow")), BEARER);
+
+        assertThat(response.status()).isEqualTo(200);
+        List<Map<String, Object>> parts = objectMapper.readValue(response.body(), new TypeReference<>() {
+        });
+        Map<Object, Object> statuses = parts.stream().collect(Collectors.toMap(part -> part.get("id"), part -> part.get("status")));
+        assertThat(statuses).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "7", 200,
+                "8", 403,
+                "9", 404,
+                "slow", 504));
+    }
+
+    @Test
+    void rejectsAnonymousAndOversizedBatches() {
+        String batch = batch(List.of("/api/batch-loans/1"));
+        assertThat(post(batch, null).status()).isEqualTo(401);
+
+        String oversized = batch(IntStream.rangeClosed(1, 9).mapToObj(i -> "/api/batch-loans/" + i).toList());
+        assertThat(post(oversized, BEARER).status()).isEqualTo(400);
+    }
+
+    private Response post(String body, String authorization) {
+        return HttpClient.create()
+                .headers(headers -> {
+                    headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    if (authorization != null) {
+                        headers.set(HttpHeaderNames.AUTHORIZATION, authorization);
+                    }
+                })
+                .post().uri("http://localhost:" + port + "/gateway/batch")
+                .send(ByteBufFlux.fromString(Mono.just(body)))
+                .responseSingle((response, content) -> content.asString()
+                        .defaultIfEmpty("")
+                        .map(text -> new Response(response.status().code(), text)))
+                .block(Duration.ofSeconds(30));
+    }
+
+    private static String batch(List<String> paths) {
+        return paths.stream()
+                .map(path -> "{\"id\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\",\"path\":\"" + path + "\"}")
+                .collect(Collectors.joining(",", "{\"requests\":[", "]}"));
+    }
+
+    private static RouteConfig securedRoute(String routeId, String pathPattern, String roles) {
+        return route(routeId, pathPattern, "http://localhost:" + upstream.port())
+                .requiresAuth(true).roles(roles)
+                .build();
+    }
+
+    private record Response(int status, String body) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.concurrency.AdaptiveConcurrencyLimiters;
+import com.projectlos.gw_service.concurrency.AdaptiveLimiter;
+import com.projectlos.gw_service.config.AdaptiveConcurrencyProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a closed loop of clients through the gateway at a stub service that can serve
+ * {@value #CAPACITY} requests at a time, first healthy and then with every request ten
+ * times slower, and watches the service's adaptive limit.
+ */
+class AdaptiveConcurrencyFilterTest extends GatewayIntegrationTestSupport {
+
+    private static final int CAPACITY = 4;
+    private static final int CLIENTS = 16;
+    private static final Duration HEALTHY_SERVICE_TIME = Duration.ofMillis(20);
+    private static final Duration DEGRADED_SERVICE_TIME = Duration.ofMillis(200);
+    private static final Duration PHASE = Duration.ofSeconds(4);
+
+    private static final AtomicInteger upstreamInFlight = new AtomicInteger();
+    private static volatile Duration serviceTime = HEALTHY_SERVICE_TIME;
+    private static DisposableServer upstream;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiters limiters;
+    @Autowired
+    private AdaptiveConcurrencyProperties properties;
+
+    @BeforeAll
+    static void startUpstream() {
+        // Requests beyond the capacity share it, so they take proportionally longer
+        upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    int inFlight = upstreamInFlight.incrementAndGet();
+                    Duration delay = serviceTime.multipliedBy(Math.max(1, (inFlight + CAPACITY - 1) / CAPACITY));
+                    return response.sendString(Mono.just("ok").delayElement(delay))
+                            .then()
+                            .doFinally(signal -> upstreamInFlight.decrementAndGet());
+                })
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void enableLimits() {
+        installRoutes(route("loan-warmup", "/api/adaptive-warmup/**", "http://localhost:" + upstream.port()).build(),
+                route("loan-simulation", "/api/adaptive-loans/**", "http://localhost:" + upstream.port()).build());
+        properties.setEnabled(true);
+    }
+
+    @AfterEach
+    void disableLimits() {
+        properties.setEnabled(false);
+    }
+
+    @Test
+    void shrinksTheLimitAndShedsLoadFastWhenTheServiceDegrades() {
+        AdaptiveLimiter limiter = limiters.limiter("loan-simulation-service");
+        HttpClient client = HttpClient.create(ConnectionProvider.builder("adaptive").maxConnections(CLIENTS).build())
+                .baseUrl("http://localhost:" + port);
+
+        // A cold gateway is slow; it must not set the simulated service's baseline
+        run(client, "/api/adaptive-warmup/", PHASE.dividedBy(2));
+        Phase healthy = run(client, "/api/adaptive-loans/", PHASE);
+        int healthyLimit = limiter.limit();
+
+        serviceTime = DEGRADED_SERVICE_TIME;
+        Phase degraded = run(client, "/api/adaptive-loans/", PHASE);
+        int degradedLimit = limiter.limit();
+
+        assertThat(healthy.served()).isPositive();
+        assertThat(degraded.served()).isPositive();
+        assertThat(degradedLimit).isLessThan(healthyLimit);
+        assertThat(degradedLimit).isLessThan(CLIENTS);
+        assertThat(degraded.rejectedLatencies()).isNotEmpty();
+        // Shed requests are answered well before a single degraded service time
+        List<Long> rejectedMillis = degraded.rejectedLatencies().stream().sorted().toList();
+        assertThat(rejectedMillis.get(rejectedMillis.size() / 2)).isLessThan(DEGRADED_SERVICE_TIME.toMillis() / 2);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    /**
+     * Each client sends its next request as soon as the previous one is answered; a shed
+     * client backs off briefly before trying again.
+     */
+    private Phase run(HttpClient client, String path, Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicInteger served = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> rejectedLatencies = new ConcurrentLinkedQueue<>();
+        Flux.range(0, CLIENTS)
+                .flatMap(clientId -> Mono.defer(() -> {
+                            long start = System.nanoTime();
+                            return client.get().uri(path + clientId)
+                                    .responseSingle((response, body) -> body.asString()
+                                            .then(Mono.just(response.status().code())))
+                                    .flatMap(status -> {
+                                        if (status == 200) {
+                                            served.incrementAndGet();
+                                            return Mono.empty();
+                                        }
+                                        assertThat(status).isEqualTo(503);
+                                        rejectedLatencies.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+                                        return Mono.delay(Duration.ofMillis(20)).then();
+                                    });
+                        })
+                        .repeat(() -> System.nanoTime() < end), CLIENTS)
+                .blockLast(duration.multipliedBy(3));
+        return new Phase(served.get(), List.copyOf(rejectedLatencies));
+    }
+
+    private record Phase(int served, List<Long> rejectedLatencies) {
+    }
+}
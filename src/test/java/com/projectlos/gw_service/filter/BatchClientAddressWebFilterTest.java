@@ -0,0 +1,61 @@
+package com.projectlos.gw_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.batch.BatchDispatcher;
+import com.projectlos.gw_service.config.BatchProperties;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BatchClientAddressWebFilterTest {
+
+    private final BatchDispatcher batchDispatcher = new BatchDispatcher(mock(WebClient.class),
+            mock(CustomRouteLocator.class), new BatchProperties(), new ObjectMapper(), new SimpleMeterRegistry());
+    private final BatchClientAddressWebFilter filter = new BatchClientAddressWebFilter(batchDispatcher);
+
+    @Test
+    void spoofedClientAddressesAreStrippedAndIgnored() {
+        String otherProcess = new BatchDispatcher(mock(WebClient.class), mock(CustomRouteLocator.class),
+                new BatchProperties(), new ObjectMapper(), new SimpleMeterRegistry()).clientAddressHeader("10.0.0.9");
+
+        for (String spoofed : new String[]{"10.0.0.9", "token 10.0.0.9", otherProcess}) {
+            ServerWebExchange filtered = filter(spoofed);
+
+            assertThat(filtered.getRequest().getHeaders().containsKey(BatchDispatcher.CLIENT_ADDRESS_HEADER)).isFalse();
+            assertThat(RateLimitFilter.clientIp(filtered)).isEqualTo("127.0.0.1");
+        }
+    }
+
+    @Test
+    void subRequestsOfThisGatewayCountAgainstTheBatchClient() {
+        ServerWebExchange filtered = filter(batchDispatcher.clientAddressHeader("10.0.0.9"));
+
+        assertThat(filtered.getRequest().getHeaders().containsKey(BatchDispatcher.CLIENT_ADDRESS_HEADER)).isFalse();
+        assertThat(RateLimitFilter.clientIp(filtered)).isEqualTo("10.0.0.9");
+    }
+
+    /**
+     * @return the exchange the filter passes on for a loopback request carrying {@code header}
+     */
+    private ServerWebExchange filter(String header) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/auth/login")
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 40000))
+                .header(BatchDispatcher.CLIENT_ADDRESS_HEADER, header));
+        ServerWebExchange[] filtered = new ServerWebExchange[1];
+        filter.filter(exchange, passed -> {
+            filtered[0] = passed;
+            return Mono.empty();
+        }).block();
+        return filtered[0];
+    }
+}
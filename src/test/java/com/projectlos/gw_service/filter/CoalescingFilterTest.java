@@ -0,0 +1,162 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.coalescing.CoalescingScope;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires bursts of identical GETs at a coalescing route backed by a slow stub upstream and
+ * counts the upstream calls that reach it.
+ */
+class CoalescingFilterTest extends GatewayIntegrationTestSupport {
+
+    private static final int BURST = 50;
+    private static final Duration UPSTREAM_DELAY = Duration.ofMillis(500);
+
+    private static final AtomicInteger upstreamCalls = new AtomicInteger();
+    private static DisposableServer upstream;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private HttpClient client;
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    int call = upstreamCalls.incrementAndGet();
+                    if (request.uri().contains("/session")) {
+                        response.header(HttpHeaderNames.SET_COOKIE, "SESSION=" + call);
+                    }
+                    return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just("{\"uri\":\"" + request.uri() + "\",\"call\":" + call + "}")
+                                    .delayElement(UPSTREAM_DELAY));
+                })
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void installRoute() {
+        installRoutes(route("task-list", "/api/coalesced-tasks/**", "http://localhost:" + upstream.port())
+                .coalesceEnabled(true)
+                .addResponseHeaders("X-Served-By: gateway")
+                .build());
+        client = HttpClient.create(ConnectionProvider.builder("burst").maxConnections(2 * BURST).build())
+                .baseUrl("http://localhost:" + port);
+    }
+
+    @Test
+    void identicalConcurrentGetsShareOneUpstreamCall() {
+        int before = upstreamCalls.get();
+        double coalescedBefore = requests("coalesced");
+
+        List<String> bodies = Flux.merge(
+                        burst("/api/coalesced-tasks/inbox?status=OPEN"),
+                        burst("/api/coalesced-tasks/inbox?status=CLOSED"))
+                .collectList()
+                .block(Duration.ofMinutes(1));
+
+        assertThat(bodies).hasSize(2 * BURST);
+        assertThat(bodies.stream().distinct()).hasSize(2);
+        assertThat(upstreamCalls.get() - before).isEqualTo(2);
+        assertThat(requests("coalesced") - coalescedBefore).isEqualTo(2 * BURST - 2);
+    }
+
+    @Test
+    void responsesSettingCookiesAreNotShared() {
+        int before = upstreamCalls.get();
+        double coalescedBefore = requests("coalesced");
+
+        List<String> bodies = burst("/api/coalesced-tasks/session").collectList().block(Duration.ofMinutes(1));
+
+        assertThat(bodies).hasSize(BURST);
+        assertThat(upstreamCalls.get() - before).isEqualTo(BURST);
+        assertThat(requests("coalesced") - coalescedBefore).isZero();
+    }
+
+    @Test
+    void scopeDefaultsToUserAndUnknownScopesDisableCoalescing() {
+        CoalescingFilter.Policies policies = CoalescingFilter.Policies.compile(routeTable(
+                coalescing("default", null), coalescing("roles", "roles"), coalescing("global", "GLOBAL"),
+                coalescing("typo", "ROLE")), null, new SimpleMeterRegistry());
+
+        assertThat(policies.byRoute().get("default").scope()).isEqualTo(CoalescingScope.USER);
+        assertThat(policies.byRoute().get("roles").scope()).isEqualTo(CoalescingScope.ROLES);
+        assertThat(policies.byRoute().get("global").scope()).isEqualTo(CoalescingScope.GLOBAL);
+        assertThat(policies.byRoute()).doesNotContainKey("typo");
+    }
+
+    @Test
+    void collapseRatioGaugesFollowTheCoalescingRoutes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CoalescingFilter.Policies first = CoalescingFilter.Policies.compile(
+                routeTable(coalescing("inbox", null), coalescing("tasks", "ROLES")), null, registry);
+        first.byRoute().get("inbox").coalesced().increment();
+
+        CoalescingFilter.Policies second = CoalescingFilter.Policies.compile(
+                routeTable(coalescing("inbox", "USER")), first, registry);
+
+        assertThat(second.byRoute().get("inbox").collapseRatio()).isSameAs(first.byRoute().get("inbox").collapseRatio());
+        assertThat(registry.find("gateway.coalescing.collapse.ratio").tag("route", "inbox").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.find("gateway.coalescing.collapse.ratio").tag("route", "tasks").gauge()).isNull();
+        assertThat(registry.find("gateway.coalescing.requests").tag("route", "tasks").counters()).isEmpty();
+    }
+
+    private static RouteTable routeTable(RouteConfig... routeConfigs) {
+        RouteTable routeTable = mock(RouteTable.class);
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(routeConfigs));
+        return routeTable;
+    }
+
+    private static RouteConfig coalescing(String routeId, String scope) {
+        return RouteConfig.builder().routeId(routeId).coalesceEnabled(true).coalesceScope(scope).build();
+    }
+
+    private double requests(String result) {
+        Counter counter = meterRegistry.find("gateway.coalescing.requests")
+                .tag("route", "task-list").tag("result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private Flux<String> burst(String uri) {
+        return Flux.range(0, BURST)
+                .flatMap(i -> client.get().uri(uri)
+                        .responseSingle((response, body) -> {
+                            assertThat(response.status().code()).isEqualTo(200);
+                            // Followers get the route's response headers along with the leader's
+                            assertThat(response.responseHeaders().get("X-Served-By")).isEqualTo("gateway");
+                            return body.asString();
+                        }), BURST);
+    }
+}
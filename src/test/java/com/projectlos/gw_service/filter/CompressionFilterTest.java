@@ -0,0 +1,151 @@
+package com.projectlos.gw_service.filter;
+
+import com.github.luben.zstd.Zstd;
+import com.projectlos.gw_service.config.CompressionProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompressionFilterTest {
+
+    private static final byte[] BODY = "{\"loans\":[".concat("{\"status\":\"UNDER_REVIEW\"},".repeat(200)).concat("{}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final CompressionFilter filter;
+    private final Route route = Route.async().id("loans").uri("http://localhost").predicate(exchange -> true).build();
+
+    CompressionFilterTest() {
+        RouteTable routeTable = mock(RouteTable.class);
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(RouteConfig.builder()
+                .routeId("loans").compressionEnabled(true).compressionMinSize(1024)
+                .requestDecompressionEnabled(true)
+                .build()));
+        CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+        when(customRouteLocator.getRouteTable()).thenReturn(routeTable);
+        filter = new CompressionFilter(customRouteLocator, new CompressionProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void encodesWithTheClientsPreferredCodingAndVariesOnAcceptEncoding() throws IOException {
+        MockServerWebExchange gzip = respond("gzip;q=1.0, zstd;q=0.5", BODY, headers -> { });
+        assertThat(gzip.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getResponse().getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gzip.getResponse().getHeaders().getContentLength()).isEqualTo(-1);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body(gzip)))) {
+            assertThat(in.readAllBytes()).isEqualTo(BODY);
+        }
+
+        MockServerWebExchange zstd = respond("gzip, br, zstd", BODY, headers -> { });
+        assertThat(zstd.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("zstd");
+        assertThat(Zstd.decompress(body(zstd), BODY.length)).isEqualTo(BODY);
+
+        MockServerWebExchange identity = respond("identity", BODY, headers -> headers.setVary(List.of("Origin")));
+        assertThat(identity.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(identity.getResponse().getHeaders().getVary()).containsExactly("Origin", HttpHeaders.ACCEPT_ENCODING);
+        assertThat(body(identity)).isEqualTo(BODY);
+    }
+
+    @Test
+    void leavesResponsesBelowTheMinimumSizeAlone() {
+        byte[] small = "{\"status\":\"APPROVED\"}".getBytes(StandardCharsets.UTF_8);
+
+        MockServerWebExchange exchange = respond("gzip", small, headers -> { });
+
+        assertThat(exchange.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(exchange.getResponse().getHeaders().getContentLength()).isEqualTo(small.length);
+        assertThat(body(exchange)).isEqualTo(small);
+    }
+
+    @Test
+    void leavesAlreadyEncodedResponsesAlone() {
+        byte[] encoded = Zstd.compress(BODY, 3);
+
+        MockServerWebExchange exchange = respond("gzip", encoded, headers -> headers.set(HttpHeaders.CONTENT_ENCODING, "zstd"));
+
+        assertThat(exchange.getResponse().getHeaders().get(HttpHeaders.CONTENT_ENCODING)).containsExactly("zstd");
+        assertThat(body(exchange)).isEqualTo(encoded);
+    }
+
+    @Test
+    void weakensStrongEtagsOfEncodedResponsesOnly() {
+        assertThat(respond("gzip", BODY, headers -> headers.setETag("\"v7\"")).getResponse().getHeaders().getETag())
+                .isEqualTo("W/\"v7\"");
+        assertThat(respond("gzip", BODY, headers -> headers.setETag("W/\"v7\"")).getResponse().getHeaders().getETag())
+                .isEqualTo("W/\"v7\"");
+        assertThat(respond("identity", BODY, headers -> headers.setETag("\"v7\"")).getResponse().getHeaders().getETag())
+                .isEqualTo("\"v7\"");
+    }
+
+    @Test
+    void decodesZstdRequestBodies() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "zstd")
+                .body(Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(Zstd.compress(BODY, 3)))));
+        byte[][] forwarded = new byte[1][];
+
+        filter.filter(exchange, filtered -> DataBufferUtils.join(filtered.getRequest().getBody())
+                .doOnNext(buffer -> forwarded[0] = bytes(buffer))
+                .then()).block();
+
+        assertThat(forwarded[0]).isEqualTo(BODY);
+    }
+
+    /**
+     * Runs the filter with a chain that answers 200 with {@code body} as JSON.
+     */
+    private MockServerWebExchange respond(String acceptEncoding, byte[] body, Consumer<HttpHeaders> upstreamHeaders) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/loans")
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding).build());
+        GatewayFilterChain upstream = filtered -> {
+            HttpHeaders headers = filtered.getResponse().getHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(body.length);
+            upstreamHeaders.accept(headers);
+            return filtered.getResponse().writeWith(Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+        };
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private static byte[] body(MockServerWebExchange exchange) {
+        return DataBufferUtils.join(exchange.getResponse().getBody()).map(CompressionFilterTest::bytes).block();
+    }
+
+    private static byte[] bytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+}
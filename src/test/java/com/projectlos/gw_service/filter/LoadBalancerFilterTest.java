@@ -0,0 +1,155 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.config.LoadBalancerProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstance;
+import com.projectlos.gw_service.loadbalancer.UpstreamInstanceRegistry;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Instance selection of a route listing three stub instances, whose health probes
+ * answer for as long as the stubs are up.
+ */
+class LoadBalancerFilterTest {
+
+    private final List<DisposableServer> servers = IntStream.range(0, 3)
+            .mapToObj(i -> HttpServer.create().port(0)
+                    .handle((request, response) -> response.sendString(Mono.just("UP")))
+                    .bindNow())
+            .collect(Collectors.toList());
+    private final List<URI> uris = servers.stream().map(server -> URI.create("http://localhost:" + server.port())).toList();
+
+    private final LoadBalancerProperties properties = new LoadBalancerProperties();
+    private final CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+    private final UpstreamInstanceRegistry registry;
+    private final LoadBalancerFilter filter;
+    private final Route route = Route.async().id("loans").uri("http://localhost").predicate(exchange -> true).build();
+
+    LoadBalancerFilterTest() {
+        properties.getHealthCheck().setTimeout(Duration.ofSeconds(1));
+        RouteTable routeTable = mock(RouteTable.class);
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(RouteConfig.builder()
+                .routeId("loans")
+                .uri(uris.stream().map(URI::toString).collect(Collectors.joining(",")))
+                .build()));
+        when(customRouteLocator.getRouteTable()).thenReturn(routeTable);
+        registry = new UpstreamInstanceRegistry(customRouteLocator, properties, new SimpleMeterRegistry());
+        filter = new LoadBalancerFilter(customRouteLocator, registry, properties);
+    }
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(DisposableServer::disposeNow);
+    }
+
+    @Test
+    void sendsConcurrentRequestsToIdleInstancesAndKeepsPathAndQuery() {
+        Sinks.Empty<Void> first = Sinks.empty();
+        Sinks.Empty<Void> second = Sinks.empty();
+        MockServerWebExchange one = exchange();
+        MockServerWebExchange two = exchange();
+
+        filter.filter(one, pending(first)).subscribe();
+        filter.filter(two, pending(second)).subscribe();
+
+        URI firstUrl = one.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        URI secondUrl = two.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        assertThat(firstUrl.getPath()).isEqualTo("/api/loans/7");
+        assertThat(firstUrl.getRawQuery()).isEqualTo("expand=true");
+        assertThat(Set.of(instanceOf(firstUrl), instanceOf(secondUrl))).hasSize(2).isSubsetOf(uris);
+        first.tryEmitEmpty();
+        second.tryEmitEmpty();
+
+        UpstreamInstance instance = registry.instance(instanceOf(firstUrl));
+        assertThat(((LoadBalancerFilter.Selection) one.getAttribute(LoadBalancerFilter.SELECTION_ATTR)).instance())
+                .isSameAs(instance);
+    }
+
+    @Test
+    void skipsInstancesWhoseHealthProbeFails() {
+        route(exchange());
+        servers.get(0).disposeNow();
+        servers.get(1).disposeNow();
+        awaitAvailable(uris.get(0), false);
+        awaitAvailable(uris.get(1), false);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(route(exchange())).isEqualTo(uris.get(2));
+        }
+    }
+
+    @Test
+    void keepsRoutingToAllInstancesWhenNoneIsInRotation() {
+        route(exchange());
+        servers.forEach(DisposableServer::disposeNow);
+        uris.forEach(uri -> awaitAvailable(uri, false));
+
+        Set<URI> chosen = IntStream.range(0, 100)
+                .mapToObj(i -> route(exchange()))
+                .collect(Collectors.toSet());
+        assertThat(chosen).isNotEmpty().isSubsetOf(uris);
+    }
+
+    private URI route(MockServerWebExchange exchange) {
+        filter.filter(exchange, routed -> Mono.empty()).block();
+        return instanceOf(exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR));
+    }
+
+    private MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/loans/7?expand=true"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://localhost/api/loans/7?expand=true"));
+        return exchange;
+    }
+
+    private void awaitAvailable(URI uri, boolean available) {
+        UpstreamInstance instance = registry.instance(uri);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (instance.isAvailable(System.nanoTime()) != available && System.nanoTime() < deadline) {
+            registry.probe();
+            sleep();
+        }
+        assertThat(instance.isAvailable(System.nanoTime())).isEqualTo(available);
+    }
+
+    private static GatewayFilterChain pending(Sinks.Empty<Void> completion) {
+        return exchange -> completion.asMono();
+    }
+
+    private static URI instanceOf(URI requestUrl) {
+        return URI.create(requestUrl.getScheme() + "://" + requestUrl.getHost() + ":" + requestUrl.getPort());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.config.LoadSheddingProperties;
+import com.projectlos.gw_service.shedding.EventLoopLagProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ramps closed-loop clients onto a low-priority route whose large responses keep the
+ * gateway busy, while a high-priority route is sampled at a fixed rate. The low route is
+ * shed, every high-priority request is served and their p99 stays under a second.
+ * Latencies are not compared with a run without shedding: with about fifty samples the
+ * p99 is the slowest request, which a single GC pause decides.
+ * <p>
+ * The target lag is tiny because client, gateway and upstream share one small machine;
+ * flood clients honour the 503 by backing off briefly, as a Retry-After aware client would.
+ */
+class LoadSheddingWebFilterTest extends GatewayIntegrationTestSupport {
+
+    private static final int FLOOD_CLIENTS = 32;
+    private static final Duration RAMP_STEP = Duration.ofMillis(20);
+    private static final Duration SHED_BACKOFF = Duration.ofMillis(250);
+    private static final Duration RUN = Duration.ofSeconds(5);
+    private static final Duration HIGH_INTERVAL = Duration.ofMillis(100);
+    private static final String REPORT = "x".repeat(64 * 1024);
+
+    private static DisposableServer upstream;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private LoadSheddingProperties properties;
+    @Autowired
+    private EventLoopLagProbe lagProbe;
+
+    private HttpClient flood;
+    private HttpClient sampler;
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/shed-reports/**", (request, response) -> response.sendString(Mono.just(REPORT)))
+                        .get("/api/shed-disbursements/**", (request, response) -> response.sendString(Mono.just("ok"))))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void startShedding() {
+        installRoutes(route("shed-reports", "/api/shed-reports/**", "http://localhost:" + upstream.port()).priority(5).build(),
+                route("shed-disbursements", "/api/shed-disbursements/**", "http://localhost:" + upstream.port()).priority(95).build());
+        // Shedding is off for the other tests in the shared context, so the probe did not start with it
+        properties.setEnabled(true);
+        lagProbe.start();
+        flood = HttpClient.create(ConnectionProvider.builder("flood").maxConnections(FLOOD_CLIENTS).build())
+                .baseUrl("http://localhost:" + port);
+        sampler = HttpClient.create(ConnectionProvider.builder("sampler").maxConnections(64).pendingAcquireMaxCount(-1).build())
+                .baseUrl("http://localhost:" + port);
+    }
+
+    @AfterEach
+    void disableShedding() {
+        properties.setEnabled(false);
+        lagProbe.stop();
+    }
+
+    @Test
+    void shedsLowPriorityTrafficWhileHighPriorityStaysServed() {
+        // Let the JIT settle before anything is measured
+        Flux.range(0, 100)
+                .concatMap(i -> Flux.merge(get(sampler, "/api/shed-disbursements/warm-up"), get(flood, "/api/shed-reports/warm-up")))
+                .blockLast(Duration.ofMinutes(1));
+
+        double lowShedBefore = shed("low");
+        double highShedBefore = shed("high");
+        Phase shedding = run();
+
+        assertThat(shedding.highStatuses()).hasSize((int) RUN.dividedBy(HIGH_INTERVAL)).containsOnly(200);
+        assertThat(shed("high") - highShedBefore).isZero();
+        assertThat(shed("low") - lowShedBefore).isPositive();
+        assertThat(shedding.lowServed()).isPositive();
+        assertThat(shedding.highP99()).isLessThan(Duration.ofSeconds(1));
+    }
+
+    private Phase run() {
+        AtomicInteger lowServed = new AtomicInteger();
+        long deadline = System.nanoTime() + RUN.toNanos();
+        Mono<Void> lowLoad = Flux.interval(RAMP_STEP).take(FLOOD_CLIENTS)
+                .flatMap(client -> Flux.defer(() -> get(flood, "/api/shed-reports/monthly"))
+                        .flatMap(status -> status == 503 ? Mono.just(status).delayElement(SHED_BACKOFF) : Mono.just(status))
+                        .repeat(() -> System.nanoTime() < deadline)
+                        .filter(status -> status == 200)
+                        .doOnNext(status -> lowServed.incrementAndGet()), FLOOD_CLIENTS)
+                .then();
+
+        List<Integer> highStatuses = Collections.synchronizedList(new ArrayList<>());
+        List<Long> highLatencies = Collections.synchronizedList(new ArrayList<>());
+        Mono<Void> highLoad = Flux.interval(HIGH_INTERVAL)
+                .take(RUN.dividedBy(HIGH_INTERVAL))
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return get(sampler, "/api/shed-disbursements/" + i)
+                            .doOnNext(status -> {
+                                highLatencies.add(System.nanoTime() - start);
+                                highStatuses.add(status);
+                            });
+                })
+                .then();
+
+        Mono.when(lowLoad, highLoad).block(Duration.ofMinutes(1));
+
+        Collections.sort(highLatencies);
+        Duration p99 = Duration.ofNanos(highLatencies.get((int) Math.ceil(highLatencies.size() * 0.99) - 1));
+        return new Phase(lowServed.get(), highStatuses, p99);
+    }
+
+    private static Mono<Integer> get(HttpClient client, String uri) {
+        return client.get().uri(uri)
+                .responseSingle((response, body) -> body.asString().defaultIfEmpty("")
+                        .map(ignored -> response.status().code()));
+    }
+
+    private double shed(String priority) {
+        Counter counter = meterRegistry.find("gateway.shedding.shed").tag("class", priority).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private record Phase(int lowServed, List<Integer> highStatuses, Duration highP99) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.client.UpstreamResilience;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retries, hedges and circuit breaking of routes with a resilience policy, against one
+ * stub instance that always answers 503, one that answers, and a pair that answer the
+ * first request to a path late and every later one at once.
+ */
+class PooledNettyRoutingFilterTest extends GatewayIntegrationTestSupport {
+
+    private static final Map<String, AtomicInteger> failingHits = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> healthyHits = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> raceHits = new ConcurrentHashMap<>();
+    private static final Map<String, List<String>> raceInstances = new ConcurrentHashMap<>();
+    private static DisposableServer failing;
+    private static DisposableServer healthy;
+    private static DisposableServer raceA;
+    private static DisposableServer raceB;
+
+    @Autowired
+    private UpstreamResilience upstreamResilience;
+
+    private HttpClient client;
+
+    @BeforeAll
+    static void startUpstreams() {
+        failing = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    hits(failingHits, request.uri());
+                    return response.status(503).sendString(Mono.just("unavailable"));
+                })
+                .bindNow();
+        // The first request to a /api/slow path answers late, every later one at once; the
+        // second request to a /api/hedge-fail path loses its connection
+        healthy = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    int hit = hits(healthyHits, request.uri());
+                    if (request.uri().startsWith("/api/hedge-fail")) {
+                        if (hit > 1) {
+                            response.withConnection(Connection::dispose);
+                            return Mono.never();
+                        }
+                        return response.sendString(Mono.just("ok").delayElement(Duration.ofSeconds(1)));
+                    }
+                    Duration delay = request.uri().startsWith("/api/slow") && hit == 1
+                            ? Duration.ofSeconds(5) : Duration.ofMillis(20);
+                    return response.header("X-Attempt", Integer.toString(hit))
+                            .sendString(Mono.just("ok").delayElement(delay));
+                })
+                .bindNow();
+        raceA = race("a");
+        raceB = race("b");
+    }
+
+    private static DisposableServer race(String name) {
+        return HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    int hit = hits(raceHits, request.uri());
+                    raceInstances.computeIfAbsent(request.uri(), path -> new CopyOnWriteArrayList<>()).add(name);
+                    return response.header("X-Attempt", Integer.toString(hit))
+                            .sendString(Mono.just("ok").delayElement(hit == 1 ? Duration.ofSeconds(5) : Duration.ofMillis(20)));
+                })
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstreams() {
+        failing.disposeNow();
+        healthy.disposeNow();
+        raceA.disposeNow();
+        raceB.disposeNow();
+    }
+
+    @BeforeEach
+    void routes() {
+        installRoutes(
+                route("retry-lb", "/api/retry-lb/**", uri(failing) + "," + uri(healthy))
+                        .retryAttempts(1).build(),
+                route("hedged", "/api/slow/**", uri(healthy))
+                        .hedgeDelayMs(100L).circuitBreakerEnabled(true).build(),
+                route("broken", "/api/broken/**", uri(failing))
+                        .retryAttempts(2).circuitBreakerEnabled(true).build(),
+                route("hedge-fail", "/api/hedge-fail/**", uri(healthy))
+                        .hedgeDelayMs(100L).build(),
+                route("hedge-lb", "/api/hedge-lb/**", uri(raceA) + "," + uri(raceB))
+                        .hedgeDelayMs(100L).build());
+        client = HttpClient.create().baseUrl("http://localhost:" + port);
+    }
+
+    @Test
+    void retriesA5xxOnAnotherInstance() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(get("/api/retry-lb/" + i).status()).isEqualTo(200);
+        }
+        // Every request ended on the instance that answers, whichever it was sent to first
+        assertThat(failingHits.keySet()).anyMatch(path -> path.startsWith("/api/retry-lb/"));
+        for (int i = 0; i < 10; i++) {
+            assertThat(healthyHits.get("/api/retry-lb/" + i)).hasValue(1);
+        }
+    }
+
+    @Test
+    void hedgeAnswersWhenThePrimaryIsSlowAndTheBreakerCountsOneCall() {
+        CircuitBreaker breaker = upstreamResilience.circuitBreaker("hedged-service");
+        int bufferedBefore = breaker.getMetrics().getNumberOfBufferedCalls();
+        double hedgeWinsBefore = hedgeWins("hedged-service");
+
+        long start = System.nanoTime();
+        Result result = get("/api/slow/1");
+
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.attempt()).isEqualTo("2");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(4));
+        assertThat(hedgeWins("hedged-service")).isEqualTo(hedgeWinsBefore + 1);
+        assertThat(breaker.getMetrics().getNumberOfBufferedCalls()).isEqualTo(bufferedBefore + 1);
+    }
+
+    @Test
+    void aFailingHedgeLeavesThePrimaryToAnswer() {
+        Result result = get("/api/hedge-fail/1");
+
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(healthyHits.get("/api/hedge-fail/1")).hasValue(2);
+    }
+
+    @Test
+    void hedgesOfALoadBalancedRouteGoToTheOtherInstance() {
+        for (int i = 0; i < 4; i++) {
+            long start = System.nanoTime();
+            Result result = get("/api/hedge-lb/" + i);
+
+            assertThat(result.status()).isEqualTo(200);
+            assertThat(result.attempt()).isEqualTo("2");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(4));
+            assertThat(raceInstances.get("/api/hedge-lb/" + i)).containsExactlyInAnyOrder("a", "b");
+        }
+    }
+
+    @Test
+    void retriedFailuresCountOnceAndAnOpenBreakerFailsFast() {
+        CircuitBreaker breaker = upstreamResilience.circuitBreaker("broken-service");
+
+        Result first = get("/api/broken/0");
+        assertThat(first.status()).isEqualTo(503);
+        assertThat(failingHits.get("/api/broken/0")).hasValue(3);
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+
+        for (int i = 1; i < 4; i++) {
+            get("/api/broken/" + i);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Result rejected = get("/api/broken/open");
+        assertThat(rejected.status()).isEqualTo(503);
+        assertThat(rejected.retryAfter()).isEqualTo("60");
+        assertThat(failingHits).doesNotContainKey("/api/broken/open");
+    }
+
+    private Result get(String path) {
+        return client.get().uri(path)
+                .responseSingle((response, body) -> body.asString().defaultIfEmpty("")
+                        .map(text -> new Result(response.status().code(),
+                                response.responseHeaders().get("X-Attempt"),
+                                response.responseHeaders().get("Retry-After"))))
+                .block(Duration.ofSeconds(10));
+    }
+
+    private double hedgeWins(String service) {
+        return upstreamResilience.counters(service).hedgeWins().count();
+    }
+
+    private static int hits(Map<String, AtomicInteger> hits, String path) {
+        return hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static String uri(DisposableServer server) {
+        return "http://localhost:" + server.port();
+    }
+
+    private record Result(int status, String attempt, String retryAfter) {
+    }
+}
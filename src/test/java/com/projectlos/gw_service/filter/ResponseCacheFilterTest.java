@@ -0,0 +1,170 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.cache.CachedResponse;
+import com.projectlos.gw_service.cache.GatewayResponseCache;
+import com.projectlos.gw_service.config.ResponseCacheProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheFilterTest {
+
+    private static final ResponseCacheFilter.RouteCachePolicy POLICY =
+            new ResponseCacheFilter.RouteCachePolicy(60, new String[]{"Accept-Language"}, false);
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private GatewayResponseCache responseCache;
+    private ResponseCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RouteTable routeTable = mock(RouteTable.class);
+        when(routeTable.getRouteConfigs()).thenReturn(List.of(
+                RouteConfig.builder().routeId("rates").cacheTtlSeconds(60).cacheVaryHeaders("Accept-Language").build(),
+                RouteConfig.builder().routeId("inbox").cacheTtlSeconds(60).cacheVaryRoles(true).build()));
+        CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+        when(customRouteLocator.getRouteTable()).thenReturn(routeTable);
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        responseCache = new GatewayResponseCache(properties, meterRegistry);
+        filter = new ResponseCacheFilter(responseCache, customRouteLocator, properties, meterRegistry);
+    }
+
+    @Test
+    void keysOnRoutePathQueryVaryHeadersAndRoles() {
+        MockServerWebExchange rates = exchange("rates", MockServerHttpRequest.get("/api/rates/today?ccy=EUR")
+                .header("Accept-Language", "de", "en").header("X-Other", "ignored"));
+        assertThat(filter.cacheKey(rates, "rates", POLICY).block())
+                .isEqualTo("rates\n/api/rates/today?ccy=EUR\nAccept-Language=de,en");
+
+        ServerWebExchange inbox = exchange("inbox", MockServerHttpRequest.get("/api/inbox")).mutate()
+                .principal(Mono.just(new TestingAuthenticationToken("u", "n/a", "ROLE_MAKER", "ROLE_ADMIN")))
+                .build();
+        assertThat(filter.cacheKey(inbox, "inbox", new ResponseCacheFilter.RouteCachePolicy(60, new String[0], true)).block())
+                .isEqualTo("inbox\n/api/inbox\nroles=ROLE_ADMIN,ROLE_MAKER");
+    }
+
+    @Test
+    void servesARepeatedRequestFromTheCache() {
+        assertThat(get("rates", "/api/rates/today", null, "max-age=30")).isEqualTo("MISS");
+        assertThat(get("rates", "/api/rates/today", null, "max-age=30")).isEqualTo("HIT");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void requestsWithAuthorizationAreStoredOnlyWhenTheUpstreamMarksThemShared() {
+        assertThat(get("inbox", "/api/inbox", "Bearer alice", "max-age=30")).isNull();
+        assertThat(get("inbox", "/api/inbox", "Bearer bob", "max-age=30")).isNull();
+        assertThat(upstreamCalls).hasValue(2);
+
+        assertThat(get("rates", "/api/rates/today", "Bearer alice", "public, max-age=30")).isEqualTo("MISS");
+        assertThat(get("rates", "/api/rates/today", "Bearer bob", "public, max-age=30")).isEqualTo("HIT");
+        assertThat(get("rates", "/api/rates/eur", "Bearer alice", "s-maxage=30")).isEqualTo("MISS");
+        assertThat(get("rates", "/api/rates/eur", "Bearer bob", "s-maxage=30")).isEqualTo("HIT");
+        assertThat(upstreamCalls).hasValue(4);
+    }
+
+    @Test
+    void honoursNoStoreAndPrivateResponses() {
+        for (String cacheControl : List.of("no-store", "private", "private=\"X-User\"", "no-cache", "max-age=0")) {
+            assertThat(ResponseCacheFilter.ttlNanos(upstream(cacheControl), POLICY, false)).as(cacheControl).isZero();
+        }
+        HttpHeaders withCookie = upstream("max-age=30");
+        withCookie.add(HttpHeaders.SET_COOKIE, "SESSION=1");
+        assertThat(ResponseCacheFilter.ttlNanos(withCookie, POLICY, false)).isZero();
+
+        assertThat(get("rates", "/api/rates/private", null, "private")).isNull();
+        assertThat(get("rates", "/api/rates/private", null, "private")).isNull();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void storesOnlyWhenEveryVaryHeaderIsPartOfTheKey() {
+        HttpHeaders varyLanguage = upstream("max-age=30");
+        varyLanguage.setVary(List.of("accept-language"));
+        assertThat(ResponseCacheFilter.ttlNanos(varyLanguage, POLICY, false)).isPositive();
+
+        for (String vary : List.of("*", "Accept-Encoding", "Authorization")) {
+            HttpHeaders headers = upstream("max-age=30");
+            headers.setVary(List.of("Accept-Language", vary));
+            assertThat(ResponseCacheFilter.ttlNanos(headers, POLICY, false)).as(vary).isZero();
+        }
+    }
+
+    @Test
+    void ttlIsTheShorterOfRouteAndUpstreamWithSharedMaxAgeFirst() {
+        assertThat(ttlSeconds(null)).isEqualTo(60);
+        assertThat(ttlSeconds("max-age=10")).isEqualTo(10);
+        assertThat(ttlSeconds("max-age=600")).isEqualTo(60);
+        assertThat(ttlSeconds("max-age=10, s-maxage=30")).isEqualTo(30);
+        assertThat(ttlSeconds("s-maxage=0, max-age=30")).isZero();
+        assertThat(ttlSeconds("max-age=soon")).isZero();
+
+        get("rates", "/api/rates/ttl", null, "max-age=10");
+        CachedResponse stored = responseCache.get("rates\n/api/rates/ttl\nAccept-Language=");
+        assertThat(stored.ttlNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+        assertThat(stored.isFresh(stored.storedAtNanos() + TimeUnit.SECONDS.toNanos(10))).isFalse();
+    }
+
+    private static long ttlSeconds(String cacheControl) {
+        return TimeUnit.NANOSECONDS.toSeconds(ResponseCacheFilter.ttlNanos(upstream(cacheControl), POLICY, false));
+    }
+
+    private static HttpHeaders upstream(String cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+        return headers;
+    }
+
+    /**
+     * @return the X-Cache header of the response
+     */
+    private String get(String routeId, String path, String authorization, String cacheControl) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockServerWebExchange exchange = exchange(routeId, request);
+        filter.filter(exchange, forwarded -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = forwarded.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setCacheControl(cacheControl);
+            return response.writeWith(Mono.just(response.bufferFactory()
+                    .wrap(("{\"path\":\"" + path + "\"}").getBytes(StandardCharsets.UTF_8))));
+        }).block();
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("{\"path\":\"" + path + "\"}");
+        return exchange.getResponse().getHeaders().getFirst("X-Cache");
+    }
+
+    private static MockServerWebExchange exchange(String routeId, MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(routeId).uri("http://localhost").predicate(e -> true).build());
+        return exchange;
+    }
+}
@@ -0,0 +1,170 @@
+package com.projectlos.gw_service.filter;
+
+import com.projectlos.gw_service.GatewayIntegrationTestSupport;
+import com.projectlos.gw_service.streaming.InFlightBytes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams concurrent document-sized uploads through the gateway into a stub upstream and
+ * checks that the gateway never holds the bodies on the heap.
+ */
+class StreamingFilterTest extends GatewayIntegrationTestSupport {
+
+    private static final int UPLOADS = 100;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_PER_UPLOAD = 800; // 50 MB
+    private static final long UPLOAD_SIZE = (long) CHUNK_SIZE * CHUNKS_PER_UPLOAD;
+    private static final long MAX_SIZE = 64L * 1024 * 1024;
+
+    private static final LongAdder upstreamBytes = new LongAdder();
+    private static DisposableServer upstream;
+
+    @Autowired
+    private InFlightBytes inFlightBytes;
+
+    private HttpClient client;
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> request.receive()
+                        .map(ByteBuf::readableBytes)
+                        .reduce(0L, Long::sum)
+                        .doOnNext(upstreamBytes::add)
+                        .flatMap(received -> response.sendString(Mono.just(Long.toString(received))).then()))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void installRoute() {
+        installRoutes(route("document-uploads", "/api/document-uploads/**", "http://localhost:" + upstream.port())
+                .streamingEnabled(true).streamingMaxSize(MAX_SIZE)
+                .build());
+        client = HttpClient.create(ConnectionProvider.builder("uploads").maxConnections(UPLOADS).build())
+                .baseUrl("http://localhost:" + port);
+    }
+
+    @Test
+    void heapStaysFlatDuringConcurrentLargeUploads() throws InterruptedException {
+        ByteBuf chunk = Unpooled.unreleasableBuffer(Unpooled.directBuffer(CHUNK_SIZE).writeZero(CHUNK_SIZE));
+        // Warm up every event loop thread so the allocation accounting below sees them all
+        uploads(UPLOADS, 1, chunk).blockLast(Duration.ofMinutes(1));
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        Map<Long, Long> allocatedBefore = allocatedBytesByThread();
+        AtomicLong peakHeap = new AtomicLong(baselineHeap);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        List<Long> received = uploads(UPLOADS, CHUNKS_PER_UPLOAD, chunk).collectList().block(Duration.ofMinutes(10));
+
+        sampler.interrupt();
+        sampler.join();
+        long allocated = allocatedBytesByThread().entrySet().stream()
+                .mapToLong(thread -> thread.getValue() - allocatedBefore.getOrDefault(thread.getKey(), 0L))
+                .sum();
+        long transferred = UPLOADS * UPLOAD_SIZE;
+
+        assertThat(received).hasSize(UPLOADS).containsOnly(UPLOAD_SIZE);
+        // Aggregating the bodies would take their full 5 GB; streaming costs a few objects per read
+        assertThat(allocated).isLessThan(transferred / 10);
+        assertThat(peakHeap.get() - baselineHeap).isLessThan(transferred / 10);
+        awaitNoBytesInFlight();
+    }
+
+    @Test
+    void rejectsBodiesOverTheStreamingLimit() throws InterruptedException {
+        ByteBuf chunk = Unpooled.unreleasableBuffer(Unpooled.directBuffer(CHUNK_SIZE).writeZero(CHUNK_SIZE));
+        int chunks = (int) (MAX_SIZE / CHUNK_SIZE) + 16;
+        long upstreamBefore = upstreamBytes.sum();
+
+        Integer declared = client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_LENGTH, (long) chunks * CHUNK_SIZE))
+                .post().uri("/api/document-uploads/oversized")
+                .send(body(chunks, chunk))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .block(Duration.ofMinutes(1));
+        Integer chunked = client.post().uri("/api/document-uploads/oversized")
+                .send(body(chunks, chunk))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .block(Duration.ofMinutes(1));
+
+        assertThat(declared).isEqualTo(413);
+        assertThat(chunked).isEqualTo(413);
+        assertThat(upstreamBytes.sum() - upstreamBefore).isLessThanOrEqualTo(MAX_SIZE);
+        awaitNoBytesInFlight();
+    }
+
+    private Flux<Long> uploads(int count, int chunks, ByteBuf chunk) {
+        return Flux.range(0, count)
+                .flatMap(i -> client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_LENGTH, (long) chunks * CHUNK_SIZE))
+                        .post().uri("/api/document-uploads/" + i)
+                        .send(body(chunks, chunk))
+                        .responseSingle((response, body) -> body.asString().map(Long::parseLong)), count);
+    }
+
+    private static Flux<ByteBuf> body(int chunks, ByteBuf chunk) {
+        return Flux.range(0, chunks).map(i -> chunk.duplicate());
+    }
+
+    private void awaitNoBytesInFlight() throws InterruptedException {
+        for (int i = 0; i < 50 && inFlightBytes.get() != 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(inFlightBytes.get()).isZero();
+    }
+
+    private static Map<Long, Long> allocatedBytesByThread() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> byThread = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                byThread.put(ids[i], allocated[i]);
+            }
+        }
+        return byThread;
+    }
+}
@@ -0,0 +1,64 @@
+package com.projectlos.gw_service.loadbalancer;
+
+import com.projectlos.gw_service.config.LoadBalancerProperties;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class UpstreamInstanceRegistryTest {
+
+    private final LoadBalancerProperties properties = new LoadBalancerProperties();
+    private final UpstreamInstanceRegistry registry;
+
+    private final DisposableServer up = HttpServer.create().port(0)
+            .handle((request, response) -> response.sendString(Mono.just("UP")))
+            .bindNow();
+    private final DisposableServer hanging = HttpServer.create().port(0)
+            .handle((request, response) -> Mono.never())
+            .bindNow();
+
+    UpstreamInstanceRegistryTest() {
+        properties.getHealthCheck().setTimeout(Duration.ofSeconds(1));
+        registry = new UpstreamInstanceRegistry(mock(CustomRouteLocator.class), properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopServers() {
+        up.disposeNow();
+        hanging.disposeNow();
+    }
+
+    @Test
+    void instancesThatFailOrDoNotAnswerTheProbeLeaveTheRotation() {
+        UpstreamInstance healthy = registry.instance(URI.create("http://localhost:" + up.port()));
+        UpstreamInstance silent = registry.instance(URI.create("http://localhost:" + hanging.port()));
+        UpstreamInstance refused = registry.instance(URI.create("http://localhost:" + closedPort()));
+
+        long start = System.nanoTime();
+        registry.probeAll().block(Duration.ofSeconds(5));
+
+        // Each probe is bounded by the timeout, so the round ends and records every instance
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        long now = System.nanoTime();
+        assertThat(healthy.isAvailable(now)).isTrue();
+        assertThat(silent.isAvailable(now)).isFalse();
+        assertThat(refused.isAvailable(now)).isFalse();
+    }
+
+    private static int closedPort() {
+        DisposableServer server = HttpServer.create().port(0).bindNow();
+        int port = server.port();
+        server.disposeNow();
+        return port;
+    }
+}
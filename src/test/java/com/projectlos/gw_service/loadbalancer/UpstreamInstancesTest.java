@@ -0,0 +1,105 @@
+package com.projectlos.gw_service.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamInstancesTest {
+
+    private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void parsesSingleAndCommaSeparatedUris() {
+        assertThat(UpstreamInstances.parse("http://loan:8082")).containsExactly(URI.create("http://loan:8082"));
+        assertThat(UpstreamInstances.parse(" http://loan-1:8082 , http://loan-2:8082,"))
+                .containsExactly(URI.create("http://loan-1:8082"), URI.create("http://loan-2:8082"));
+        assertThat(UpstreamInstances.primary("http://loan-1:8082,http://loan-2:8082")).isEqualTo(URI.create("http://loan-1:8082"));
+    }
+
+    @Test
+    void prefersTheFasterInstance() {
+        UpstreamInstance fast = instance("http://fast");
+        UpstreamInstance slow = instance("http://slow");
+        long now = System.nanoTime();
+        observe(fast, 5 * MILLI, now);
+        observe(slow, 200 * MILLI, now);
+
+        UpstreamInstance[] pool = {fast, slow};
+        for (int i = 0; i < 100; i++) {
+            assertThat(UpstreamInstances.choose(pool, now)).isSameAs(fast);
+        }
+    }
+
+    @Test
+    void skipsInstancesOutOfRotationUnlessAllAre() {
+        UpstreamInstance up = instance("http://up");
+        UpstreamInstance down = instance("http://down");
+        UpstreamInstance ejected = instance("http://ejected");
+        long now = System.nanoTime();
+        down.setHealthy(false);
+        ejected.eject(TimeUnit.SECONDS.toNanos(30), now);
+
+        UpstreamInstance[] pool = {up, down, ejected};
+        for (int i = 0; i < 100; i++) {
+            assertThat(UpstreamInstances.choose(pool, now)).isSameAs(up);
+        }
+
+        up.setHealthy(false);
+        assertThat(UpstreamInstances.choose(pool, now)).isNotNull();
+    }
+
+    @Test
+    void retriesGoToAnotherInstancePreferablyInRotation() {
+        UpstreamInstance failed = instance("http://failed");
+        UpstreamInstance up = instance("http://up");
+        UpstreamInstance down = instance("http://down");
+        long now = System.nanoTime();
+        observe(failed, MILLI, now);
+        observe(up, 200 * MILLI, now);
+        down.setHealthy(false);
+
+        UpstreamInstance[] pool = {failed, up, down};
+        for (int i = 0; i < 100; i++) {
+            assertThat(UpstreamInstances.chooseOther(pool, failed, now)).isSameAs(up);
+        }
+
+        up.setHealthy(false);
+        assertThat(UpstreamInstances.chooseOther(pool, failed, now)).isNotSameAs(failed);
+        assertThat(UpstreamInstances.chooseOther(new UpstreamInstance[]{failed}, failed, now)).isSameAs(failed);
+    }
+
+    @Test
+    void signalsEjectionAfterConsecutiveFailures() {
+        UpstreamInstance instance = instance("http://flaky");
+        long now = System.nanoTime();
+        for (int i = 0; i < 2; i++) {
+            instance.requestStarted();
+            assertThat(instance.requestFailed(MILLI, now, 3)).isFalse();
+        }
+        instance.requestStarted();
+        instance.requestSucceeded(MILLI, now);
+        instance.requestStarted();
+        assertThat(instance.requestFailed(MILLI, now, 3)).isFalse();
+        instance.requestStarted();
+        instance.requestFailed(MILLI, now, 3);
+        instance.requestStarted();
+        assertThat(instance.requestFailed(MILLI, now, 3)).isTrue();
+
+        instance.eject(TimeUnit.SECONDS.toNanos(30), now);
+        assertThat(instance.isAvailable(now)).isFalse();
+        assertThat(instance.isAvailable(now + TimeUnit.SECONDS.toNanos(31))).isTrue();
+    }
+
+    private static UpstreamInstance instance(String uri) {
+        return new UpstreamInstance(URI.create(uri), DECAY);
+    }
+
+    private static void observe(UpstreamInstance instance, long latencyNanos, long now) {
+        instance.requestStarted();
+        instance.requestSucceeded(latencyNanos, now);
+    }
+}
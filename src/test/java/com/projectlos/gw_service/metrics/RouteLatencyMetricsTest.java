@@ -0,0 +1,54 @@
+package com.projectlos.gw_service.metrics;
+
+import com.projectlos.gw_service.config.RouteTimingProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteLatencyMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RouteLatencyMetrics metrics = new RouteLatencyMetrics(registry, new RouteTimingProperties());
+
+    @Test
+    void recordsOnlyThePhasesTheRequestReached() {
+        RouteTiming timing = new RouteTiming(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+        timing.markRouting();
+
+        metrics.record("loans", "loan-service", timing, System.nanoTime());
+
+        assertThat(timer("loans", "loan-service", "overhead").count()).isEqualTo(1);
+        assertThat(timer("loans", "loan-service", "total").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(5);
+        assertThat(timer("loans", "loan-service", "connect").count()).isZero();
+        assertThat(timer("loans", "loan-service", "ttfb").count()).isZero();
+    }
+
+    @Test
+    void unroutedRequestIsAllOverhead() {
+        long start = System.nanoTime();
+        metrics.record("cached", "none", new RouteTiming(start), start + TimeUnit.MILLISECONDS.toNanos(2));
+
+        assertThat(timer("cached", "none", "overhead").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+        assertThat(timer("cached", "none", "total").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    void switchesTimersWhenTheRouteMovesToAnotherService() {
+        long start = System.nanoTime();
+        metrics.record("loans", "loan-service", new RouteTiming(start), start + 1);
+        metrics.record("loans", "loan-service-v2", new RouteTiming(start), start + 1);
+
+        assertThat(timer("loans", "loan-service", "total").count()).isEqualTo(1);
+        assertThat(timer("loans", "loan-service-v2", "total").count()).isEqualTo(1);
+    }
+
+    private Timer timer(String route, String service, String phase) {
+        return registry.get("gateway.route.latency")
+                .tags("route", route, "service", service, "phase", phase)
+                .timer();
+    }
+}
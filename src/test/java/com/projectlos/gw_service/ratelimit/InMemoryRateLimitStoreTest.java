@@ -0,0 +1,75 @@
+package com.projectlos.gw_service.ratelimit;
+
+import com.projectlos.gw_service.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimitStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(new RateLimitProperties());
+
+    @Test
+    void allowsBurstThenRejectsWithWaitUntilNextPermit() {
+        RateLimitRule rule = RateLimitRule.of(10, 5);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(store.tryAcquire("k", rule, now)).isZero();
+        }
+        assertThat(store.tryAcquire("k", rule, now)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void refillsAtReplenishRate() {
+        RateLimitRule rule = RateLimitRule.of(10, 1);
+        long now = 1_000 * SECOND;
+
+        assertThat(store.tryAcquire("k", rule, now)).isZero();
+        assertThat(store.tryAcquire("k", rule, now + SECOND / 20)).isPositive();
+        assertThat(store.tryAcquire("k", rule, now + SECOND / 10)).isZero();
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        RateLimitRule rule = RateLimitRule.of(1, 1);
+        long now = 1_000 * SECOND;
+
+        assertThat(store.tryAcquire("alice", rule, now)).isZero();
+        assertThat(store.tryAcquire("alice", rule, now)).isPositive();
+        assertThat(store.tryAcquire("bob", rule, now)).isZero();
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurst() throws Exception {
+        RateLimitRule rule = RateLimitRule.of(1, 100);
+        long now = 1_000 * SECOND;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    if (store.tryAcquire("shared", rule, now) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted).hasValue(100);
+    }
+}
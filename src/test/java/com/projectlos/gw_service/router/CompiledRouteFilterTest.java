@@ -0,0 +1,89 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledRouteFilterTest {
+
+    @Test
+    void stripsPrefixSegmentsLikeTheStripPrefixFilter() {
+        assertThat(CompiledRouteFilter.stripPrefix("/api/loan/7", 2)).isEqualTo("/7");
+        assertThat(CompiledRouteFilter.stripPrefix("/api/loan/7/", 2)).isEqualTo("/7/");
+        assertThat(CompiledRouteFilter.stripPrefix("/api/loan/7/documents", 1)).isEqualTo("/loan/7/documents");
+        assertThat(CompiledRouteFilter.stripPrefix("/api/loan", 2)).isEqualTo("/");
+        assertThat(CompiledRouteFilter.stripPrefix("/api", 3)).isEqualTo("/");
+    }
+
+    @Test
+    void rewritesPathAndRequestHeadersBeforeForwarding() {
+        CompiledRouteFilter filter = CompiledRouteFilter.compile(RouteConfig.builder()
+                .stripPrefix(1)
+                .rewritePathRegex("^/loan/(?<id>\\d+)").rewritePathReplacement("/v2/loans/${id}")
+                .removeRequestHeaders("X-Debug, Cookie")
+                .addRequestHeaders("X-Gateway: gw-service\nX-Tenant:  projectlos ")
+                .build());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/loan/7/status?full=true")
+                .header("X-Debug", "1").header("Cookie", "SESSION=a").header("Accept", "application/json"));
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+        filter.filter(exchange, e -> {
+            forwarded.set(e);
+            return Mono.empty();
+        }).block();
+
+        URI uri = forwarded.get().getRequest().getURI();
+        assertThat(uri.getRawPath()).isEqualTo("/v2/loans/7/status");
+        assertThat(uri.getRawQuery()).isEqualTo("full=true");
+        assertThat(forwarded.get().getRequest().getHeaders().toSingleValueMap())
+                .containsEntry("X-Gateway", "gw-service")
+                .containsEntry("X-Tenant", "projectlos")
+                .containsEntry("Accept", "application/json")
+                .doesNotContainKeys("X-Debug", "Cookie");
+        Set<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        assertThat(originalUrls).extracting(URI::getRawPath).containsExactly("/api/loan/7/status");
+    }
+
+    @Test
+    void rewritesResponseHeadersOnceTheUpstreamAnswered() {
+        CompiledRouteFilter filter = CompiledRouteFilter.compile(RouteConfig.builder()
+                .removeResponseHeaders("Server")
+                .addResponseHeaders("Strict-Transport-Security: max-age=31536000")
+                .build());
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/loan/7"));
+
+        filter.filter(exchange, e -> Mono.fromRunnable(() -> e.getResponse().getHeaders().set("Server", "loan-service")))
+                .block();
+
+        assertThat(exchange.getResponse().getHeaders().toSingleValueMap())
+                .containsEntry("Strict-Transport-Security", "max-age=31536000")
+                .doesNotContainKey("Server");
+    }
+
+    @Test
+    void compilesNothingForPlainRoutesAndRejectsMalformedRows() {
+        assertThat(CompiledRouteFilter.compile(RouteConfig.builder().routeId("plain").build())).isNull();
+        assertThat(CompiledRouteFilter.methods(RouteConfig.builder().methods(" get,POST ").build()))
+                .containsExactlyInAnyOrder(HttpMethod.GET, HttpMethod.POST);
+
+        assertThatThrownBy(() -> CompiledRouteFilter.compile(RouteConfig.builder().addRequestHeaders("X-Missing-Colon").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledRouteFilter.compile(RouteConfig.builder().rewritePathRegex("/loan/(").build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledRouteFilter.methods(RouteConfig.builder().methods("GET,GTE").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("GTE");
+    }
+}
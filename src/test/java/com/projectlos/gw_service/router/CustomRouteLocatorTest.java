@@ -0,0 +1,170 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.config.RouteMatcherProperties;
+import com.projectlos.gw_service.config.RouteSourceProperties;
+import com.projectlos.gw_service.config.UpstreamResilienceProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.repository.RouteConfigSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental refreshes of the route table against a route_config source whose rows the
+ * test replaces between refreshes.
+ */
+class CustomRouteLocatorTest {
+
+    private final RouteConfigSource routeConfigSource = mock(RouteConfigSource.class);
+    private final RouteSnapshotStore routeSnapshotStore = mock(RouteSnapshotStore.class);
+    private final CustomRouteLocator locator;
+
+    CustomRouteLocatorTest() {
+        RouteMatcherProperties routeMatcherProperties = new RouteMatcherProperties();
+        routeMatcherProperties.setMode(RouteMatcherProperties.Mode.TRIE);
+        locator = new CustomRouteLocator(routeConfigSource, routeSnapshotStore,
+                new RouteLocatorBuilder(mock(ConfigurableApplicationContext.class)), routeMatcherProperties,
+                new RouteSourceProperties(), new UpstreamResilienceProperties());
+    }
+
+    @Test
+    void rebuildsOnlyAddedAndChangedRowsAndDropsRemovedOnes() {
+        rows(route("loans", "/api/loans/**", 1), route("audit", "/api/audit/**", 1), route("tasks", "/api/tasks/**", 1));
+        assertThat(locator.refresh()).isEqualTo(3);
+        RouteTable first = locator.getRouteTable();
+
+        rows(route("loans", "/api/loans/**", 1), route("audit", "/api/audit/**", 1), route("tasks", "/api/tasks/**", 1));
+        assertThat(locator.refresh()).isZero();
+        assertThat(locator.getRouteTable()).isSameAs(first);
+
+        rows(route("loans", "/api/loans/**", 1), route("audit", "/api/audit/**", 2), route("reports", "/api/reports/**", 1));
+        assertThat(locator.refresh()).isEqualTo(3);
+        RouteTable second = locator.getRouteTable();
+
+        assertThat(second.getRoutesById()).containsOnlyKeys("loans", "audit", "reports");
+        assertThat(second.getRoutesById().get("loans")).isSameAs(first.getRoutesById().get("loans"));
+        assertThat(second.getRoutesById().get("audit")).isNotSameAs(first.getRoutesById().get("audit"));
+        assertThat(second.getRoutesById().get("audit").getUri().getHost()).isEqualTo("v2.audit");
+        assertThat(match(second, "/api/tasks/7")).isNull();
+        assertThat(match(second, "/api/reports/7").routeId()).isEqualTo("reports");
+        assertThat(locator.getRoutes().map(Route::getId).collectList().block())
+                .containsExactly("loans", "audit", "reports");
+        // The snapshot is only written when it is switched on
+        verify(routeSnapshotStore, never()).write(anyList());
+    }
+
+    @Test
+    void malformedRowsStayOutWithoutBlockingTheRest() {
+        rows(route("loans", "/api/loans/**", 1), RouteConfig.builder()
+                .routeId("typo").pathPattern("/api/typo/**").uri("http://v1.typo").methods("GTE")
+                .requiresAuth(false).isActive(true).priority(10)
+                .build(),
+                route("unclosed", "/api/{id", 1));
+
+        assertThat(locator.refresh()).isEqualTo(1);
+        assertThat(locator.getRouteTable().getRoutesById()).containsOnlyKeys("loans");
+
+        rows(route("loans", "/api/loans/**", 1), route("unclosed", "/api/{id", 1), route("audit", "/api/audit/**", 1));
+        assertThat(locator.refresh()).isEqualTo(1);
+        assertThat(locator.getRouteTable().getRoutesById()).containsOnlyKeys("loans", "audit");
+        assertThat(match(locator.getRouteTable(), "/api/audit/7").routeId()).isEqualTo("audit");
+    }
+
+    @Test
+    void lookupsDuringRefreshesSeeEitherTheOldOrTheNewTable() throws Exception {
+        int routes = 20;
+        rows(version(routes, 0));
+        locator.refresh();
+
+        AtomicBoolean refreshing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> mixed = new ConcurrentLinkedQueue<>();
+        CountDownLatch readersStarted = new CountDownLatch(4);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> lookups = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            lookups.add(readers.submit(() -> {
+                readersStarted.countDown();
+                int count = 0;
+                while (refreshing.get()) {
+                    RouteTable table = locator.getRouteTable();
+                    Set<String> versions = table.getRoutes().stream()
+                            .map(route -> route.getUri().getHost())
+                            .collect(Collectors.toSet());
+                    table.getRouteConfigs().forEach(rc -> versions.add(rc.getUri().substring("http://".length())));
+                    versions.add(table.getConfigsById().get(match(table, "/api/r7/x").routeId()).getUri()
+                            .substring("http://".length()));
+                    if (versions.size() != 1 || table.size() != routes) {
+                        mixed.add(versions.toString());
+                    }
+                    count++;
+                }
+                return count;
+            }));
+        }
+        readersStarted.await();
+        for (int v = 1; v <= 200; v++) {
+            rows(version(routes, v));
+            assertThat(locator.refresh()).isEqualTo(routes);
+        }
+        refreshing.set(false);
+        int total = 0;
+        for (Future<Integer> lookup : lookups) {
+            total += lookup.get(10, TimeUnit.SECONDS);
+        }
+        readers.shutdown();
+
+        assertThat(total).isPositive();
+        assertThat(mixed).isEmpty();
+        assertThat(locator.getRouteTable().getRoutes()).allMatch(route -> route.getUri().getHost().equals("v200"));
+    }
+
+    private void rows(RouteConfig... rows) {
+        when(routeConfigSource.findActiveRoutes()).thenReturn(List.of(rows));
+    }
+
+    /**
+     * @return {@code count} routes that all point at host {@code v<version>}
+     */
+    private static RouteConfig[] version(int count, int version) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> RouteConfig.builder()
+                        .routeId("r" + i).pathPattern("/api/r" + i + "/**").uri("http://v" + version)
+                        .requiresAuth(false).isActive(true).priority(10)
+                        .build())
+                .toArray(RouteConfig[]::new);
+    }
+
+    private static RouteConfig route(String routeId, String pathPattern, int version) {
+        return RouteConfig.builder()
+                .routeId(routeId).pathPattern(pathPattern).uri("http://v" + version + "." + routeId)
+                .requiresAuth(false).isActive(true).priority(10)
+                .build();
+    }
+
+    private static RouteTrie.Entry match(RouteTable table, String path) {
+        return table.getTrie().match(PathContainer.parsePath(path), HttpMethod.GET);
+    }
+}
@@ -0,0 +1,97 @@
+package com.projectlos.gw_service.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlos.gw_service.config.RouteSourceProperties;
+import com.projectlos.gw_service.entity.RouteConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the fast-start profile against a database that is not there and checks that the
+ * snapshot routes serve traffic anyway.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.profiles.active=prod,fast-start",
+        "spring.datasource.url=jdbc:postgresql://localhost:1/projectlos",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "gateway.route-refresh.enabled=false"
+})
+class RouteSnapshotStartupTest {
+
+    private static DisposableServer upstream;
+    private static Path snapshotPath;
+
+    @Autowired
+    private CustomRouteLocator customRouteLocator;
+    @Autowired
+    private RouteSnapshotStore routeSnapshotStore;
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void writeSnapshot(DynamicPropertyRegistry registry) throws IOException {
+        upstream = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response.sendString(Mono.just("order " + request.uri())))
+                .bindNow();
+        snapshotPath = Files.createTempDirectory("route-snapshot").resolve("routes.json");
+        new ObjectMapper().findAndRegisterModules().writeValue(snapshotPath.toFile(),
+                new RouteSnapshotStore.RouteSnapshot(Instant.now(), List.of(route("orders", "/api/snapshot-orders/**"))));
+        registry.add("gateway.route-source.snapshot.path", snapshotPath::toString);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void servesSnapshotRoutesWhileTheDatabaseIsDown() {
+        String body = HttpClient.create()
+                .get().uri("http://localhost:" + port + "/api/snapshot-orders/42")
+                .responseSingle((response, content) -> content.asString())
+                .block(Duration.ofSeconds(30));
+
+        assertThat(body).isEqualTo("order /api/snapshot-orders/42");
+        assertThat(customRouteLocator.isServingSnapshot()).isTrue();
+        assertThat(customRouteLocator.getRouteTable().getConfigsById()).containsOnlyKeys("orders");
+    }
+
+    @Test
+    void snapshotRoundTripsRouteConfigs() {
+        List<RouteConfig> routes = List.of(route("orders", "/api/snapshot-orders/**"), route("tasks", "/api/tasks/**"));
+
+        routeSnapshotStore.write(routes);
+
+        assertThat(routeSnapshotStore.read()).contains(routes);
+        assertThat(snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp")).doesNotExist();
+    }
+
+    private static RouteConfig route(String routeId, String pathPattern) {
+        return RouteConfig.builder()
+                .id((long) routeId.hashCode()).routeId(routeId).pathPattern(pathPattern)
+                .uri("http://localhost:" + upstream.port()).serviceName(routeId + "-service")
+                .requiresAuth(false).isActive(true).priority(10).cacheVaryRoles(false).coalesceScope("ROLES")
+                .updatedAt(LocalDateTime.of(2026, 10, 18, 9, 30, 15, 123456000))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.projectlos.gw_service.router;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteTrieTest {
+
+    private static RouteConfig route(String routeId, String pathPattern) {
+        return RouteConfig.builder().routeId(routeId).pathPattern(pathPattern).build();
+    }
+
+    private static String match(RouteTrie trie, String path) {
+        RouteTrie.Entry entry = trie.match(path, HttpMethod.GET);
+        return entry != null ? entry.routeId() : null;
+    }
+
+    /**
+     * The pattern as the Path predicate parses it, with its default matchTrailingSlash.
+     */
+    @SuppressWarnings("deprecation")
+    private static PathPattern pathPredicatePattern(String pathPattern) {
+        PathPatternParser parser = new PathPatternParser();
+        parser.setMatchOptionalTrailingSeparator(true);
+        return parser.parse(pathPattern);
+    }
+
+    @Test
+    void resolvesLiteralPrefixesAndCatchAll() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route("customers", "/api/customers/**"),
+                route("loans", "/api/loan/**")));
+
+        assertThat(match(trie, "/api/customers")).isEqualTo("customers");
+        assertThat(match(trie, "/api/customers/")).isEqualTo("customers");
+        assertThat(match(trie, "/api/customers/42/addresses")).isEqualTo("customers");
+        assertThat(match(trie, "/api/loan/7")).isEqualTo("loans");
+        assertThat(match(trie, "/api/loans/7")).isNull();
+        assertThat(match(trie, "/api")).isNull();
+    }
+
+    @Test
+    void higherPriorityRouteWinsAcrossBranches() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route("catch-all", "/api/**"),
+                route("customers", "/api/customers/**")));
+
+        assertThat(match(trie, "/api/customers/1")).isEqualTo("catch-all");
+
+        RouteTrie reversed = RouteTrie.compile(List.of(
+                route("customers", "/api/customers/**"),
+                route("catch-all", "/api/**")));
+
+        assertThat(match(reversed, "/api/customers/1")).isEqualTo("customers");
+        assertThat(match(reversed, "/api/documents/1")).isEqualTo("catch-all");
+    }
+
+    @Test
+    void singleSegmentWildcardsAndVariables() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route("loan-status", "/api/loan/{id}/status"),
+                route("task", "/api/tasks/*")));
+
+        assertThat(match(trie, "/api/loan/12/status")).isEqualTo("loan-status");
+        assertThat(match(trie, "/api/loan/12/status/history")).isNull();
+        assertThat(match(trie, "/api/tasks/9")).isEqualTo("task");
+        assertThat(match(trie, "/api/tasks/9/comments")).isNull();
+    }
+
+    @Test
+    void unsupportedSyntaxFallsBackToPathPattern() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route("exports", "/api/reports/*.csv"),
+                route("reports", "/api/reports/**")));
+
+        assertThat(match(trie, "/api/reports/monthly.csv")).isEqualTo("exports");
+        assertThat(match(trie, "/api/reports/monthly.pdf")).isEqualTo("reports");
+    }
+
+    @Test
+    void honoursMethodRestrictedRoutes() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                RouteConfig.builder().routeId("writes").pathPattern("/api/loan/**").methods("POST, put").build(),
+                route("any", "/api/**")));
+
+        assertThat(trie.match("/api/loan/x", HttpMethod.POST).routeId()).isEqualTo("writes");
+        assertThat(trie.match("/api/loan/x", HttpMethod.PUT).routeId()).isEqualTo("writes");
+        assertThat(trie.match("/api/loan/x", HttpMethod.GET).routeId()).isEqualTo("any");
+    }
+
+    @Test
+    void decodesSegmentsAndDropsMatrixParameters() {
+        RouteTrie trie = RouteTrie.compile(List.of(
+                route("loan-status", "/api/loan/{id}/status"),
+                route("loans", "/api/loan/**")));
+
+        assertThat(match(trie, "/api/lo%61n/7")).isEqualTo("loans");
+        assertThat(match(trie, "/api/loan;x=1/7")).isEqualTo("loans");
+        assertThat(match(trie, "/api;v=2/loan/7/status;full")).isEqualTo("loan-status");
+        assertThat(match(trie, "/api/loan%2F7")).isNull();
+    }
+
+    @Test
+    void agreesWithThePathPredicateOnEncodedAndMatrixPaths() {
+        List<RouteConfig> routes = List.of(
+                route("loan-status", "/api/loan/{id}/status"),
+                route("loans", "/api/loan/**"),
+                route("task", "/api/tasks/*"),
+                route("exports", "/api/reports/*.csv"),
+                route("customers", "/api/customers"));
+        RouteTrie trie = RouteTrie.compile(routes);
+        List<PathPattern> patterns = routes.stream().map(rc -> pathPredicatePattern(rc.getPathPattern())).toList();
+
+        for (String path : List.of("/api/loan/7", "/api/lo%61n/7", "/api/loan;x=1/7", "/api/%6Coan/7/status",
+                "/api/loan/7;a=b/status", "/api/loan/7/st%61tus/", "/api/loan%2F7", "/api/loan//status",
+                "/api/tasks/9", "/api/tasks/9;x", "/api/tasks/%39/", "/api/tasks;x/9/10",
+                "/api/reports/m%6Fnthly.csv", "/api/reports/monthly.csv;v=1", "/api/customers/", "/api/customers;a",
+                "/api/customer%73", "/api", "/")) {
+            PathContainer container = PathContainer.parsePath(path);
+            String expected = null;
+            for (int i = 0; i < routes.size(); i++) {
+                if (patterns.get(i).matches(container)) {
+                    expected = routes.get(i).getRouteId();
+                    break;
+                }
+            }
+            assertThat(match(trie, path)).as(path).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.projectlos.gw_service.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.projectlos.gw_service.config.JwtCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwkSetCacheTest {
+
+    private final AtomicReference<JWKSet> published = new AtomicReference<>(new JWKSet());
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final JwtCacheProperties properties = new JwtCacheProperties();
+    private JwkSetCache cache;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    fetches.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .body(published.get().toString())
+                            .build());
+                })
+                .build();
+        OAuth2ResourceServerProperties resourceServer = new OAuth2ResourceServerProperties();
+        resourceServer.getJwt().setJwkSetUri("http://keycloak/certs");
+        cache = new JwkSetCache(webClient, resourceServer, properties);
+    }
+
+    @Test
+    void servesKeysFromMemoryAfterRefresh() throws Exception {
+        RSAKey key = generateKey("k1");
+        published.set(new JWKSet(key.toPublicJWK()));
+        cache.refresh().block();
+
+        assertThat(cache.select(sign(key)).collectList().block()).hasSize(1);
+        assertThat(cache.select(sign(key)).collectList().block()).hasSize(1);
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void unknownKeyIdTriggersRefreshForRotatedKey() throws Exception {
+        properties.setJwkMinRefreshInterval(Duration.ZERO);
+        RSAKey oldKey = generateKey("k1");
+        published.set(new JWKSet(oldKey.toPublicJWK()));
+        cache.refresh().block();
+
+        RSAKey newKey = generateKey("k2");
+        published.set(new JWKSet(newKey.toPublicJWK()));
+
+        assertThat(cache.select(sign(newKey)).collectList().block())
+                .singleElement()
+                .satisfies(jwk -> assertThat(jwk.getKeyID()).isEqualTo("k2"));
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void unknownKeyIdDoesNotRefetchWithinMinimumInterval() throws Exception {
+        properties.setJwkMinRefreshInterval(Duration.ofMinutes(1));
+        published.set(new JWKSet(generateKey("k1").toPublicJWK()));
+        cache.refresh().block();
+
+        assertThat(cache.select(sign(generateKey("unknown"))).collectList().block()).isEmpty();
+        assertThat(fetches).hasValue(1);
+    }
+
+    private static RSAKey generateKey(String keyId) throws Exception {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+
+    private static SignedJWT sign(RSAKey key) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder().subject("user").build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt;
+    }
+}
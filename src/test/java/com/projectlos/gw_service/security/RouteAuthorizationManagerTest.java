@@ -0,0 +1,125 @@
+package com.projectlos.gw_service.security;
+
+import com.projectlos.gw_service.entity.RouteConfig;
+import com.projectlos.gw_service.router.CustomRouteLocator;
+import com.projectlos.gw_service.router.RouteTable;
+import com.projectlos.gw_service.router.RouteTrie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteAuthorizationManagerTest {
+
+    private final CustomRouteLocator customRouteLocator = mock(CustomRouteLocator.class);
+    private RouteAuthorizationManager authorizationManager;
+
+    @BeforeEach
+    void setUp() {
+        List<RouteConfig> routeConfigs = List.of(
+                route("loans", true, "ADMIN, MAKER"),
+                route("public-rates", false, null),
+                route("profile", true, null));
+        RouteTable routeTable = mock(RouteTable.class);
+        when(routeTable.getRouteConfigs()).thenReturn(routeConfigs);
+        when(routeTable.getTrie()).thenReturn(RouteTrie.compile(routeConfigs));
+        when(customRouteLocator.getRouteTable()).thenReturn(routeTable);
+        authorizationManager = new RouteAuthorizationManager(customRouteLocator);
+    }
+
+    @Test
+    void grantsRouteRoleAndDeniesOthers() {
+        resolveTo("loans");
+
+        assertThat(check(user("ROLE_MAKER"))).isTrue();
+        assertThat(check(user("ROLE_CHECKER"))).isFalse();
+        assertThat(check(null)).isFalse();
+    }
+
+    @Test
+    void publicRoutePermitsAnonymous() {
+        resolveTo("public-rates");
+
+        assertThat(check(null)).isTrue();
+    }
+
+    @Test
+    void routeWithoutRolesRequiresAuthenticationOnly() {
+        resolveTo("profile");
+
+        assertThat(check(user("ROLE_CHECKER"))).isTrue();
+        assertThat(check(null)).isFalse();
+    }
+
+    @Test
+    void unmatchedRequestRequiresAuthentication() {
+        when(customRouteLocator.resolve(any())).thenReturn(null);
+
+        assertThat(check(user())).isTrue();
+        assertThat(check(null)).isFalse();
+    }
+
+    @Test
+    void encodedPathsAreAuthorizedAgainstTheRouteTheyAreRoutedTo() {
+        when(customRouteLocator.resolve(any())).thenCallRealMethod();
+
+        for (String path : List.of("/api/lo%61ns/7", "/api/%6Coans/7", "/%61pi/loans/7/")) {
+            assertThat(check(path, user("ROLE_MAKER"))).as(path).isTrue();
+            assertThat(check(path, user("ROLE_CHECKER"))).as(path).isFalse();
+        }
+    }
+
+    @Test
+    void matrixParametersDoNotHideTheRoute() {
+        when(customRouteLocator.resolve(any())).thenCallRealMethod();
+
+        for (String path : List.of("/api/loans;x=1/7", "/api;v=2/loans/7", "/api/loans;/7;a=b")) {
+            assertThat(check(path, user("ROLE_MAKER"))).as(path).isTrue();
+            assertThat(check(path, user("ROLE_CHECKER"))).as(path).isFalse();
+        }
+        assertThat(check("/api/public-rates;x=1/today", null)).isTrue();
+    }
+
+    private void resolveTo(String routeId) {
+        when(customRouteLocator.resolve(any()))
+                .thenReturn(new RouteTrie.Entry(routeId, 0, null, new PathPatternParser().parse("/api/**")));
+    }
+
+    private boolean check(Authentication authentication) {
+        return check("/api/anything", authentication);
+    }
+
+    private boolean check(String path, Authentication authentication) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(HttpMethod.GET, URI.create(path)));
+        AuthorizationDecision decision = authorizationManager
+                .check(Mono.justOrEmpty(authentication), new AuthorizationContext(exchange))
+                .block();
+        return decision != null && decision.isGranted();
+    }
+
+    private static Authentication user(String... authorities) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "n/a", authorities);
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+
+    private static RouteConfig route(String routeId, boolean requiresAuth, String roles) {
+        return RouteConfig.builder().routeId(routeId).pathPattern("/api/" + routeId + "/**")
+                .requiresAuth(requiresAuth).roles(roles).build();
+    }
+}